@@ -1,6 +1,8 @@
 package io.zentity.common;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -18,4 +20,20 @@ public class CollectionUtil {
         AtomicInteger counter = new AtomicInteger();
         return input.stream().collect(Collectors.groupingBy(it -> counter.getAndIncrement() / chunkSize)).values();
     }
+
+    /**
+     * Copy a collection into a sorted list, such as to apply a stable order to a hash-based collection when it is
+     * written out.
+     *
+     * @param input the collection to sort.
+     * @return a new list of the elements in their natural order.
+     */
+    public static <T extends Comparable<? super T>> List<T> sorted(Collection<T> input) {
+        if (input.size() <= 1) {
+            return input.isEmpty() ? Collections.emptyList() : Collections.singletonList(input.iterator().next());
+        }
+        List<T> list = new ArrayList<>(input);
+        Collections.sort(list);
+        return list;
+    }
 }
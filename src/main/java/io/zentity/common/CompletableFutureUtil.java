@@ -4,7 +4,7 @@ import io.zentity.common.FunctionalUtil.Recursable;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -16,7 +16,6 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class CompletableFutureUtil {
     /**
@@ -131,6 +130,23 @@ public class CompletableFutureUtil {
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
     }
 
+    /**
+     * How {@link #runParallel} handles an operation that fails.
+     */
+    public enum ErrorPolicy {
+        /**
+         * Stop starting operations and fail with the error as soon as one operation fails. The operations that are
+         * already running are not cancelled, and their results are ignored.
+         */
+        FAIL_FAST,
+
+        /**
+         * Run every operation, and then fail with the first error, with the errors of the other failed operations
+         * added to it as suppressed exceptions.
+         */
+        COLLECT_ALL
+    }
+
     /**
      * Run a list of async operations one after the other.
      *
@@ -139,117 +155,165 @@ public class CompletableFutureUtil {
      * @return A future with the results of all of them.
      */
     public static <T> CompletableFuture<List<T>> runSeries(Collection<Supplier<CompletableFuture<T>>> suppliers) {
-        return suppliers
-            .stream()
-            .reduce(
-                CompletableFuture.completedFuture(new ArrayList<>()),
-                // accumulator
-                (allFut, nextSupplier) -> allFut
-                    .thenCompose(
-                        (allItems) -> nextSupplier.get().thenApply((item) -> {
-                            allItems.add(item);
-                            return allItems;
-                        })
-                    ),
-                // combiner
-                (fut1, fut2) -> fut1.thenCombine(fut2, (l1, l2) -> {
-                    l1.addAll(l2);
-                    return l1;
-                })
-            );
+        return runParallel(suppliers.iterator(), 1);
     }
 
-    static <T> CompletableFuture<List<T>> runParallelInChains(List<Supplier<CompletableFuture<T>>> suppliers, int parallelism) {
-        // Hold on to all supplied futures so that results can be ordered at the end
-        final List<CompletableFuture<T>> futures = Collections.synchronizedList(new ArrayList<>(suppliers.size()));
-
-        final int size = suppliers.size();
-        final AtomicInteger currentIdx = new AtomicInteger(0);
-
-        final CompletableFuture<Void> FINISHED = CompletableFuture.completedFuture(null);
-
-        final Supplier<CompletableFuture<?>> nextFutureSupplier = () -> {
-            int nextIdx = currentIdx.getAndIncrement();
-
-            if (nextIdx >= size) {
-                // signal that there are no more futures to supply
-                return FINISHED;
-            }
-
-            CompletableFuture<T> nextFuture = suppliers.get(nextIdx).get();
-            futures.add(nextIdx, nextFuture);
-            return nextFuture;
-        };
-
-        // recursively get the next future to run immediately after the last future finishes
-        final Recursable<CompletableFuture<?>, CompletableFuture<?>> futureRunner = (fut, f) -> {
-            if (fut == FINISHED) {
-                return FINISHED;
-            }
-            return fut.thenCompose((ignored) -> f.apply(nextFutureSupplier.get()));
-        };
-
-        // "parallelism" number of "channels" for running as many at the same time as possible
-        List<CompletableFuture<?>> channels = IntStream.range(0, parallelism)
-            .mapToObj(i -> futureRunner.apply(CompletableFuture.completedFuture(null)))
-            .collect(Collectors.toList());
-
-        return allOfIgnored(channels).thenApply((ignored) -> joinAllOf(futures));
+    /**
+     * Run a list of async operations, with at most "parallelism" of them running at a time.
+     * Fails fast on the first operation that fails.
+     *
+     * @param suppliers A list of suppliers that kick off async work.
+     * @param parallelism The max async tasks to run at one time.
+     * @param <T> The result type of a single async task.
+     * @return A future with the results of all of them, in the order of the list.
+     * @see #runParallel(Iterator, int, ErrorPolicy)
+     */
+    public static <T> CompletableFuture<List<T>> runParallel(List<Supplier<CompletableFuture<T>>> suppliers, int parallelism) {
+        return runParallel(suppliers.iterator(), parallelism, ErrorPolicy.FAIL_FAST);
     }
 
-    static <T> CompletableFuture<List<T>> runParallelInPartitions(List<Supplier<CompletableFuture<T>>> suppliers, int parallelism) {
-        Collection<List<Supplier<CompletableFuture<T>>>> partitions = CollectionUtil.partition(suppliers, parallelism);
-
-        return partitions
-            .stream()
-            .reduce(
-                CompletableFuture.completedFuture(new ArrayList<>()),
-                // accumulator
-                (allFut, nextBatch) -> allFut
-                    .thenCompose(
-                        (allItems) -> runSeries(nextBatch).thenApply((item) -> {
-                            allItems.addAll(item);
-                            return allItems;
-                        })
-                    ),
-                // combiner
-                (fut1, fut2) -> fut1.thenCombine(fut2, (l1, l2) -> {
-                    l1.addAll(l2);
-                    return l1;
-                })
-            );
+    /**
+     * Run async operations as they are pulled from an iterator, with at most "parallelism" of them running at a time.
+     * Fails fast on the first operation that fails.
+     *
+     * @param suppliers An iterator of suppliers that kick off async work.
+     * @param parallelism The max async tasks to run at one time.
+     * @param <T> The result type of a single async task.
+     * @return A future with the results of all of them, in the order of the iterator.
+     * @see #runParallel(Iterator, int, ErrorPolicy)
+     */
+    public static <T> CompletableFuture<List<T>> runParallel(Iterator<Supplier<CompletableFuture<T>>> suppliers, int parallelism) {
+        return runParallel(suppliers, parallelism, ErrorPolicy.FAIL_FAST);
     }
 
     /**
-     * Run a list of async operations one after the other.
+     * Run async operations as they are pulled from an iterator, with at most "parallelism" of them running at a time.
+     * The next supplier is pulled only when a running operation completes, so the iterator can produce them lazily
+     * and holds back when the operations are slower than it. Exactly "parallelism" operations are in flight until
+     * the iterator runs out.
      *
      * <p>
-     *     NOTE: The current implementation recursively chains futures using {@link CompletableFuture#thenCompose}.
-     *     Running long lists of futures will cause a StackOverflow exception, as the future chains
-     *     will grow too long. To mitigate this for now, lists longer than 1,000 will be partitioned evenly
-     *     and each partition will be run in parallel which is less efficient,
-     *     especially when tasks widely vary in execution time. A nice optimization would be
-     *     a non-recursive implementation, likely involving another class to manage execution and "chaining".
+     *     The operations are started from a loop rather than by chaining futures, so the stack does not grow with the
+     *     number of operations, even when they complete on the thread that started them.
      *
-     * @param suppliers A list of suppliers that kick off async work.
+     * @param suppliers An iterator of suppliers that kick off async work.
      * @param parallelism The max async tasks to run at one time.
+     * @param errorPolicy How to handle an operation that fails. A failure of the iterator or of a supplier is handled
+     *                    like a failed operation, except that nothing more can be pulled after the iterator fails.
      * @param <T> The result type of a single async task.
-     * @return A future with the results of all of them.
+     * @return A future with the results of all of them, in the order of the iterator.
      */
-    public static <T> CompletableFuture<List<T>> runParallel(List<Supplier<CompletableFuture<T>>> suppliers, int parallelism) {
+    public static <T> CompletableFuture<List<T>> runParallel(Iterator<Supplier<CompletableFuture<T>>> suppliers, int parallelism, ErrorPolicy errorPolicy) {
         if (parallelism < 1) {
             throw new IllegalArgumentException("Cannot have parallelism less than 1");
         }
+        ParallelScheduler<T> scheduler = new ParallelScheduler<>(suppliers, parallelism, errorPolicy);
+        scheduler.drain();
+        return scheduler.result;
+    }
+
+    /**
+     * Pulls suppliers from an iterator while fewer than "parallelism" of their futures are running.
+     * Each completed future frees a permit and calls {@link #drain()} to start the next one. Futures that complete on
+     * the thread that started them would call back into {@link #drain()} while it is still pulling, so a re-entrant
+     * call only signals the running loop to go around again instead of recursing.
+     */
+    private static class ParallelScheduler<T> {
+        private final Iterator<Supplier<CompletableFuture<T>>> suppliers;
+        private final int parallelism;
+        private final ErrorPolicy errorPolicy;
+        private final List<T> results = new ArrayList<>();
+        private final CompletableFuture<List<T>> result = new CompletableFuture<>();
+        private final AtomicInteger drains = new AtomicInteger();
+        private int running = 0;
+        private boolean exhausted = false;
+        private Throwable failure;
+
+        ParallelScheduler(Iterator<Supplier<CompletableFuture<T>>> suppliers, int parallelism, ErrorPolicy errorPolicy) {
+            this.suppliers = suppliers;
+            this.parallelism = parallelism;
+            this.errorPolicy = errorPolicy;
+        }
 
-        if (parallelism == 1) {
-            return runSeries(suppliers);
+        private boolean canPull() {
+            if (exhausted || running >= parallelism) {
+                return false;
+            }
+            return failure == null || errorPolicy == ErrorPolicy.COLLECT_ALL;
         }
 
-        if (suppliers.size() < 1000) {
-            return runParallelInChains(suppliers, parallelism);
+        private void fail(Throwable ex) {
+            ex = getCause(ex);
+            if (failure == null) {
+                failure = ex;
+            } else if (failure != ex) {
+                failure.addSuppressed(ex);
+            }
         }
 
-        // otherwise, just partition and run each partition in series
-        return runParallelInPartitions(suppliers, parallelism);
+        void drain() {
+            if (drains.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (true) {
+                    final int index;
+                    final Supplier<CompletableFuture<T>> supplier;
+                    synchronized (this) {
+                        if (!canPull()) {
+                            break;
+                        }
+                        try {
+                            if (!suppliers.hasNext()) {
+                                exhausted = true;
+                                break;
+                            }
+                            supplier = suppliers.next();
+                        } catch (Exception ex) {
+                            // Nothing more can be pulled from an iterator that failed.
+                            fail(ex);
+                            exhausted = true;
+                            break;
+                        }
+                        index = results.size();
+                        results.add(null);
+                        running++;
+                    }
+                    CompletableFuture<T> future;
+                    try {
+                        future = supplier.get();
+                    } catch (Exception ex) {
+                        future = CompletableFuture.failedFuture(ex);
+                    }
+                    future.whenComplete((value, ex) -> {
+                        synchronized (this) {
+                            running--;
+                            if (ex != null) {
+                                fail(ex);
+                            } else {
+                                results.set(index, value);
+                            }
+                        }
+                        drain();
+                    });
+                }
+                final boolean finished;
+                synchronized (this) {
+                    if (failure != null && errorPolicy == ErrorPolicy.FAIL_FAST) {
+                        finished = true;
+                    } else {
+                        finished = running == 0 && exhausted;
+                    }
+                }
+                // Complete outside of the lock, since it runs the callbacks of the result.
+                if (finished && !result.isDone()) {
+                    if (failure != null) {
+                        result.completeExceptionally(failure);
+                    } else {
+                        result.complete(results);
+                    }
+                }
+            } while (drains.decrementAndGet() != 0);
+        }
     }
 }
@@ -0,0 +1,163 @@
+package io.zentity.common;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of values in fixed buckets. Recording a value only increments counters, so it can be done concurrently
+ * without locks or allocation. Percentiles are estimated from a {@link Snapshot} as the upper bound of the bucket
+ * they fall in.
+ */
+public class Histogram {
+
+    // The upper bounds of the buckets of durations in milliseconds.
+    public static final long[] MILLIS_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000};
+
+    private final long[] bounds;
+    // One counter per bound, and one for the values above the last bound.
+    private final LongAdder[] counts;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param bounds The inclusive upper bounds of the buckets, in ascending order.
+     */
+    public Histogram(long... bounds) {
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("The bounds of a histogram must be in ascending order.");
+            }
+        }
+        this.bounds = bounds.clone();
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a value. Negative values are recorded as zero.
+     *
+     * @param value The value.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        int i = Arrays.binarySearch(this.bounds, value);
+        this.counts[i >= 0 ? i : -i - 1].increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    /**
+     * Read the counts of the buckets. Values that are recorded while reading may be counted in some buckets but not
+     * others, which is fine for stats.
+     *
+     * @return The counts of the buckets.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[this.counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.counts[i].sum();
+        }
+        return new Snapshot(this.bounds, counts, this.sum.sum(), this.max.get());
+    }
+
+    /**
+     * The counts of the buckets of a histogram at one point in time.
+     */
+    public static class Snapshot implements Writeable, ToXContentFragment {
+
+        private final long[] bounds;
+        private final long[] counts;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] bounds, long[] counts, long sum, long max) {
+            this.bounds = bounds;
+            this.counts = counts;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public Snapshot(StreamInput in) throws IOException {
+            this.bounds = in.readVLongArray();
+            this.counts = in.readVLongArray();
+            this.sum = in.readVLong();
+            this.max = in.readVLong();
+        }
+
+        public long count() {
+            long count = 0;
+            for (long c : this.counts) {
+                count += c;
+            }
+            return count;
+        }
+
+        public long sum() {
+            return this.sum;
+        }
+
+        public long max() {
+            return this.max;
+        }
+
+        /**
+         * Estimate a percentile as the upper bound of the bucket it falls in, or the maximum value if that is lower.
+         *
+         * @param percentile The percentile, from 0 to 100.
+         * @return The estimated value, or 0 if nothing was recorded.
+         */
+        public long percentile(double percentile) {
+            long count = count();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < this.bounds.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(this.bounds[i], this.max);
+                }
+            }
+            return this.max;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLongArray(this.bounds);
+            out.writeVLongArray(this.counts);
+            out.writeVLong(this.sum);
+            out.writeVLong(this.max);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            long count = count();
+            builder.field("count", count);
+            builder.field("avg", count == 0 ? 0 : this.sum / count);
+            builder.field("max", this.max);
+            builder.startObject("percentiles");
+            builder.field("50", percentile(50));
+            builder.field("90", percentile(90));
+            builder.field("99", percentile(99));
+            builder.endObject();
+            builder.startObject("buckets");
+            for (int i = 0; i < this.bounds.length; i++) {
+                builder.field(Long.toString(this.bounds[i]), this.counts[i]);
+            }
+            builder.field("+Inf", this.counts[this.bounds.length]);
+            builder.endObject();
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.zentity.common;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterate the lines of a {@link BytesReference}, such as the body of an NDJSON request, as slices of it. The lines
+ * are not copied until they are read, so a large body can be consumed one line at a time.
+ *
+ * <p>
+ * Lines are split the same way as {@link String#split(String)} with a "\n" pattern: empty lines are kept, except at
+ * the end of the bytes.
+ */
+public class LineIterator implements Iterator<BytesReference> {
+
+    private static final byte NEWLINE = (byte) '\n';
+
+    private final BytesReference bytes;
+    private final int end;
+    private int from = 0;
+
+    public LineIterator(BytesReference bytes) {
+        this.bytes = bytes;
+        int end = bytes.length();
+        while (end > 0 && bytes.get(end - 1) == NEWLINE) {
+            end--;
+        }
+        this.end = end;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.from < this.end;
+    }
+
+    @Override
+    public BytesReference next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int newline = this.bytes.indexOf(NEWLINE, this.from);
+        int to = newline < 0 || newline > this.end ? this.end : newline;
+        BytesReference line = this.bytes.slice(this.from, to - this.from);
+        this.from = to + 1;
+        return line;
+    }
+}
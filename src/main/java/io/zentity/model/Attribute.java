@@ -7,10 +7,10 @@ import io.zentity.common.Patterns;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 public class Attribute {
@@ -20,7 +20,7 @@ public class Attribute {
     );
 
     private final String name;
-    private final Map<String, String> params = new TreeMap<>();
+    private Map<String, String> params = Collections.emptyMap();
     private Double score;
     private String type = "string";
 
@@ -52,12 +52,12 @@ public class Attribute {
         return this.type;
     }
 
-    public void score(JsonNode value) throws ValidationException {
+    private void score(JsonNode value) throws ValidationException {
         validateScore(value);
         this.score = value.doubleValue();
     }
 
-    public void type(JsonNode value) throws ValidationException {
+    private void type(JsonNode value) throws ValidationException {
         validateType(value);
         this.type = value.textValue();
     }
@@ -135,7 +135,7 @@ public class Attribute {
      * @throws ValidationException
      * @throws JsonProcessingException
      */
-    public void deserialize(JsonNode json) throws ValidationException, JsonProcessingException {
+    private void deserialize(JsonNode json) throws ValidationException, JsonProcessingException {
         validateObject(json);
 
         // Validate and hold the state of fields.
@@ -152,7 +152,7 @@ public class Attribute {
                     // Set any params that were specified in the input, with the values serialized as strings.
                     if (!value.isObject())
                         throw new ValidationException("'attributes." + this.name + ".params' must be an object.");
-                    this.params().putAll(Json.toStringMap(value));
+                    this.params = Collections.unmodifiableMap(Json.toStringMap(value));
                     break;
                 case "score":
                     this.score(value);
@@ -163,7 +163,7 @@ public class Attribute {
         }
     }
 
-    public void deserialize(String json) throws ValidationException, IOException {
+    private void deserialize(String json) throws ValidationException, IOException {
         deserialize(Json.MAPPER.readTree(json));
     }
 
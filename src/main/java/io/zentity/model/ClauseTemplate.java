@@ -0,0 +1,270 @@
+package io.zentity.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.zentity.common.Patterns;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchModule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The clause of a {@link Matcher}, compiled once so that it can be populated for many fields and values without
+ * searching for its {{ variables }} each time.
+ *
+ * <p>
+ * Every string in the clause, whether a field name or a value, is split into its literal text and the variables in it.
+ * Populating the clause joins the text of each string with the values of its variables and writes the clause, which
+ * is then read as a {@link QueryBuilder} using a registry that is built once.
+ */
+public class ClauseTemplate {
+
+    private static final NamedXContentRegistry REGISTRY = new NamedXContentRegistry(
+        new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedXContents()
+    );
+
+    private final String matcherName;
+    // the compiled clause: maps, lists, strings, numbers, booleans and nulls, with the strings that use variables
+    // replaced by templates
+    private final Map<Object, Object> root;
+    // the field of the clause if it is a plain "term" query of {{ value }}, otherwise null
+    private final Object termField;
+
+    /**
+     * A variable of a string, expressed as {{ variable }}.
+     */
+    private static class Variable {
+        final String text;
+        final String name;
+        final String param;
+
+        Variable(String text, String name) {
+            this.text = text;
+            this.name = name;
+            java.util.regex.Matcher m = Patterns.VARIABLE_PARAMS.matcher(name);
+            this.param = m.find() ? m.group(1) : null;
+        }
+    }
+
+    /**
+     * A string that uses variables, as the literal text and variables it is made of.
+     */
+    private static class StringTemplate {
+        final List<Object> parts = new ArrayList<>();
+    }
+
+    /**
+     * Compile a clause.
+     *
+     * @param matcherName The name of the matcher, to report errors.
+     * @param clause      The clause, which must be an object.
+     */
+    ClauseTemplate(String matcherName, JsonNode clause) {
+        this.matcherName = matcherName;
+        this.root = compileObject(clause);
+        this.termField = compileTermField(this.root);
+    }
+
+    private static Map<Object, Object> compileObject(JsonNode object) {
+        Map<Object, Object> compiled = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            compiled.put(compileString(field.getKey()), compile(field.getValue()));
+        }
+        return compiled;
+    }
+
+    private static Object compile(JsonNode node) {
+        if (node.isObject()) {
+            return compileObject(node);
+        } else if (node.isArray()) {
+            List<Object> compiled = new ArrayList<>(node.size());
+            for (JsonNode item : node) {
+                compiled.add(compile(item));
+            }
+            return compiled;
+        } else if (node.isTextual()) {
+            return compileString(node.textValue());
+        } else if (node.isNumber()) {
+            return node.numberValue();
+        } else if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        return null;
+    }
+
+    private static Object compileString(String text) {
+        java.util.regex.Matcher m = Patterns.VARIABLE.matcher(text);
+        if (!m.find()) {
+            return text;
+        }
+        StringTemplate template = new StringTemplate();
+        int end = 0;
+        do {
+            if (m.start() > end) {
+                template.parts.add(text.substring(end, m.start()));
+            }
+            template.parts.add(new Variable(m.group(), m.group(1)));
+            end = m.end();
+        } while (m.find());
+        if (end < text.length()) {
+            template.parts.add(text.substring(end));
+        }
+        return template;
+    }
+
+    /**
+     * Find the field of a clause that is a plain "term" query of the {{ value }}, such as
+     * <code>{"term":{"{{ field }}":"{{ value }}"}}</code> or <code>{"term":{"{{ field }}":{"value":"{{ value }}"}}}</code>.
+     * Such a clause matches the same documents for many values as a single "terms" query.
+     */
+    private static Object compileTermField(Map<Object, Object> root) {
+        if (root.size() != 1 || !(root.get("term") instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> term = (Map<?, ?>) root.get("term");
+        if (term.size() != 1) {
+            return null;
+        }
+        Map.Entry<?, ?> field = term.entrySet().iterator().next();
+        if (usesVariable(field.getKey(), "value")) {
+            return null;
+        }
+        Object value = field.getValue();
+        if (value instanceof Map && ((Map<?, ?>) value).size() == 1) {
+            value = ((Map<?, ?>) value).get("value");
+        }
+        return isVariable(value, "value") ? field.getKey() : null;
+    }
+
+    /**
+     * Determine whether a compiled string uses the given variable.
+     */
+    private static boolean usesVariable(Object compiled, String name) {
+        return compiled instanceof StringTemplate && ((StringTemplate) compiled).parts.stream()
+            .anyMatch((part) -> part instanceof Variable && ((Variable) part).name.equals(name));
+    }
+
+    /**
+     * Determine whether a compiled string is nothing but the given variable.
+     */
+    private static boolean isVariable(Object compiled, String name) {
+        return usesVariable(compiled, name) && ((StringTemplate) compiled).parts.size() == 1;
+    }
+
+    private void populate(XContentBuilder builder, Object compiled, String indexFieldName, String value, Map<String, String> params) throws ValidationException, IOException {
+        if (compiled instanceof Map) {
+            builder.startObject();
+            for (Map.Entry<?, ?> field : ((Map<?, ?>) compiled).entrySet()) {
+                builder.field(populateString(field.getKey(), indexFieldName, value, params));
+                populate(builder, field.getValue(), indexFieldName, value, params);
+            }
+            builder.endObject();
+        } else if (compiled instanceof List) {
+            builder.startArray();
+            for (Object item : (List<?>) compiled) {
+                populate(builder, item, indexFieldName, value, params);
+            }
+            builder.endArray();
+        } else if (compiled instanceof String || compiled instanceof StringTemplate) {
+            builder.value(populateString(compiled, indexFieldName, value, params));
+        } else {
+            builder.value(compiled);
+        }
+    }
+
+    private String populateString(Object compiled, String indexFieldName, String value, Map<String, String> params) throws ValidationException {
+        if (!(compiled instanceof StringTemplate)) {
+            return (String) compiled;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Object part : ((StringTemplate) compiled).parts) {
+            if (part instanceof Variable) {
+                sb.append(populateVariable((Variable) part, indexFieldName, value, params));
+            } else {
+                sb.append(part);
+            }
+        }
+        return sb.toString();
+    }
+
+    private String populateVariable(Variable variable, String indexFieldName, String value, Map<String, String> params) throws ValidationException {
+        switch (variable.name) {
+            case "field":
+                return indexFieldName;
+            case "value":
+                return value;
+            default:
+                if (variable.param == null) {
+                    return variable.text;
+                }
+                if (!params.containsKey(variable.param)) {
+                    throw new ValidationException("'matchers." + this.matcherName + "' was given no value for '{{ " + variable.name + " }}'");
+                }
+                return params.get(variable.param);
+        }
+    }
+
+    /**
+     * Determine whether the clause is a plain "term" query of the {{ value }}, which can match many values at once
+     * with a single "terms" query on the {@link #termField(String, Map) term field}.
+     *
+     * @return Whether the clause is a plain "term" query.
+     */
+    public boolean isTerm() {
+        return this.termField != null;
+    }
+
+    /**
+     * Get the field of a clause that is a plain "term" query.
+     *
+     * @param indexFieldName The name of the index field to populate in the clause.
+     * @param params         The values of the parameters (if any) to pass to the matcher.
+     * @return The field of the "term" query.
+     * @throws ValidationException If the field uses a parameter that has no value.
+     */
+    public String termField(String indexFieldName, Map<String, String> params) throws ValidationException {
+        if (this.termField == null) {
+            throw new IllegalStateException("'matchers." + this.matcherName + "' is not a plain 'term' clause.");
+        }
+        return populateString(this.termField, indexFieldName, null, params);
+    }
+
+    /**
+     * Populate the clause by substituting the {{ field }}, {{ value }} and {{ params.* }} variables, and read it as
+     * a query. Any other variables are left as they are.
+     *
+     * @param indexFieldName The name of the index field to populate in the clause.
+     * @param value          The value of the attribute to populate in the clause.
+     * @param params         The values of the parameters (if any) to pass to the matcher.
+     * @return The query of the populated clause.
+     * @throws ValidationException If the clause uses a parameter that has no value.
+     * @throws IOException         If the populated clause is not a valid query.
+     */
+    public QueryBuilder build(String indexFieldName, String value, Map<String, String> params) throws ValidationException, IOException {
+        BytesReference clause;
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            populate(builder, this.root, indexFieldName, value, params);
+            clause = BytesReference.bytes(builder);
+        }
+        try (XContentParser parser = XContentHelper.createParser(REGISTRY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, clause, XContentType.JSON)) {
+            return AbstractQueryBuilder.parseInnerQueryBuilder(parser);
+        }
+    }
+}
@@ -20,7 +20,7 @@ public class Index {
 
     private final String name;
     private Map<String, IndexField> fields;
-    private Map<String, Map<String, IndexField>> attributeIndexFieldsMap = new TreeMap<>();
+    private Map<String, Map<String, IndexField>> attributeIndexFieldsMap = Collections.emptyMap();
 
     public Index(String name, JsonNode json) throws ValidationException {
         validateName(name);
@@ -46,7 +46,7 @@ public class Index {
         return this.fields;
     }
 
-    public void fields(JsonNode value) throws ValidationException {
+    private void fields(JsonNode value) throws ValidationException {
         validateFields(value);
         Map<String, IndexField> fields = new TreeMap<>();
         Iterator<Map.Entry<String, JsonNode>> children = value.fields();
@@ -57,7 +57,7 @@ public class Index {
             validateField(fieldName, fieldObject);
             fields.put(fieldName, new IndexField(this.name, fieldName, fieldObject));
         }
-        this.fields = fields;
+        this.fields = Collections.unmodifiableMap(fields);
         this.rebuildAttributeIndexFieldsMap();
     }
 
@@ -102,16 +102,18 @@ public class Index {
      * during a resolution job.
      */
     private void rebuildAttributeIndexFieldsMap() {
-        this.attributeIndexFieldsMap = new TreeMap<>();
+        Map<String, Map<String, IndexField>> attributeIndexFieldsMap = new TreeMap<>();
         for (String indexFieldName : this.fields().keySet()) {
             String attributeName = this.fields().get(indexFieldName).attribute();
-            if (!this.attributeIndexFieldsMap.containsKey(attributeName)) {
-                this.attributeIndexFieldsMap.put(attributeName, new TreeMap<>());
+            if (!attributeIndexFieldsMap.containsKey(attributeName)) {
+                attributeIndexFieldsMap.put(attributeName, new TreeMap<>());
             }
-            if (!this.attributeIndexFieldsMap.get(attributeName).containsKey(indexFieldName)) {
-                this.attributeIndexFieldsMap.get(attributeName).put(indexFieldName, this.fields.get(indexFieldName));
+            if (!attributeIndexFieldsMap.get(attributeName).containsKey(indexFieldName)) {
+                attributeIndexFieldsMap.get(attributeName).put(indexFieldName, this.fields.get(indexFieldName));
             }
         }
+        attributeIndexFieldsMap.replaceAll((attributeName, indexFields) -> Collections.unmodifiableMap(indexFields));
+        this.attributeIndexFieldsMap = Collections.unmodifiableMap(attributeIndexFieldsMap);
     }
 
     /**
@@ -129,7 +131,7 @@ public class Index {
      * @param json Index object of an entity model.
      * @throws ValidationException
      */
-    public void deserialize(JsonNode json) throws ValidationException {
+    private void deserialize(JsonNode json) throws ValidationException {
         validateObject(json);
 
         // Validate the existence of required fields.
@@ -154,7 +156,7 @@ public class Index {
         }
     }
 
-    public void deserialize(String json) throws ValidationException, IOException {
+    private void deserialize(String json) throws ValidationException, IOException {
         deserialize(Json.MAPPER.readTree(json));
     }
 
@@ -63,7 +63,7 @@ public class IndexField {
         return this.attribute;
     }
 
-    public void attribute(JsonNode value) throws ValidationException {
+    private void attribute(JsonNode value) throws ValidationException {
         validateAttribute(value);
         this.attribute = value.textValue();
     }
@@ -72,7 +72,7 @@ public class IndexField {
         return this.matcher;
     }
 
-    public void matcher(JsonNode value) throws ValidationException {
+    private void matcher(JsonNode value) throws ValidationException {
         validateMatcher(value);
         this.matcher = value.textValue();
     }
@@ -89,7 +89,7 @@ public class IndexField {
         return this.quality;
     }
 
-    public void quality(JsonNode value) throws ValidationException {
+    private void quality(JsonNode value) throws ValidationException {
         validateQuality(value);
         this.quality = value.doubleValue();
     }
@@ -149,7 +149,7 @@ public class IndexField {
      * @param json Index object of an entity model.
      * @throws ValidationException
      */
-    public void deserialize(JsonNode json) throws ValidationException {
+    private void deserialize(JsonNode json) throws ValidationException {
         validateObject(json);
 
         // Validate the existence of required fields.
@@ -181,7 +181,7 @@ public class IndexField {
         }
     }
 
-    public void deserialize(String json) throws ValidationException, IOException {
+    private void deserialize(String json) throws ValidationException, IOException {
         deserialize(Json.MAPPER.readTree(json));
     }
 
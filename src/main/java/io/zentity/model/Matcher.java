@@ -22,9 +22,10 @@ public class Matcher {
 
     private final String name;
     private String clause;
-    private final Map<String, String> params = new TreeMap<>();
+    private Map<String, String> params = Collections.emptyMap();
     private Double quality;
-    private Map<String, Pattern> variables = new TreeMap<>();
+    private ClauseTemplate template;
+    private Map<String, Pattern> variables = Collections.emptyMap();
 
     public Matcher(String name, JsonNode json) throws ValidationException, JsonProcessingException {
         validateName(name);
@@ -73,17 +74,22 @@ public class Matcher {
         return this.quality;
     }
 
+    public ClauseTemplate template() {
+        return this.template;
+    }
+
     public Map<String, Pattern> variables() {
         return this.variables;
     }
 
-    public void clause(JsonNode value) throws ValidationException, JsonProcessingException {
+    private void clause(JsonNode value) throws ValidationException, JsonProcessingException {
         validateClause(value);
         this.clause = Json.MAPPER.writeValueAsString(value);
-        this.variables = parseVariables(this.clause);
+        this.template = new ClauseTemplate(this.name, value);
+        this.variables = Collections.unmodifiableMap(parseVariables(this.clause));
     }
 
-    public void quality(JsonNode value) throws ValidationException {
+    private void quality(JsonNode value) throws ValidationException {
         validateQuality(value);
         this.quality = value.doubleValue();
     }
@@ -135,7 +141,7 @@ public class Matcher {
      * @param json Matcher object of an entity model.
      * @throws ValidationException
      */
-    public void deserialize(JsonNode json) throws ValidationException, JsonProcessingException {
+    private void deserialize(JsonNode json) throws ValidationException, JsonProcessingException {
         validateObject(json);
 
         // Validate the existence of required fields.
@@ -160,7 +166,7 @@ public class Matcher {
                         break;
                     if (!value.isObject())
                         throw new ValidationException("'matchers." + this.name + ".params' must be an object.");
-                    this.params().putAll(Json.toStringMap(value));
+                    this.params = Collections.unmodifiableMap(Json.toStringMap(value));
                     break;
                 case "quality":
                     this.quality(value);
@@ -171,7 +177,7 @@ public class Matcher {
         }
     }
 
-    public void deserialize(String json) throws ValidationException, IOException {
+    private void deserialize(String json) throws ValidationException, IOException {
         deserialize(Json.MAPPER.readTree(json));
     }
 
@@ -5,16 +5,23 @@ import com.fasterxml.jackson.databind.JsonNode;
 import io.zentity.common.Json;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
+/**
+ * An entity model. A model does not change after it is parsed, so it can be shared by concurrent jobs. The scope of
+ * an input is applied with {@link #withIndices(Set)}, {@link #withoutIndices(Set)}, {@link #withResolvers(Set)} and
+ * {@link #withoutResolvers(Set)}, which return a new model that shares everything but the narrowed down map.
+ */
 public class Model {
 
-    private final Map<String, Attribute> attributes = new TreeMap<>();
-    private final Map<String, Index> indices = new TreeMap<>();
-    private final Map<String, Matcher> matchers = new TreeMap<>();
-    private final Map<String, Resolver> resolvers = new TreeMap<>();
+    private Map<String, Attribute> attributes;
+    private Map<String, Index> indices;
+    private Map<String, Matcher> matchers;
+    private Map<String, Resolver> resolvers;
 
     public Model(JsonNode json) throws ValidationException, JsonProcessingException {
         this.deserialize(json);
@@ -24,6 +31,13 @@ public class Model {
         this.deserialize(json);
     }
 
+    private Model(Model model, Map<String, Index> indices, Map<String, Resolver> resolvers) {
+        this.attributes = model.attributes;
+        this.indices = indices;
+        this.matchers = model.matchers;
+        this.resolvers = resolvers;
+    }
+
     public Map<String, Attribute> attributes() {
         return this.attributes;
     }
@@ -40,6 +54,59 @@ public class Model {
         return this.resolvers;
     }
 
+    /**
+     * Keep only the entries of a map whose names are in a set.
+     *
+     * @param map   The map.
+     * @param names The names of the entries to keep.
+     * @param keep  Whether to keep the entries in the set or the entries that are not in the set.
+     * @return The narrowed down map, or the same map if it would not change.
+     */
+    private static <T> Map<String, T> filter(Map<String, T> map, Set<String> names, boolean keep) {
+        Map<String, T> filtered = new TreeMap<>();
+        for (Map.Entry<String, T> entry : map.entrySet()) {
+            if (names.contains(entry.getKey()) == keep) {
+                filtered.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (filtered.size() == map.size()) {
+            return map;
+        }
+        return Collections.unmodifiableMap(filtered);
+    }
+
+    /**
+     * @param indices The names of the indices to keep.
+     * @return A model with only the given indices.
+     */
+    public Model withIndices(Set<String> indices) {
+        return new Model(this, filter(this.indices, indices, true), this.resolvers);
+    }
+
+    /**
+     * @param indices The names of the indices to remove.
+     * @return A model without the given indices.
+     */
+    public Model withoutIndices(Set<String> indices) {
+        return new Model(this, filter(this.indices, indices, false), this.resolvers);
+    }
+
+    /**
+     * @param resolvers The names of the resolvers to keep.
+     * @return A model with only the given resolvers.
+     */
+    public Model withResolvers(Set<String> resolvers) {
+        return new Model(this, this.indices, filter(this.resolvers, resolvers, true));
+    }
+
+    /**
+     * @param resolvers The names of the resolvers to remove.
+     * @return A model without the given resolvers.
+     */
+    public Model withoutResolvers(Set<String> resolvers) {
+        return new Model(this, this.indices, filter(this.resolvers, resolvers, false));
+    }
+
     /**
      * Validate a top-level field of the entity model.
      *
@@ -73,10 +140,14 @@ public class Model {
 
     }
 
-    public void deserialize(JsonNode json) throws ValidationException, JsonProcessingException {
+    private void deserialize(JsonNode json) throws ValidationException, JsonProcessingException {
         if (!json.isObject()) {
             throw new ValidationException("Entity model must be an object.");
         }
+        Map<String, Attribute> attributes = new TreeMap<>();
+        Map<String, Index> indices = new TreeMap<>();
+        Map<String, Matcher> matchers = new TreeMap<>();
+        Map<String, Resolver> resolvers = new TreeMap<>();
         Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
         while (fields.hasNext()) {
             Map.Entry<String, JsonNode> field = fields.next();
@@ -91,16 +162,16 @@ public class Model {
                 JsonNode object = child.getValue();
                 switch (fieldName) {
                     case "attributes":
-                        this.attributes.put(name, new Attribute(name, object));
+                        attributes.put(name, new Attribute(name, object));
                         break;
                     case "indices":
-                        this.indices.put(name, new Index(name, object));
+                        indices.put(name, new Index(name, object));
                         break;
                     case "matchers":
-                        this.matchers.put(name, new Matcher(name, object));
+                        matchers.put(name, new Matcher(name, object));
                         break;
                     case "resolvers":
-                        this.resolvers.put(name, new Resolver(name, object));
+                        resolvers.put(name, new Resolver(name, object));
                         break;
                     default:
                         throw new ValidationException("'" + fieldName + "' is not a recognized field.");
@@ -108,21 +179,25 @@ public class Model {
             }
 
         }
-        if (this.attributes.size() == 0) {
+        if (attributes.size() == 0) {
             throw new ValidationException("'attributes' is missing.");
         }
-        if (this.resolvers.size() == 0) {
+        if (resolvers.size() == 0) {
             throw new ValidationException("'resolvers' is missing.");
         }
-        if (this.matchers.size() == 0) {
+        if (matchers.size() == 0) {
             throw new ValidationException("'matchers' is missing.");
         }
-        if (this.indices.size() == 0) {
+        if (indices.size() == 0) {
             throw new ValidationException("'indices' is missing.");
         }
+        this.attributes = Collections.unmodifiableMap(attributes);
+        this.indices = Collections.unmodifiableMap(indices);
+        this.matchers = Collections.unmodifiableMap(matchers);
+        this.resolvers = Collections.unmodifiableMap(resolvers);
     }
 
-    public void deserialize(String json) throws ValidationException, IOException {
+    private void deserialize(String json) throws ValidationException, IOException {
         deserialize(Json.MAPPER.readTree(json));
     }
 
@@ -0,0 +1,75 @@
+package io.zentity.resolution;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Buffers the responses of a bulk resolution request as NDJSON records, which are sent as the body of the response
+ * once the last job finishes. Each record is a single line:
+ *
+ * <ul>
+ *     <li>{@code {"item":{"_position":0,"response":{...}}}} for each job, in the order the jobs complete</li>
+ *     <li>{@code {"summary":{"took":0,"errors":false}}} once every job is done</li>
+ * </ul>
+ *
+ * The {@code _position} of an item is the position of its job in the request, so the order of the request can be
+ * rebuilt. A response is serialized as soon as its job completes, so the request no longer holds its documents as
+ * JSON trees. The records themselves stay in memory until the request ends, so the client gets no item before then.
+ */
+public class BulkResolutionStream {
+
+    private final BytesStreamOutput out = new BytesStreamOutput();
+    private boolean errors = false;
+
+    /**
+     * Write the record of a job that completed.
+     *
+     * @param position The position of the job in the request.
+     * @param response The response of the job.
+     * @throws IOException If the response cannot be written.
+     */
+    public void writeItem(int position, ResolutionResponse response) throws IOException {
+        // Serialize outside the lock, so that jobs that complete together do not wait on each other.
+        byte[] record = ResolutionStream.serializeRecord((gen) -> {
+            gen.writeObjectFieldStart("item");
+            gen.writeNumberField("_position", position);
+            gen.writeFieldName("response");
+            gen.writeObject(response);
+            gen.writeEndObject();
+        });
+        synchronized (this) {
+            out.writeBytes(record);
+            out.writeByte(ResolutionStream.NEW_LINE);
+            errors |= response.isFailure();
+        }
+    }
+
+    /**
+     * Write the summary record, which is always the last record.
+     *
+     * @param took How long the request took.
+     * @throws IOException If the summary cannot be written.
+     */
+    public synchronized void writeSummary(Duration took) throws IOException {
+        byte[] record = ResolutionStream.serializeRecord((gen) -> {
+            gen.writeObjectFieldStart("summary");
+            gen.writeNumberField("took", took.toMillis());
+            gen.writeBooleanField("errors", errors);
+            gen.writeEndObject();
+        });
+        out.writeBytes(record);
+        out.writeByte(ResolutionStream.NEW_LINE);
+    }
+
+    /**
+     * Get the records written so far.
+     *
+     * @return The NDJSON bytes.
+     */
+    public synchronized BytesReference bytes() {
+        return out.bytes();
+    }
+}
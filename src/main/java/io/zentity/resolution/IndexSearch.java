@@ -0,0 +1,46 @@
+package io.zentity.resolution;
+
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The state of a single query against a single index during one hop of a {@link Job}.
+ * Built before the search is submitted and completed with the response (or error) once it returns.
+ */
+class IndexSearch {
+    // _index
+    final String indexName;
+    // the resolvers that could be queried for the index
+    final List<String> resolvers = new ArrayList<>();
+    // the filter trees of the resolvers, grouped by weight level
+    final Map<Integer, FilterTree> resolversFilterTreeGrouped = new TreeMap<>(Collections.reverseOrder());
+    // the resolvers that could be queried with the input terms
+    final List<String> termResolvers = new ArrayList<>();
+    // the filter tree of the term resolvers
+    final FilterTree termResolversFilterTree = new FilterTree();
+    // the names of the fields that are read from the "fields" of the hits rather than the "_source",
+    // i.e. script fields and doc value fields
+    final Set<String> docFields = new TreeSet<>();
+    // the size of the pages of the search, or 0 if it is not paged
+    int pageSize;
+    // request
+    SearchRequestBuilder searchRequest;
+    // response, if non-null
+    SearchResponse response;
+    // responses of the pages after the first, if paged
+    final List<SearchResponse> nextPages = new ArrayList<>();
+    // response error, if no response
+    Throwable responseError;
+
+    IndexSearch(String indexName) {
+        this.indexName = indexName;
+    }
+}
@@ -5,8 +5,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.zentity.common.ActionRequestUtil;
+import io.zentity.common.CollectionUtil;
 import io.zentity.common.CompletableFutureUtil;
-import io.zentity.common.FunctionalUtil.UnCheckedBiFunction;
+import io.zentity.common.FunctionalUtil.UnCheckedConsumer;
 import io.zentity.common.FunctionalUtil.UnCheckedFunction;
 import io.zentity.common.FunctionalUtil.UnCheckedSupplier;
 import io.zentity.common.Json;
@@ -22,36 +23,51 @@ import io.zentity.resolution.input.Attribute;
 import io.zentity.resolution.input.Input;
 import io.zentity.resolution.input.Term;
 import io.zentity.resolution.input.value.Value;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.mapping.get.GetFieldMappingsAction;
+import org.elasticsearch.action.admin.indices.mapping.get.GetFieldMappingsRequestBuilder;
+import org.elasticsearch.action.admin.indices.mapping.get.GetFieldMappingsResponse;
+import org.elasticsearch.action.admin.indices.mapping.get.GetFieldMappingsResponse.FieldMappingMetadata;
+import org.elasticsearch.action.search.ClearScrollAction;
+import org.elasticsearch.action.search.ClearScrollRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchAction;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchAction;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.client.node.NodeClient;
-import org.elasticsearch.common.CheckedBiFunction;
+import org.elasticsearch.action.search.SearchScrollAction;
+import org.elasticsearch.action.search.SearchScrollRequestBuilder;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.CheckedFunction;
 import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.document.DocumentField;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
-import org.elasticsearch.common.xcontent.DeprecationHandler;
-import org.elasticsearch.common.xcontent.NamedXContentRegistry;
-import org.elasticsearch.common.xcontent.XContentFactory;
-import org.elasticsearch.common.xcontent.XContentParser;
-import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.IndexNotFoundException;
-import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.IgnoredFieldMapper;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.ExistsQueryBuilder;
 import org.elasticsearch.index.query.IdsQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
-import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.SearchHit;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -59,11 +75,13 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.regex.Pattern;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static io.zentity.resolution.BoolQueryUtils.BoolQueryCombiner.FILTER;
@@ -85,24 +103,56 @@ public class Job {
     public static final boolean DEFAULT_INCLUDE_SOURCE = true;
     public static final boolean DEFAULT_INCLUDE_VERSION = false;
     public static final int DEFAULT_MAX_DOCS_PER_QUERY = 1000;
+    public static final int DEFAULT_MAX_EXCLUDED_IDS = 10000;
+    public static final boolean DEFAULT_DELTA_HOPS = false;
+    public static final boolean DEFAULT_DOC_VALUE_FIELDS = false;
+    public static final int DEFAULT_MAX_CONCURRENT_SEARCHES = 1;
+    public static final int DEFAULT_MAX_DOCS = -1;
     public static final int DEFAULT_MAX_HOPS = 100;
+    public static final int DEFAULT_MAX_QUERIES = -1;
+    public static final boolean DEFAULT_MULTI_SEARCH = false;
+    public static final TimeValue DEFAULT_MAX_TIME = TimeValue.MINUS_ONE;
     public static final TimeValue DEFAULT_MAX_TIME_PER_QUERY = TimeValue.parseTimeValue("10s", "default_max_time_per_query");
+    public static final TimeValue DEFAULT_PAGE_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+    public static final int DEFAULT_PAGE_SIZE = 0;
     public static final boolean DEFAULT_PROFILE = false;
 
+    // The letters of SimpleDateFormat patterns that print the same way in Elasticsearch date formats, and how many
+    // times each may be repeated.
+    private static final Map<Character, Integer> DOC_VALUE_FORMAT_LETTERS = Map.ofEntries(
+        Map.entry('y', 4), Map.entry('M', 2), Map.entry('d', 2), Map.entry('D', 3),
+        Map.entry('H', 2), Map.entry('k', 2), Map.entry('K', 2), Map.entry('h', 2),
+        Map.entry('m', 2), Map.entry('s', 2), Map.entry('S', 3), Map.entry('X', 3), Map.entry('Z', 3)
+    );
+
+    // The integer types whose doc values hold the same values as the "_source" when they neither coerce nor ignore
+    // malformed values. Booleans are left out, since the string "true" in the "_source" is the doc value true.
+    private static final Set<String> DOC_VALUE_TYPES = Set.of("byte", "integer", "long", "short");
+
+    // The default "index.max_result_window", which limits how many docs a single search can return.
+    private static final int MAX_RESULT_WINDOW = IndexSettings.MAX_RESULT_WINDOW_SETTING.getDefault(Settings.EMPTY);
+
     // Job configuration
-    private final NodeClient client;
+    private final Client client;
     private final JobConfig config;
 
     // Job state
     private AttributeIdConfidenceScoreMap attributeIdConfidenceScores;
+    private JobBudget budget;
     private Map<String, Attribute> attributes;
+    private Map<String, Attribute> deltaAttributes;
     private Map<String, Set<String>> docIds;
+    private Set<String> truncatedIndices;
     private List<JsonNode> hits;
     private List<LoggedQuery> queries;
+    private final Map<String, SearchHitParser> sourceParsers = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> docValueFields = new ConcurrentHashMap<>();
+    private final ModelPlan plan;
 
-    public Job(NodeClient client, JobConfig config) {
+    public Job(Client client, JobConfig config) {
         this.client = client;
         this.config = config;
+        this.plan = config.input.plan() != null ? config.input.plan() : new ModelPlan(config.input.model());
         initializeState();
     }
 
@@ -169,17 +219,18 @@ public class Job {
     }
 
     /**
-     * Build a {@link Script} for index fields that are associated with "date" attributes.
+     * Find the "format" param of a "date" attribute for an index field, which may be given by the input attribute,
+     * the model attribute or the matcher of the index field, in that order.
      *
-     * @param index
-     * @param inputAttributes
-     * @param model
-     * @param attributeName
-     * @param indexFieldName
-     * @return
-     * @throws ValidationException
+     * @param index           The index of the index field.
+     * @param inputAttributes The input attributes.
+     * @param model           The entity model.
+     * @param attributeName   The name of the "date" attribute.
+     * @param indexFieldName  The name of the index field.
+     * @return The {@link java.text.SimpleDateFormat} pattern of the attribute.
+     * @throws ValidationException If no format is given.
      */
-    public static Script buildDateAttributeScript(
+    static String buildDateAttributeFormat(
         Index index,
         Map<String, Attribute> inputAttributes,
         Model model,
@@ -215,6 +266,72 @@ public class Job {
                 }
             }
         }
+        return format;
+    }
+
+    /**
+     * Convert the {@link java.text.SimpleDateFormat} pattern of a "date" attribute to a pattern that Elasticsearch
+     * can use to format the doc values of a date field. Only the numeric pattern letters that print the same way in
+     * both syntaxes are converted, which excludes the names of months, days and zones that depend on the locale.
+     *
+     * @param format The {@link java.text.SimpleDateFormat} pattern.
+     * @return The equivalent {@link java.time.format.DateTimeFormatter} pattern, or null if there is none.
+     */
+    static String buildDocValueFormat(String format) {
+        if (format.contains("||") || format.startsWith("8")) {
+            // Elasticsearch reads these as a list of formats or as a legacy prefix.
+            return null;
+        }
+        boolean quoted = false;
+        int i = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+                i++;
+                continue;
+            }
+            if (quoted) {
+                i++;
+                continue;
+            }
+            int run = 1;
+            while (i + run < format.length() && format.charAt(i + run) == c) {
+                run++;
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                Integer maxRun = DOC_VALUE_FORMAT_LETTERS.get(c);
+                if (maxRun == null || run > maxRun || (c == 'S' && run != 3)) {
+                    return null;
+                }
+            } else if ("[]{}#".indexOf(c) >= 0) {
+                return null;
+            }
+            i += run;
+        }
+        return quoted ? null : format;
+    }
+
+    /**
+     * Build a {@link Script} for index fields that are associated with "date" attributes. The script is used only
+     * when the format of the attribute cannot be given to the "docvalue_fields" of the search.
+     *
+     * @param index           The index of the index field.
+     * @param inputAttributes The input attributes.
+     * @param model           The entity model.
+     * @param attributeName   The name of the "date" attribute.
+     * @param indexFieldName  The name of the index field.
+     * @return The script that formats the values of the index field.
+     * @throws ValidationException If no format is given.
+     */
+    public static Script buildDateAttributeScript(
+        Index index,
+        Map<String, Attribute> inputAttributes,
+        Model model,
+        String attributeName,
+        String indexFieldName
+    ) throws ValidationException {
+        String format = buildDateAttributeFormat(index, inputAttributes, model, attributeName, indexFieldName);
 
         // Make the "script" clause
         String scriptCode = "DateFormat df = new SimpleDateFormat(params.format); df.setTimeZone(TimeZone.getTimeZone('UTC')); return df.format(doc[params.field].value.toInstant().toEpochMilli())";
@@ -241,8 +358,8 @@ public class Job {
      */
     public static Map<String, Script> buildScriptFields(String indexName, Input input) throws ValidationException {
         // Find any index fields that need to be included in the "script_fields" clause.
-        // Currently this includes any index field that is associated with a "date" attribute,
-        // which requires the "_source" value to be reformatted to a normalized format.
+        // Currently this includes any index field that is associated with a "date" attribute whose format
+        // cannot be given to the "docvalue_fields" clause, which requires the value to be reformatted.
         Map<String, Script> scriptMap = new TreeMap<>();
 
         Index index = input.model().indices().get(indexName);
@@ -251,8 +368,11 @@ public class Job {
                 case "date":
                     // Make a "script" clause for each index field associated with this attribute.
                     for (String indexFieldName : index.attributeIndexFieldsMap().get(attributeName).keySet()) {
-                        Script script = buildDateAttributeScript(index, input.attributes(), input.model(), attributeName, indexFieldName);
-                        scriptMap.put(indexFieldName, script);
+                        String format = buildDateAttributeFormat(index, input.attributes(), input.model(), attributeName, indexFieldName);
+                        if (buildDocValueFormat(format) == null) {
+                            Script script = buildDateAttributeScript(index, input.attributes(), input.model(), attributeName, indexFieldName);
+                            scriptMap.put(indexFieldName, script);
+                        }
                     }
                     break;
 
@@ -264,6 +384,40 @@ public class Job {
         return scriptMap;
     }
 
+    /**
+     * Build the search "docvalue_fields" that format the values of date fields.
+     *
+     * @param indexName The name of the index currently searching against.
+     * @param input     The resolution input.
+     * @return A map of index field names => formats to be included in the search.
+     * @throws ValidationException If the input is malformed.
+     */
+    public static Map<String, String> buildDateDocValueFields(String indexName, Input input) throws ValidationException {
+        // Find any index fields that are associated with a "date" attribute whose format can be given
+        // to the "docvalue_fields" clause. The others fall back to the "script_fields" clause.
+        Map<String, String> formatMap = new TreeMap<>();
+
+        Index index = input.model().indices().get(indexName);
+        for (String attributeName : index.attributeIndexFieldsMap().keySet()) {
+            switch (input.model().attributes().get(attributeName).type()) {
+                case "date":
+                    for (String indexFieldName : index.attributeIndexFieldsMap().get(attributeName).keySet()) {
+                        String format = buildDateAttributeFormat(index, input.attributes(), input.model(), attributeName, indexFieldName);
+                        String docValueFormat = buildDocValueFormat(format);
+                        if (docValueFormat != null) {
+                            formatMap.put(indexFieldName, docValueFormat);
+                        }
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return formatMap;
+    }
+
     /**
      * Determine if a field of an index has a matcher associated with that field.
      *
@@ -280,58 +434,9 @@ public class Job {
         return model.matchers().get(matcherName) != null;
     }
 
-    /**
-     * Determine if we can construct a query for a given resolver on a given index with a given input.
-     * Each attribute of the resolver must be mapped to a field of the index and have a matcher defined for it.
-     *
-     * @param model        The entity model.
-     * @param indexName    The name of the index to reference in the entity model.
-     * @param resolverName The name of the resolver to reference in the entity model.
-     * @param attributes   The values for the input attributes.
-     * @return Boolean decision.
-     */
-    private static boolean canQueryResolver(Model model, String indexName, String resolverName, Map<String, Attribute> attributes) {
-        Map<String, Map<String, IndexField>> attributeIndexFieldMap = model.indices().get(indexName).attributeIndexFieldsMap();
-        // Each attribute of the resolver must pass these conditions:
-        for (String attributeName : model.resolvers().get(resolverName).attributes()) {
-
-            // The input must have the attribute.
-            if (!attributes.containsKey(attributeName)) {
-                return false;
-            }
-
-            // The input must have at least one value for the attribute.
-            if (attributes.get(attributeName).values().isEmpty()) {
-                return false;
-            }
-
-            // The index must have at least one index field mapped to the attribute.
-            if (!attributeIndexFieldMap.containsKey(attributeName)) {
-                return false;
-            }
-
-            if (attributeIndexFieldMap.get(attributeName).isEmpty()) {
-                return false;
-            }
-
-            // The index field must have a matcher defined for it.
-            boolean hasMatcher = false;
-            for (String indexFieldName : attributeIndexFieldMap.get(attributeName).keySet()) {
-                if (indexFieldHasMatcher(model, indexName, indexFieldName)) {
-                    hasMatcher = true;
-                    break;
-                }
-            }
-            if (!hasMatcher) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     /**
      * Given a clause from the "matchers" field of an entity model, replace the {{ field }} and {{ value }} variables
-     * and arbitrary parameters. If a parameter exists, the value
+     * and arbitrary parameters, using the template that was compiled when the model was loaded.
      *
      * @param matcher        The matcher object.
      * @param indexFieldName The name of the index field to populate in the clause.
@@ -342,33 +447,7 @@ public class Job {
     static QueryBuilder buildMatcherClause(
         Matcher matcher, String indexFieldName, String value, Map<String, String> params
     ) throws ValidationException, IOException {
-        String matcherClause = matcher.clause();
-        for (String variable : matcher.variables().keySet()) {
-            Pattern pattern = matcher.variables().get(variable);
-            switch (variable) {
-                case "field":
-                    matcherClause = pattern.matcher(matcherClause).replaceAll(indexFieldName);
-                    break;
-                case "value":
-                    matcherClause = pattern.matcher(matcherClause).replaceAll(value);
-                    break;
-                default:
-                    java.util.regex.Matcher m = Patterns.VARIABLE_PARAMS.matcher(variable);
-                    if (m.find()) {
-                        String var = m.group(1);
-                        if (!params.containsKey(var)) {
-                            throw new ValidationException("'matchers." + matcher.name() + "' was given no value for '{{ " + variable + " }}'");
-                        }
-                        String paramValue = params.get(var);
-                        matcherClause = pattern.matcher(matcherClause).replaceAll(paramValue);
-                    }
-                    break;
-            }
-        }
-
-        try (XContentParser parser = buildXContentParser(matcherClause)) {
-            return AbstractQueryBuilder.parseInnerQueryBuilder(parser);
-        }
+        return matcher.template().build(indexFieldName, value, params);
     }
 
     static List<QueryBuilder> buildIndexFieldQueries(
@@ -403,7 +482,25 @@ public class Job {
             params.putAll(attributes.get(attributeName).params());
 
             Attribute attribute = attributes.get(attributeName);
-            for (Value value : attribute.values()) {
+
+            // Match any of many values with a single "terms" query if the matcher is a plain "term" query.
+            // Named filters need a clause per value to tell which values matched, so they keep the clauses.
+            // Write the values in order so that the same values always make the same query.
+            List<Value> values = CollectionUtil.sorted(attribute.values());
+            if (combiner == SHOULD && !namedFilters && matcher.template().isTerm() && values.size() > 1) {
+                List<String> termValues = new ArrayList<>();
+                for (Value value : values) {
+                    if (value.serialized() != null && !value.serialized().equals("")) {
+                        termValues.add(value.serialized());
+                    }
+                }
+                if (termValues.size() > 1) {
+                    indexFieldQueries.add(new TermsQueryBuilder(matcher.template().termField(indexFieldName, params), termValues));
+                    continue;
+                }
+            }
+
+            for (Value value : values) {
 
                 // Skip value if it's blank.
                 if (value.serialized() == null || value.serialized().equals("")) {
@@ -552,6 +649,66 @@ public class Job {
         return null;
     }
 
+    /**
+     * Build a resolvers clause that only matches documents through at least one attribute value that is new since the
+     * last hop. For each attribute with new values, the resolvers that use the attribute are queried with only the new
+     * values of that attribute and all the known values of their other attributes. The clauses are combined in a
+     * "should" clause, so that a resolver that combines known and new values is still covered.
+     *
+     * @param plan            The plan of the entity model.
+     * @param indexName       The name of the index to reference in the entity model.
+     * @param resolvers       The names of the resolvers that can be queried.
+     * @param attributes      All the known attribute values.
+     * @param deltaAttributes The attribute values that are new since the last hop.
+     * @return The resolvers clause, or null if no resolver uses an attribute with new values.
+     */
+    static QueryBuilder buildDeltaResolversQuery(
+        ModelPlan plan,
+        String indexName,
+        List<String> resolvers,
+        Map<String, Attribute> attributes,
+        Map<String, Attribute> deltaAttributes,
+        boolean namedFilters,
+        AtomicInteger nameIdCounter
+    ) throws ValidationException, IOException {
+        List<QueryBuilder> clauses = new ArrayList<>();
+        for (String attributeName : deltaAttributes.keySet()) {
+            Attribute deltaAttribute = deltaAttributes.get(attributeName);
+            if (deltaAttribute.values().isEmpty()) {
+                continue;
+            }
+            List<String> deltaResolvers = resolvers.stream()
+                .filter((resolverName) -> plan.model().resolvers().get(resolverName).attributes().contains(attributeName))
+                .collect(Collectors.toList());
+            if (deltaResolvers.isEmpty()) {
+                continue;
+            }
+
+            FilterTree resolversFilterTree = plan.filterTree(deltaResolvers);
+            Map<String, Attribute> clauseAttributes = new TreeMap<>(attributes);
+            clauseAttributes.put(attributeName, deltaAttribute);
+            QueryBuilder clause = buildResolversQuery(
+                plan.model(),
+                indexName,
+                resolversFilterTree,
+                clauseAttributes,
+                namedFilters,
+                nameIdCounter
+            );
+            if (clause != null) {
+                clauses.add(clause);
+            }
+        }
+
+        int size = clauses.size();
+        if (size > 1) {
+            return BoolQueryUtils.combineQueries(SHOULD, clauses);
+        } else if (size == 1) {
+            return clauses.get(0);
+        }
+        return null;
+    }
+
     /**
      * Reorganize the attributes of all resolvers into a tree of Maps.
      *
@@ -715,20 +872,16 @@ public class Job {
         return score;
     }
 
-    private static XContentParser buildXContentParser(String query) throws IOException {
-        SearchModule searchModule = new SearchModule(Settings.EMPTY, false, Collections.emptyList());
-        NamedXContentRegistry registry = new NamedXContentRegistry(searchModule.getNamedXContents());
-        return XContentFactory.xContent(XContentType.JSON)
-            .createParser(registry, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, query);
-    }
-
     /**
      * Initializes/ resets the variables that hold the state of the job.
      */
     private void initializeState() {
         this.attributeIdConfidenceScores = new AttributeIdConfidenceScoreMap();
-        this.attributes = new TreeMap<>(this.config.input.attributes());
-        this.docIds = new TreeMap<>();
+        this.budget = new JobBudget(this.config.maxTime, this.config.maxDocs, this.config.maxQueries);
+        this.attributes = new HashMap<>(this.config.input.attributes());
+        this.deltaAttributes = null;
+        this.truncatedIndices = ConcurrentHashMap.newKeySet();
+        this.docIds = new ConcurrentHashMap<>();
         this.hits = new ArrayList<>();
         this.queries = new ArrayList<>();
     }
@@ -766,19 +919,28 @@ public class Job {
 
     private boolean updateInputAttributes(Map<String, Attribute> nextInputAttributes) throws ValidationException {
         boolean newHits = false;
+        Map<String, Attribute> nextDeltaAttributes = new HashMap<>();
         for (String attributeName : nextInputAttributes.keySet()) {
             if (!this.attributes.containsKey(attributeName)) {
                 String attributeType = this.config.input.model().attributes().get(attributeName).type();
                 this.attributes.put(attributeName, new Attribute(attributeName, attributeType));
             }
+            Attribute attribute = this.attributes.get(attributeName);
             for (Value value : nextInputAttributes.get(attributeName).values()) {
-                Set<Value> values = this.attributes.get(attributeName).values();
+                Set<Value> values = attribute.values();
                 if (!values.contains(value)) {
                     values.add(value);
                     newHits = true;
+
+                    // Track the values that are new in this hop.
+                    if (!nextDeltaAttributes.containsKey(attributeName)) {
+                        nextDeltaAttributes.put(attributeName, new Attribute(attributeName, attribute.type(), attribute.params(), Collections.emptySet()));
+                    }
+                    nextDeltaAttributes.get(attributeName).values().add(value);
                 }
             }
         }
+        this.deltaAttributes = nextDeltaAttributes;
         return newHits;
     }
 
@@ -893,14 +1055,16 @@ public class Job {
         boolean namedFilters,
         Map<Integer, FilterTree> resolversFilterTreeGrouped,
         List<String> termResolvers,
-        FilterTree termResolversFilterTree
+        FilterTree termResolversFilterTree,
+        Map<String, Attribute> deltaAttributes
     ) throws ValidationException, IOException {
         List<QueryBuilder> queryMustNotClauses = new ArrayList<>();
         List<QueryBuilder> queryFilterClauses = new ArrayList<>();
 
-        // Exclude docs by _id
+        // Exclude docs by _id, unless there are too many to exclude in the query.
+        // In that case the search is paged and the docs are skipped when reading the pages.
         Set<String> docIds = this.docIds.get(indexName);
-        if (!docIds.isEmpty()) {
+        if (!docIds.isEmpty() && docIds.size() <= this.config.maxExcludedIds) {
             queryMustNotClauses.add(new IdsQueryBuilder().addIds(docIds.toArray(new String[0])));
         }
 
@@ -957,28 +1121,35 @@ public class Job {
         FilterTree resolversFilterTree;
 
         if (!this.attributes.isEmpty()) {
-            // Group the resolvers by their weight level.
-            Map<Integer, List<String>> resolverGroups = groupResolversByWeight(this.config.input.model(), resolvers);
+            // Group the resolvers by their weight level, in descending order of weight.
+            List<ModelPlan.Tier> tiers = this.plan.tiers(resolvers);
 
             // Construct a clause for each weight level in descending order of weight.
-            List<Integer> weights = new ArrayList<>(resolverGroups.keySet());
-            Collections.reverse(weights);
-            int numWeightLevels = weights.size();
+            int numWeightLevels = tiers.size();
             for (int level = 0; level < numWeightLevels; level++) {
-                Integer weight = weights.get(level);
-                List<String> resolversGroup = resolverGroups.get(weight);
-                Map<String, Integer> counts = countAttributesAcrossResolvers(this.config.input.model(), resolversGroup);
-                List<List<String>> resolversSorted = sortResolverAttributes(this.config.input.model(), resolversGroup, counts);
-                resolversFilterTree = makeResolversFilterTree(resolversSorted);
+                List<String> resolversGroup = tiers.get(level).resolvers;
+                resolversFilterTree = tiers.get(level).filterTree;
                 resolversFilterTreeGrouped.put(numWeightLevels - level - 1, resolversFilterTree);
-                resolversClause = buildResolversQuery(
-                    this.config.input.model(),
-                    indexName,
-                    resolversFilterTree,
-                    this.attributes,
-                    namedFilters,
-                    nameIdCounter
-                );
+                if (deltaAttributes != null) {
+                    resolversClause = buildDeltaResolversQuery(
+                        this.plan,
+                        indexName,
+                        resolversGroup,
+                        this.attributes,
+                        deltaAttributes,
+                        namedFilters,
+                        nameIdCounter
+                    );
+                } else {
+                    resolversClause = buildResolversQuery(
+                        this.config.input.model(),
+                        indexName,
+                        resolversFilterTree,
+                        this.attributes,
+                        namedFilters,
+                        nameIdCounter
+                    );
+                }
 
                 // If there are multiple levels of weight, then each lower weight group of resolvers must ensure
                 // that every higher weight resolver either matches or does not exist.
@@ -988,8 +1159,7 @@ public class Job {
                     // This is a lower weight group of resolvers.
                     // Every higher weight resolver either must match or must not exist.
                     for (int parentLevel = 0; parentLevel < level; parentLevel++) {
-                        Integer parentWeight = weights.get(parentLevel);
-                        List<String> parentResolversGroup = resolverGroups.get(parentWeight);
+                        List<String> parentResolversGroup = tiers.get(parentLevel).resolvers;
                         List<QueryBuilder> parentResolverClauses = new ArrayList<>();
                         for (String parentResolverName : parentResolversGroup) {
 
@@ -1008,10 +1178,7 @@ public class Job {
                             }
 
                             // Construct a clause for the resolver.
-                            List<String> parentResolverGroup = new ArrayList<>(Collections.singletonList(parentResolverName));
-                            Map<String, Integer> parentCounts = countAttributesAcrossResolvers(this.config.input.model(), parentResolverGroup);
-                            List<List<String>> parentResolverSorted = sortResolverAttributes(this.config.input.model(), parentResolverGroup, parentCounts);
-                            FilterTree parentResolverFilterTree = makeResolversFilterTree(parentResolverSorted);
+                            FilterTree parentResolverFilterTree = this.plan.filterTree(Collections.singletonList(parentResolverName));
                             QueryBuilder parentResolverClause = buildResolversQuery(
                                 this.config.input.model(),
                                 indexName,
@@ -1078,7 +1245,7 @@ public class Job {
 
             // Determine which resolvers can be queried for this index using these attributes.
             for (String resolverName : this.config.input.model().resolvers().keySet()) {
-                if (canQueryResolver(this.config.input.model(), indexName, resolverName, termAttributes)) {
+                if (this.plan.canQueryResolver(indexName, resolverName, termAttributes)) {
                     termResolvers.add(resolverName);
                 }
             }
@@ -1086,9 +1253,7 @@ public class Job {
             // Construct the resolvers clause for term attribute values.
             QueryBuilder termResolversClause = null;
             if (termResolvers.size() > 0) {
-                Map<String, Integer> counts = countAttributesAcrossResolvers(this.config.input.model(), termResolvers);
-                List<List<String>> termResolversSorted = sortResolverAttributes(this.config.input.model(), termResolvers, counts);
-                termResolversFilterTree = makeResolversFilterTree(termResolversSorted, termResolversFilterTree);
+                termResolversFilterTree = makeResolversFilterTree(this.plan.sortedResolverAttributes(termResolvers), termResolversFilterTree);
                 termResolversClause = buildResolversQuery(
                     this.config.input.model(),
                     indexName,
@@ -1165,7 +1330,7 @@ public class Job {
     ) throws ValidationException {
         Value value = Value.create(attributeType, valueNode);
         if (!docAttributes.containsKey(attributeName)) {
-            docAttributes.put(attributeName, new TreeSet<>());
+            docAttributes.put(attributeName, new HashSet<>());
         }
         if (!nextInputAttributes.containsKey(attributeName)) {
             nextInputAttributes.put(attributeName, new Attribute(attributeName, attributeType));
@@ -1192,7 +1357,8 @@ public class Job {
     }
 
     private void parseDocHit(
-        JsonNode doc,
+        JsonNode docSource,
+        Map<String, JsonNode> docFields,
         String indexName,
         Map<String, Attribute> nextInputAttributes,
         Map<String, Set<Value>> docAttributes,
@@ -1205,10 +1371,10 @@ public class Job {
             String attributeType = this.config.input.model().attributes().get(attributeName).type();
 
             // Get the attribute values from the doc.
-            if (doc.has("fields") && doc.get("fields").has(indexFieldName)) {
+            if (docFields.containsKey(indexFieldName)) {
                 // Get the attribute value from the "fields" field if it exists there.
                 // This would include 'date' attribute types, for example.
-                JsonNode valueNode = doc.get("fields").get(indexFieldName);
+                JsonNode valueNode = docFields.get(indexFieldName);
                 if (valueNode.isNull() || valueNode.isMissingNode()) {
                     continue;
                 } else if (valueNode.isArray()) {
@@ -1223,8 +1389,6 @@ public class Job {
                     docIndexFields.put(indexFieldName, valueNode);
                 }
             } else {
-                // TODO: these JsonPointers are the only thing holding us back from removing the manual JsonNode handling
-                //       and just using SearchHits.
                 // Get the attribute value from the "_source" field.
                 // The index field name might not refer to the _source property.
                 // If it's not in the _source, remove the last part of the index field name from the dot notation.
@@ -1233,10 +1397,13 @@ public class Job {
                 IndexField indexField = this.config.input.model().indices().get(indexName).fields().get(indexFieldName);
                 JsonPointer path = indexField.path();
                 JsonPointer pathParent = indexField.pathParent();
-                JsonNode valueNode = doc.get("_source").at(path);
+                if (docSource == null) {
+                    continue;
+                }
+                JsonNode valueNode = docSource.at(path);
                 if (valueNode.isMissingNode()) {
                     if (pathParent != null) {
-                        valueNode = doc.get("_source").at(pathParent);
+                        valueNode = docSource.at(pathParent);
                     } else {
                         continue;
                     }
@@ -1254,8 +1421,51 @@ public class Job {
         }
     }
 
+    /**
+     * Build the document that is returned in the "hits" of the response from the metadata of a {@link SearchHit},
+     * in the order that Elasticsearch renders them.
+     *
+     * @param hit       The search hit.
+     * @param docFields The names of the script fields and doc value fields that were requested, which are not metadata.
+     * @return The document, to be completed by {@link #modifyDocMetadata}.
+     */
+    static ObjectNode buildDocObjNode(SearchHit hit, Set<String> docFields) {
+        ObjectNode docObjNode = Json.ORDERED_MAPPER.createObjectNode();
+        if (hit.getIndex() != null) {
+            docObjNode.put("_index", hit.getIndex());
+        }
+        if (hit.getType() != null) {
+            docObjNode.put("_type", hit.getType());
+        }
+        if (hit.getId() != null) {
+            docObjNode.put("_id", hit.getId());
+        }
+        if (hit.getVersion() != -1) {
+            docObjNode.set("_version", SearchHitParser.valueNode(hit.getVersion()));
+        }
+        if (hit.getSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+            docObjNode.set("_seq_no", SearchHitParser.valueNode(hit.getSeqNo()));
+            docObjNode.set("_primary_term", SearchHitParser.valueNode(hit.getPrimaryTerm()));
+        }
+        for (DocumentField field : hit.getFields().values()) {
+            // ignore script fields, doc value fields and empty metadata fields
+            if (docFields.contains(field.getName()) || field.getValues().isEmpty()) {
+                continue;
+            }
+            // _ignored is the only multi-valued metadata field
+            if (field.getName().equals(IgnoredFieldMapper.NAME)) {
+                docObjNode.set(field.getName(), SearchHitParser.arrayNode(field.getValues()));
+            } else {
+                docObjNode.set(field.getName(), SearchHitParser.valueNode(field.getValue()));
+            }
+        }
+        return docObjNode;
+    }
+
     private void modifyDocMetadata(
         ObjectNode docObjNode,
+        JsonNode docSource,
+        String[] matchedQueries,
         String indexName,
         int hop,
         int queryCount,
@@ -1263,8 +1473,6 @@ public class Job {
         Map<String, Set<Value>> docAttributes,
         Map<String, JsonNode> docIndexFields
     ) throws IOException {
-        docObjNode.remove("_score");
-        docObjNode.remove("fields");
         docObjNode.put("_hop", hop);
         docObjNode.put("_query", queryCount);
         if (this.config.includeScore) {
@@ -1272,9 +1480,14 @@ public class Job {
         }
         if (this.config.includeAttributes) {
             ObjectNode docAttributesObjNode = docObjNode.putObject("_attributes");
-            for (String attributeName : docAttributes.keySet()) {
+            // Write the attributes in the order of the model, which is sorted by name.
+            for (String attributeName : this.config.input.model().attributes().keySet()) {
+                Set<Value> values = docAttributes.get(attributeName);
+                if (values == null) {
+                    continue;
+                }
                 ArrayNode docAttributeArrNode = docAttributesObjNode.putArray(attributeName);
-                for (Value value : docAttributes.get(attributeName)) {
+                for (Value value : CollectionUtil.sorted(values)) {
                     docAttributeArrNode.add(value.value());
                 }
             }
@@ -1282,7 +1495,7 @@ public class Job {
 
         // Determine why any matching documents matched if including "_score" or "_explanation".
         List<Double> bestAttributeIdentityConfidenceScores = new ArrayList<>();
-        if (namedFilters && docObjNode.has("matched_queries") && docObjNode.get("matched_queries").size() > 0) {
+        if (namedFilters && matchedQueries.length > 0) {
             ObjectNode docExpObjNode = docObjNode.putObject("_explanation");
             ObjectNode docExpResolversObjNode = docExpObjNode.putObject("resolvers");
             ArrayNode docExpMatchesArrNode = docExpObjNode.putArray("matches");
@@ -1292,8 +1505,7 @@ public class Job {
             // Create tuple-like objects that describe which attribute values matched which
             // index field values using which matchers and matcher parameters.
             Map<String, List<Double>> attributeIdConfidenceBaseScores = new TreeMap<>();
-            for (JsonNode mqNode : docObjNode.get("matched_queries")) {
-                String serializedName = mqNode.asText();
+            for (String serializedName : matchedQueries) {
                 QueryValue queryValue = QueryValue.deserialize(serializedName);
                 // skip duplicates
                 if (!matchedQueryNames.add(queryValue.genericName())) {
@@ -1377,30 +1589,206 @@ public class Job {
                     }
                 }
             }
-            docObjNode.remove("matched_queries");
             if (!this.config.includeExplanation) {
                 docObjNode.remove("_explanation");
             }
         }
 
-        // Either remove "_source" or move "_source" under "_attributes".
-        if (!this.config.includeSource) {
-            docObjNode.remove("_source");
-        } else {
-            // TODO: this doesn't nest _source under _attributes?
-            JsonNode sourceNode = docObjNode.get("_source");
-            docObjNode.remove("_source");
-            docObjNode.set("_source", sourceNode);
+        // Include "_source" after "_attributes".
+        if (this.config.includeSource) {
+            docObjNode.set("_source", docSource);
         }
 
         // Store doc in response.
         this.hits.add(docObjNode);
     }
 
-    private SearchRequestBuilder buildSearchRequest(String indexName) {
+    /**
+     * Determine whether a search can use only the attribute values that are new since the last hop.
+     * A search must use all the known values when:
+     * <ul>
+     *     <li>delta hops are disabled, or this is the first hop</li>
+     *     <li>the last search of the index may have left matching documents behind due to "max_docs_per_query"</li>
+     *     <li>"_explanation" or "_score" is requested, which report every matching value</li>
+     *     <li>the resolvers have multiple weight levels, because documents of a lower level can become
+     *         matches when a higher level resolver matches new values</li>
+     * </ul>
+     *
+     * @param indexName    The name of the index.
+     * @param resolvers    The names of the resolvers that can be queried for the index.
+     * @param namedFilters Whether the query names its clauses.
+     * @return Boolean decision.
+     */
+    private boolean canQueryDelta(String indexName, List<String> resolvers, boolean namedFilters) {
+        if (!this.config.deltaHops || this.deltaAttributes == null || namedFilters) {
+            return false;
+        }
+        if (this.truncatedIndices.contains(indexName)) {
+            return false;
+        }
+        return this.plan.tiers(resolvers).size() <= 1;
+    }
+
+    /**
+     * Get the parser that reads only the paths of the index fields of an index from the "_source" of its hits.
+     *
+     * @param indexName The name of the index.
+     * @return The parser.
+     */
+    private SearchHitParser getSourceParser(String indexName) {
+        return this.sourceParsers.computeIfAbsent(indexName, (name) -> {
+            List<JsonPointer> paths = new ArrayList<>();
+            for (IndexField indexField : this.config.input.model().indices().get(name).fields().values()) {
+                paths.add(indexField.path());
+                paths.add(indexField.pathParent());
+            }
+            return new SearchHitParser(paths);
+        });
+    }
+
+    /**
+     * Build the paths of the "_source" that hold the values of the index fields of an index. A path includes the
+     * parent of the index field, which holds the values of multi-fields.
+     *
+     * @param index     The index.
+     * @param docFields The index fields that are read from the "fields" of the hits instead.
+     * @return The paths to include in the "_source", or none if nothing is read from the "_source".
+     */
+    static String[] buildSourceIncludes(Index index, Set<String> docFields) {
+        Set<String> includes = new TreeSet<>();
+        for (IndexField indexField : index.fields().values()) {
+            if (docFields.contains(indexField.name())) {
+                continue;
+            }
+            includes.add(indexField.name());
+            int lastPeriod = indexField.name().lastIndexOf('.');
+            if (lastPeriod > 0) {
+                includes.add(indexField.name().substring(0, lastPeriod));
+            }
+        }
+        return includes.toArray(new String[0]);
+    }
+
+    /**
+     * Determine whether the values of a field can be read from its doc values the same way they are read from the
+     * "_source". That is the case for "keyword" fields that neither normalize nor drop values, and for integer fields
+     * whose mapping sets both "coerce" and "ignore_malformed" to false, unless their doc values are disabled or they
+     * index a "null_value" in place of nulls. Both must be set on the field, since they default to the index
+     * settings, which the field mapping does not show. Otherwise a "_source" value of "5" or 5.7 would be read as
+     * the doc value 5, and a malformed value would be read as no value at all.
+     *
+     * @param fieldMapping The mapping of the field, e.g. <code>{"type":"keyword"}</code>.
+     * @return Whether the field's doc values can be read.
+     */
+    static boolean canReadDocValues(Map<String, Object> fieldMapping) {
+        if (fieldMapping == null
+            || "false".equals(String.valueOf(fieldMapping.get("doc_values")))
+            || fieldMapping.containsKey("null_value")) {
+            return false;
+        }
+        Object type = fieldMapping.get("type");
+        if ("keyword".equals(type)) {
+            return !fieldMapping.containsKey("normalizer") && !fieldMapping.containsKey("ignore_above");
+        }
+        return DOC_VALUE_TYPES.contains(type)
+            && "false".equals(String.valueOf(fieldMapping.get("coerce")))
+            && "false".equals(String.valueOf(fieldMapping.get("ignore_malformed")));
+    }
+
+    /**
+     * Find the index fields of each index of the model that can be read from their doc values, if enabled.
+     * An index whose mappings cannot be read falls back to reading every field from the "_source". The fields are
+     * kept in the plan of the model, so that the mappings are read once for each version of the model.
+     *
+     * @return A future that completes once the fields are known.
+     */
+    private CompletableFuture<Void> loadDocValueFields() {
+        if (!this.config.docValueFields || !this.docValueFields.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Index index : this.config.input.model().indices().values()) {
+            Set<String> planFields = this.plan.docValueFields(index.name());
+            if (planFields != null) {
+                this.docValueFields.put(index.name(), planFields);
+                continue;
+            }
+            String[] indexFieldNames = index.fields().keySet().toArray(new String[0]);
+            futures.add(ActionRequestUtil
+                .toCompletableFuture(new GetFieldMappingsRequestBuilder(client, GetFieldMappingsAction.INSTANCE, index.name()).setFields(indexFieldNames))
+                .handle((response, throwable) -> {
+                    if (response != null) {
+                        Set<String> fields = findDocValueFields(response, index.fields().keySet());
+                        this.plan.putDocValueFields(index.name(), fields);
+                        this.docValueFields.put(index.name(), fields);
+                    }
+                    return null;
+                }));
+        }
+        return CompletableFutureUtil.allOf(futures).thenApply((nil) -> null);
+    }
+
+    /**
+     * Find the fields that can be read from their doc values in every concrete index of a field mappings response.
+     *
+     * @param response        The field mappings of the concrete indices of a model index.
+     * @param indexFieldNames The index fields.
+     * @return The names of the index fields that can be read from their doc values.
+     */
+    @SuppressWarnings("unchecked")
+    static Set<String> findDocValueFields(GetFieldMappingsResponse response, Collection<String> indexFieldNames) {
+        Set<String> fields = new TreeSet<>();
+        if (response.mappings().isEmpty()) {
+            return fields;
+        }
+        for (String indexFieldName : indexFieldNames) {
+            boolean canRead = true;
+            for (Map<String, Map<String, FieldMappingMetadata>> typeMappings : response.mappings().values()) {
+                for (Map<String, FieldMappingMetadata> fieldMappings : typeMappings.values()) {
+                    FieldMappingMetadata fieldMapping = fieldMappings.get(indexFieldName);
+                    if (fieldMapping == null || fieldMapping.isNull()) {
+                        canRead = false;
+                        break;
+                    }
+                    Map<String, Object> source = fieldMapping.sourceAsMap();
+                    Object mapping = source.isEmpty() ? null : source.values().iterator().next();
+                    if (!(mapping instanceof Map) || !canReadDocValues((Map<String, Object>) mapping)) {
+                        canRead = false;
+                        break;
+                    }
+                }
+                if (!canRead) {
+                    break;
+                }
+            }
+            if (canRead) {
+                fields.add(indexFieldName);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Get the size of the pages of a search of an index. A search is paged when "page_size" is set, and also once the
+     * docs fetched from the index are too many to exclude from the query. Otherwise the docs that were fetched already
+     * could fill the result window and hide the new docs behind them.
+     *
+     * @param indexName The name of the index.
+     * @return The size of the pages, or 0 if the search is not paged.
+     */
+    private int pageSize(String indexName) {
+        if (this.config.pageSize > 0) {
+            return this.config.pageSize;
+        }
+        if (this.docIds.get(indexName).size() > this.config.maxExcludedIds) {
+            return Math.min(this.config.maxDocsPerQuery, MAX_RESULT_WINDOW);
+        }
+        return 0;
+    }
+
+    private SearchRequestBuilder buildSearchRequest(String indexName, int pageSize) {
         final SearchRequestBuilder searchReqBuilder = new SearchRequestBuilder(client, SearchAction.INSTANCE);
         searchReqBuilder
-            .setFetchSource(true)
             .setIndices(indexName)
             .setFetchSource(true)
             .setSize(this.config.maxDocsPerQuery)
@@ -1423,16 +1811,166 @@ public class Job {
         if (this.config.searchPreference != null) {
             searchReqBuilder.setPreference(this.config.searchPreference);
         }
-        if (this.config.searchRequestCache != null) {
-            searchReqBuilder.setRequestCache(this.config.searchRequestCache);
-        }
         if (this.config.maxTimePerQuery != null) {
             searchReqBuilder.setTimeout(this.config.maxTimePerQuery);
         }
 
+        // Page through the hits with a scroll. Scroll searches are never served from the request cache, so paging
+        // gives up the request cache even if "search.request_cache" is set.
+        if (pageSize > 0) {
+            searchReqBuilder
+                .setSize(pageSize)
+                .setScroll(this.config.pageKeepAlive);
+        } else if (this.config.searchRequestCache != null) {
+            searchReqBuilder.setRequestCache(this.config.searchRequestCache);
+        }
+
         return searchReqBuilder;
     }
 
+    /**
+     * Check that the job can submit another query to an index, and count it. Every query of a job goes through this
+     * check, including each page of a paged search.
+     *
+     * @param indexName The name of the index.
+     * @return False if the job is out of time or queries.
+     * @throws org.elasticsearch.tasks.TaskCancelledException If the request was cancelled.
+     */
+    private boolean tryStartQuery(String indexName) {
+        // Stop before the next query if the request was cancelled.
+        if (this.config.task != null) {
+            this.config.task.ensureNotCancelled();
+        }
+        if (!this.budget.tryAcquireQuery()) {
+            return false;
+        }
+        if (this.config.task != null) {
+            this.config.task.onQuery();
+        }
+        if (this.config.stats != null) {
+            this.config.stats.onQuery(indexName);
+        }
+        return true;
+    }
+
+    /**
+     * Fetch the pages after the first page of a paged search, until "max_docs_per_query" docs that were not fetched
+     * before are found, there are no more hits, or the job is out of time or queries. Each page counts as a query.
+     * The scroll is cleared once done. Searches that are not paged, or that failed, are returned as they are.
+     *
+     * @param search The search, completed with its first page.
+     * @return A future that completes with the search once all of its pages are fetched.
+     */
+    private CompletableFuture<IndexSearch> fetchNextPages(IndexSearch search) {
+        if (search.response == null || search.response.getScrollId() == null) {
+            return CompletableFuture.completedFuture(search);
+        }
+
+        final Set<String> indexDocIds = this.docIds.get(search.indexName);
+        final AtomicInteger newDocsCount = new AtomicInteger(0);
+        final AtomicReference<String> scrollId = new AtomicReference<>(search.response.getScrollId());
+        final Function<SearchResponse, Boolean> countNewDocs = (page) -> {
+            for (SearchHit hit : page.getHits().getHits()) {
+                if (!indexDocIds.contains(hit.getId())) {
+                    newDocsCount.incrementAndGet();
+                }
+            }
+            return page.getHits().getHits().length < search.pageSize;
+        };
+        final AtomicBoolean lastPage = new AtomicBoolean(countNewDocs.apply(search.response));
+
+        final Predicate<Void> isDone = (nil) -> lastPage.get() || newDocsCount.get() >= this.config.maxDocsPerQuery;
+        final Supplier<CompletableFuture<Void>> fetchNextPage = () -> {
+            // Stop paging once the job is out of time or queries. The docs of the pages so far are kept.
+            final boolean canQuery;
+            try {
+                canQuery = tryStartQuery(search.indexName);
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+            if (!canQuery) {
+                lastPage.set(true);
+                return CompletableFuture.completedFuture(null);
+            }
+            final long pageStartTime = System.nanoTime();
+            return ActionRequestUtil
+                .toCompletableFuture(
+                    new SearchScrollRequestBuilder(client, SearchScrollAction.INSTANCE)
+                        .setScrollId(scrollId.get())
+                        .setScroll(this.config.pageKeepAlive)
+                )
+                .whenComplete((page, throwable) -> {
+                    if (this.config.stats != null) {
+                        this.config.stats.onSearch(System.nanoTime() - pageStartTime);
+                    }
+                })
+                .thenApply((page) -> {
+                    search.nextPages.add(page);
+                    if (page.getScrollId() != null) {
+                        scrollId.set(page.getScrollId());
+                    }
+                    lastPage.set(countNewDocs.apply(page));
+                    return null;
+                });
+        };
+
+        return CompletableFutureUtil
+            .recursiveLoopFunction(isDone, fetchNextPage)
+            .apply(null)
+            .handle((nil, throwable) -> {
+                // Don't wait for the scroll to be cleared.
+                new ClearScrollRequestBuilder(client, ClearScrollAction.INSTANCE)
+                    .addScrollId(scrollId.get())
+                    .execute(ActionListener.wrap((res) -> { }, (ex) -> { }));
+                if (throwable != null) {
+                    search.responseError = throwable;
+                }
+                return search;
+            });
+    }
+
+    /**
+     * Submit the searches of a hop as a single multi search request. Each {@link IndexSearch} is completed with the
+     * response or the failure of its item. If the whole request fails, every search is completed with that failure.
+     *
+     * @param searches The searches to submit.
+     * @return A future that completes once every search has its response or error.
+     */
+    private CompletableFuture<Void> executeMultiSearch(List<IndexSearch> searches) {
+        if (searches.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final MultiSearchRequestBuilder multiSearchReqBuilder = new MultiSearchRequestBuilder(client, MultiSearchAction.INSTANCE);
+        if (this.config.maxConcurrentSearches > 1) {
+            multiSearchReqBuilder.setMaxConcurrentSearchRequests(this.config.maxConcurrentSearches);
+        }
+        for (IndexSearch search : searches) {
+            multiSearchReqBuilder.add(search.searchRequest);
+        }
+
+        return ActionRequestUtil
+            .toCompletableFuture(multiSearchReqBuilder)
+            .handle((multiResponse, throwable) -> {
+                if (throwable != null) {
+                    for (IndexSearch search : searches) {
+                        search.responseError = throwable;
+                    }
+                    return null;
+                }
+                MultiSearchResponse.Item[] items = multiResponse.getResponses();
+                for (int i = 0; i < searches.size(); i++) {
+                    IndexSearch search = searches.get(i);
+                    if (items[i].isFailure()) {
+                        search.responseError = items[i].getFailure();
+                    } else {
+                        search.response = items[i].getResponse();
+                    }
+                }
+                return null;
+            });
+    }
+
     /**
      * Given a set of attribute values, determine which queries to submit to which indices then submit them and recurse
      * asynchronously.
@@ -1442,38 +1980,49 @@ public class Job {
         final AtomicInteger hop = new AtomicInteger(0);
         final AtomicInteger maxHops = new AtomicInteger(this.config.maxHops <= -1 ? Integer.MAX_VALUE : this.config.maxHops);
         final AtomicBoolean namedFilters = new AtomicBoolean(this.config.includeExplanation || this.config.includeScore);
-        final Set<String> missingIndices = Collections.synchronizedSet(new TreeSet<>());
-        final Map<String, Attribute> nextInputAttributes = Collections.synchronizedMap(new TreeMap<>());
+        final Set<String> missingIndices = ConcurrentHashMap.newKeySet();
+        // The responses of a hop are processed one at a time, so the attributes they find need no locking.
+        final Map<String, Attribute> nextInputAttributes = new HashMap<>();
         final AtomicInteger queryCounter = new AtomicInteger(0);
 
         final CompletableFuture<Void> emptyResultFut = CompletableFuture.completedFuture(null);
 
-        final Predicate<Void> shouldContinuePred = (nil) -> newAttributeHits.get() && !(hop.get() > maxHops.get());
+        final Predicate<Void> shouldContinuePred = (nil) -> newAttributeHits.get()
+            && !(hop.get() > maxHops.get())
+            && !this.budget.isExhausted();
 
-        final CheckedFunction<String, CompletableFuture<Void>, IOException> runIndexSearch = (indexName) -> {
+        final CheckedFunction<String, IndexSearch, IOException> buildIndexSearch = (indexName) -> {
             // Skip this index if a prior hop determined the index to be missing.
             if (missingIndices.contains(indexName)) {
-                return emptyResultFut;
+                return null;
             }
 
             // Track _ids for this index.
-            if (!this.docIds.containsKey(indexName)) {
-                this.docIds.put(indexName, new TreeSet<>());
-            }
+            this.docIds.computeIfAbsent(indexName, (name) -> ConcurrentHashMap.newKeySet());
 
             // "_explanation" uses named queries, and each value of the "_name" fields must be unique.
             // Use a counter to prepend a unique and deterministic identifier for each "_name" field in the query.
             AtomicInteger nameIdCounter = new AtomicInteger();
 
             // Determine which resolvers can be queried for this index.
-            List<String> resolvers = new ArrayList<>();
+            final IndexSearch search = new IndexSearch(indexName);
             Set<String> resolverNames = this.config.input.model().resolvers().keySet();
             for (String resolverName : resolverNames) {
-                if (canQueryResolver(this.config.input.model(), indexName, resolverName, this.attributes)) {
-                    resolvers.add(resolverName);
+                if (this.plan.canQueryResolver(indexName, resolverName, this.attributes)) {
+                    search.resolvers.add(resolverName);
                 }
             }
 
+            // Query only with the attribute values that are new since the last hop, if possible.
+            final Map<String, Attribute> searchDeltaAttributes = canQueryDelta(indexName, search.resolvers, namedFilters.get())
+                ? this.deltaAttributes
+                : null;
+            if (searchDeltaAttributes != null) {
+                // Only the resolvers that use an attribute with new values can match new documents.
+                search.resolvers.removeIf((resolverName) -> this.config.input.model().resolvers().get(resolverName)
+                    .attributes().stream().noneMatch(searchDeltaAttributes::containsKey));
+            }
+
             // Determine if we can query this index.
             boolean canQueryIds = hop.get() == 0
                 && this.config.input.ids().containsKey(indexName)
@@ -1482,131 +2031,227 @@ public class Job {
             boolean canQueryTerms = hop.get() == 0 &&
                 !this.config.input.terms().isEmpty();
 
-            if (resolvers.size() == 0 && !canQueryIds && !canQueryTerms) {
-                return emptyResultFut;
+            if (search.resolvers.size() == 0 && !canQueryIds && !canQueryTerms) {
+                return null;
             }
 
-            final SearchRequestBuilder searchReqBuilder = buildSearchRequest(indexName);
+            // Skip the search if the job is out of time or queries.
+            if (!tryStartQuery(indexName)) {
+                return null;
+            }
+
+            search.pageSize = pageSize(indexName);
+            search.searchRequest = buildSearchRequest(indexName, search.pageSize);
+
+            // Don't let the search run past the time left for the job.
+            TimeValue remainingTime = this.budget.remainingTime();
+            if (remainingTime != null && (this.config.maxTimePerQuery == null || remainingTime.compareTo(this.config.maxTimePerQuery) < 0)) {
+                search.searchRequest.setTimeout(remainingTime);
+            }
+            // Read the date fields from their doc values in the format of their attributes, or with a script
+            // if the format can only be expressed as a SimpleDateFormat.
+            Map<String, String> dateFormats = buildDateDocValueFields(indexName, this.config.input);
+            dateFormats.forEach(search.searchRequest::addDocValueField);
+            search.docFields.addAll(dateFormats.keySet());
             Map<String, Script> scripts = buildScriptFields(indexName, this.config.input);
-            scripts.forEach(searchReqBuilder::addScriptField);
+            scripts.forEach(search.searchRequest::addScriptField);
+            search.docFields.addAll(scripts.keySet());
+
+            // Read the index fields from their doc values if possible, and fetch only the rest of the "_source"
+            // unless the "_source" is returned in the response.
+            for (String indexFieldName : this.docValueFields.getOrDefault(indexName, Collections.emptySet())) {
+                if (!search.docFields.contains(indexFieldName)) {
+                    search.searchRequest.addDocValueField(indexFieldName);
+                    search.docFields.add(indexFieldName);
+                }
+            }
+            if (!(this.config.includeHits && this.config.includeSource)) {
+                String[] sourceIncludes = buildSourceIncludes(this.config.input.model().indices().get(indexName), search.docFields);
+                if (sourceIncludes.length == 0) {
+                    search.searchRequest.setFetchSource(false);
+                } else {
+                    search.searchRequest.setFetchSource(sourceIncludes, null);
+                }
+            }
 
-            final Map<Integer, FilterTree> resolversFilterTreeGrouped = new TreeMap<>(Collections.reverseOrder());
             // Construct query for this index.
-            final List<String> termResolvers = new ArrayList<>();
-            final FilterTree termResolversFilterTree = new FilterTree();
-
             final QueryBuilder searchQuery = buildSearchQuery(
                 indexName,
                 canQueryIds,
                 canQueryTerms,
-                resolvers,
+                search.resolvers,
                 nameIdCounter,
                 namedFilters.get(),
-                resolversFilterTreeGrouped,
-                termResolvers,
-                termResolversFilterTree
+                search.resolversFilterTreeGrouped,
+                search.termResolvers,
+                search.termResolversFilterTree,
+                searchDeltaAttributes
             );
-            searchReqBuilder.setQuery(searchQuery);
+            search.searchRequest.setQuery(searchQuery);
+            return search;
+        };
 
-            // Submit query to Elasticsearch.
-            return ActionRequestUtil
-                .toCompletableFuture(searchReqBuilder)
-                .handle(UnCheckedBiFunction.from(
-                    (CheckedBiFunction<? super SearchResponse, Throwable, Void, ? extends Exception>)
-                    (response, throwable) -> {
-                    Throwable responseError = null;
-                    boolean fatalError = false;
-
-                    if (throwable != null) {
-                        Throwable cause = CompletableFutureUtil.getCause(throwable);
-
-                        if (cause instanceof IndexNotFoundException) {
-                            IndexNotFoundException idxEx = (IndexNotFoundException) cause;
-                            // Don't fail the job if an index was missing.
-                            missingIndices.add(idxEx.getIndex().getName());
-                            responseError = idxEx;
-                        } else {
-                            fatalError = true;
-                            responseError = cause;
-                        }
+        final Function<IndexSearch, CompletableFuture<IndexSearch>> executeIndexSearch = (search) -> {
+            // Submit query to Elasticsearch, either on its own or in a batch shared with other jobs.
+            final long searchStartTime = System.nanoTime();
+            CompletableFuture<SearchResponse> responseFut = this.config.searchBatcher != null
+                ? this.config.searchBatcher.submit(search.searchRequest)
+                : ActionRequestUtil.toCompletableFuture(search.searchRequest);
+            return responseFut
+                .handle((response, throwable) -> {
+                    if (this.config.stats != null) {
+                        this.config.stats.onSearch(System.nanoTime() - searchStartTime);
                     }
+                    search.response = response;
+                    search.responseError = throwable;
+                    return search;
+                })
+                .thenCompose(this::fetchNextPages);
+        };
 
-                    // Log queries.
-                    if (config.includeQueries || config.profile) {
-                        LoggedQuery logged = buildLoggedQuery(
-                            config.input,
-                            hop.get(),
-                            queryCounter.get(),
-                            indexName,
-                            searchReqBuilder,
-                            response,
-                            responseError,
-                            resolvers,
-                            resolversFilterTreeGrouped,
-                            termResolvers,
-                            termResolversFilterTree
-                        );
-                        queries.add(logged);
-                    }
+        final CheckedConsumer<IndexSearch, Exception> processIndexSearch = (search) -> {
+            final String indexName = search.indexName;
+            final SearchResponse response = search.response;
+            Throwable responseError = null;
+            boolean fatalError = false;
 
-                    // Stop traversing if there was an error not due to a missing index.
-                    if (fatalError) {
-                        throw (Exception) responseError;
-                    }
+            if (search.responseError != null) {
+                Throwable cause = CompletableFutureUtil.getCause(search.responseError);
 
-                    // Read response from Elasticsearch.
-                    JsonNode responseData = null;
-                    if (response != null) {
-                        responseData = Json.ORDERED_MAPPER.readTree(response.toString());
-                    }
+                if (cause instanceof IndexNotFoundException) {
+                    IndexNotFoundException idxEx = (IndexNotFoundException) cause;
+                    // Don't fail the job if an index was missing.
+                    missingIndices.add(idxEx.getIndex().getName());
+                    responseError = idxEx;
+                } else {
+                    fatalError = true;
+                    responseError = cause;
+                }
+            }
 
-                    // Read the hits
-                    if (responseData == null) {
-                        return null;
-                    }
-                    if (!responseData.has("hits")) {
-                        return null;
-                    }
-                    if (!responseData.get("hits").has("hits")) {
-                        return null;
-                    }
+            // Log queries.
+            if (config.includeQueries || config.profile) {
+                LoggedQuery logged = buildLoggedQuery(
+                    config.input,
+                    hop.get(),
+                    queryCounter.get(),
+                    indexName,
+                    search.searchRequest,
+                    response,
+                    responseError,
+                    search.resolvers,
+                    search.resolversFilterTreeGrouped,
+                    search.termResolvers,
+                    search.termResolversFilterTree
+                );
+                if (config.resolutionStream != null) {
+                    config.resolutionStream.writeQuery(logged);
+                } else {
+                    queries.add(logged);
+                }
+            }
 
-                    // TODO: don't parse response as JSON, use SearchHit from response.getHits().getHits()
-                    for (JsonNode doc : responseData.get("hits").get("hits")) {
-                        // Skip doc if already fetched. Otherwise mark doc as fetched and then proceed.
-                        String id = doc.get("_id").textValue();
-                        Set<String> indexDocIds = docIds.get(indexName);
-                        if (indexDocIds.contains(id)) {
-                            continue;
-                        }
-                        indexDocIds.add(id);
+            // Stop traversing if there was an error not due to a missing index.
+            if (fatalError) {
+                throw (Exception) responseError;
+            }
+
+            // Read the hits
+            if (response == null) {
+                return;
+            }
+
+            // Read the hits of every page.
+            List<SearchHit> searchHits = new ArrayList<>(Arrays.asList(response.getHits().getHits()));
+            for (SearchResponse page : search.nextPages) {
+                searchHits.addAll(Arrays.asList(page.getHits().getHits()));
+            }
+            int newDocsCount = 0;
+            for (SearchHit hit : searchHits) {
+                // Stop once enough new docs were found if the search was paged.
+                if (newDocsCount >= config.maxDocsPerQuery) {
+                    break;
+                }
 
-                        // Gather attributes from the doc. Store them in the "_attributes" field of the doc,
-                        // and include them in the attributes for subsequent queries.
-                        Map<String, Set<Value>> docAttributes = new TreeMap<>();
-                        Map<String, JsonNode> docIndexFields = new TreeMap<>();
+                // Skip doc if already fetched. Otherwise mark doc as fetched and then proceed.
+                String id = hit.getId();
+                Set<String> indexDocIds = docIds.get(indexName);
+                if (indexDocIds.contains(id)) {
+                    continue;
+                }
 
-                        parseDocHit(doc, indexName, nextInputAttributes, docAttributes, docIndexFields);
+                // Stop once the job is out of docs.
+                if (!budget.tryAcquireDoc()) {
+                    break;
+                }
+                indexDocIds.add(id);
+                newDocsCount++;
+                if (config.task != null) {
+                    config.task.onDoc();
+                }
 
-                        // Modify doc metadata.
-                        if (config.includeHits) {
-                            modifyDocMetadata(
-                                (ObjectNode) doc,
-                                indexName,
-                                hop.get(),
-                                queryCounter.get(),
-                                namedFilters.get(),
-                                docAttributes,
-                                docIndexFields
-                            );
-                        }
+                // Read the "_source" straight from the hit. Only the index fields are needed unless the
+                // "_source" is returned in the response.
+                JsonNode docSource = config.includeHits && config.includeSource
+                    ? SearchHitParser.parseFullSource(hit.getSourceRef())
+                    : getSourceParser(indexName).parseSource(hit.getSourceRef());
+                Map<String, JsonNode> docFields = new HashMap<>();
+                for (String docField : search.docFields) {
+                    DocumentField field = hit.field(docField);
+                    if (field != null && !field.getValues().isEmpty()) {
+                        docFields.put(docField, SearchHitParser.arrayNode(field.getValues()));
                     }
-                    queryCounter.incrementAndGet();
-                    return null;
-                }));
+                }
+
+                // Gather attributes from the doc. Store them in the "_attributes" field of the doc,
+                // and include them in the attributes for subsequent queries.
+                Map<String, Set<Value>> docAttributes = new HashMap<>();
+                Map<String, JsonNode> docIndexFields = new HashMap<>();
+
+                parseDocHit(docSource, docFields, indexName, nextInputAttributes, docAttributes, docIndexFields);
+
+                // Modify doc metadata.
+                if (config.includeHits) {
+                    modifyDocMetadata(
+                        buildDocObjNode(hit, search.docFields),
+                        docSource,
+                        hit.getMatchedQueries(),
+                        indexName,
+                        hop.get(),
+                        queryCounter.get(),
+                        namedFilters.get(),
+                        docAttributes,
+                        docIndexFields
+                    );
+                }
+            }
+
+            // Track whether the search may have left matching documents behind, in which case the next hop
+            // must query this index with all the known values again.
+            TotalHits totalHits = response.getHits().getTotalHits();
+            boolean truncated = newDocsCount >= config.maxDocsPerQuery
+                || (totalHits != null && totalHits.value > searchHits.size());
+            if (truncated) {
+                truncatedIndices.add(indexName);
+            } else {
+                truncatedIndices.remove(indexName);
+            }
+
+            // Write the new docs of the query to the buffered NDJSON records, if any, and let go of them.
+            if (config.resolutionStream != null && !hits.isEmpty()) {
+                config.resolutionStream.writeHits(hop.get(), queryCounter.get(), indexName, hits);
+                hits.clear();
+            }
+            queryCounter.incrementAndGet();
         };
 
         final CheckedSupplier<CompletableFuture<Void>, IOException> runTraversal = () -> {
+            // Stop before the next hop if the request was cancelled.
+            if (this.config.task != null) {
+                this.config.task.ensureNotCancelled();
+                this.config.task.onHop(hop.get());
+            }
+            final long hopStartTime = System.nanoTime();
             nextInputAttributes.clear();
             queryCounter.set(0);
 
@@ -1631,8 +2276,59 @@ public class Job {
             // Construct a query for each index that maps to a resolver.
             Set<String> indices = this.config.input.model().indices().keySet();
             CompletableFuture<Void> completeFut = CompletableFuture.completedFuture(null);
-            for (String indexName : indices) {
-                completeFut = completeFut.thenCompose(UnCheckedFunction.from((res) -> runIndexSearch.apply(indexName)));
+
+            if (this.config.multiSearch && this.config.searchBatcher == null) {
+                // Search all the indices in a single _msearch request, and process the responses in the order of the indices.
+                List<IndexSearch> searches = new ArrayList<>();
+                for (String indexName : indices) {
+                    IndexSearch search = buildIndexSearch.apply(indexName);
+                    if (search != null) {
+                        searches.add(search);
+                    }
+                }
+                completeFut = executeMultiSearch(searches)
+                    .thenCompose((nil) -> CompletableFutureUtil.allOf(
+                        searches.stream().map(this::fetchNextPages).collect(Collectors.toList())
+                    ))
+                    .thenAccept(UnCheckedConsumer.from((nil) -> {
+                        for (IndexSearch search : searches) {
+                            processIndexSearch.accept(search);
+                        }
+                    }));
+            } else if (this.config.maxConcurrentSearches <= 1) {
+                // Search each index one after the other.
+                for (String indexName : indices) {
+                    completeFut = completeFut.thenCompose(UnCheckedFunction.from((res) -> {
+                        IndexSearch search = buildIndexSearch.apply(indexName);
+                        if (search == null) {
+                            return emptyResultFut;
+                        }
+                        return executeIndexSearch.apply(search)
+                            .thenAccept(UnCheckedConsumer.from(processIndexSearch));
+                    }));
+                }
+            } else {
+                // Search the indices concurrently, but process the responses in the order of the indices
+                // so that the "_query" numbers and the order of the hits are the same as searching one after the other.
+                List<Supplier<CompletableFuture<IndexSearch>>> searchSuppliers = indices.stream()
+                    .map((indexName) -> UnCheckedSupplier.from(() -> {
+                        IndexSearch search = buildIndexSearch.apply(indexName);
+                        if (search == null) {
+                            return CompletableFuture.<IndexSearch>completedFuture(null);
+                        }
+                        return executeIndexSearch.apply(search);
+                    }))
+                    .collect(Collectors.toList());
+
+                completeFut = CompletableFutureUtil
+                    .runParallel(searchSuppliers, this.config.maxConcurrentSearches)
+                    .thenAccept(UnCheckedConsumer.from((searches) -> {
+                        for (IndexSearch search : searches) {
+                            if (search != null) {
+                                processIndexSearch.accept(search);
+                            }
+                        }
+                    }));
             }
 
             return completeFut
@@ -1641,12 +2337,18 @@ public class Job {
                     newAttributeHits.set(updateInputAttributes(nextInputAttributes));
                     // Update hop count.
                     hop.incrementAndGet();
+                    if (this.config.stats != null) {
+                        this.config.stats.onHop(System.nanoTime() - hopStartTime);
+                    }
                     return null;
                 });
         };
 
         // Start timer and begin job
         final long startTime = System.nanoTime();
+        if (this.config.stats != null) {
+            this.config.stats.onJobStarted();
+        }
 
         Function<Void, CompletableFuture<Void>> traversalFunc = CompletableFutureUtil
             .recursiveLoopFunction(
@@ -1654,7 +2356,8 @@ public class Job {
                 UnCheckedSupplier.from(runTraversal)
             );
 
-        return traversalFunc.apply(null)
+        return loadDocValueFields()
+            .thenCompose(traversalFunc)
             .handle((res, err) -> {
                 // Format response
                 ResolutionResponse response = new ResolutionResponse();
@@ -1667,6 +2370,28 @@ public class Job {
                 response.includeQueries = this.config.includeQueries || this.config.profile;
                 response.error = err == null ? null : CompletableFutureUtil.getCause(err);
                 response.includeStackTrace = this.config.includeErrorTrace;
+                response.budgetExhausted = this.budget.isExhausted();
+
+                // End the NDJSON records with the summary.
+                if (this.config.resolutionStream != null) {
+                    try {
+                        this.config.resolutionStream.writeSummary(
+                            response.took,
+                            response.includeHits,
+                            response.budgetExhausted,
+                            response.error,
+                            response.includeStackTrace
+                        );
+                    } catch (IOException ex) {
+                        if (response.error == null) {
+                            response.error = ex;
+                        }
+                    }
+                }
+                if (this.config.stats != null) {
+                    int docs = this.docIds.values().stream().mapToInt(Set::size).sum();
+                    this.config.stats.onJobCompleted(response.took.toNanos(), hop.get(), docs, response.error != null);
+                }
                 return response;
             });
     }
@@ -1696,6 +2421,8 @@ public class Job {
      */
     public static class JobConfig {
         private Input input;
+        private boolean deltaHops = DEFAULT_DELTA_HOPS;
+        private boolean docValueFields = DEFAULT_DOC_VALUE_FIELDS;
         private boolean includeAttributes = DEFAULT_INCLUDE_ATTRIBUTES;
         private boolean includeErrorTrace = DEFAULT_INCLUDE_ERROR_TRACE;
         private boolean includeExplanation = DEFAULT_INCLUDE_EXPLANATION;
@@ -1705,9 +2432,19 @@ public class Job {
         private boolean includeSeqNoPrimaryTerm = DEFAULT_INCLUDE_SEQ_NO_PRIMARY_TERM;
         private boolean includeSource = DEFAULT_INCLUDE_SOURCE;
         private boolean includeVersion = DEFAULT_INCLUDE_VERSION;
+        private int maxConcurrentSearches = DEFAULT_MAX_CONCURRENT_SEARCHES;
         private int maxDocsPerQuery = DEFAULT_MAX_DOCS_PER_QUERY;
+        private int maxExcludedIds = DEFAULT_MAX_EXCLUDED_IDS;
+        private int maxDocs = DEFAULT_MAX_DOCS;
         private int maxHops = DEFAULT_MAX_HOPS;
+        private int maxQueries = DEFAULT_MAX_QUERIES;
+        private TimeValue maxTime = DEFAULT_MAX_TIME;
         private TimeValue maxTimePerQuery = DEFAULT_MAX_TIME_PER_QUERY;
+        private boolean multiSearch = DEFAULT_MULTI_SEARCH;
+        private TimeValue pageKeepAlive = DEFAULT_PAGE_KEEP_ALIVE;
+        // optional, buffers the results as NDJSON records instead of the response
+        private ResolutionStream resolutionStream;
+        private int pageSize = DEFAULT_PAGE_SIZE;
         private boolean profile = DEFAULT_PROFILE;
 
         // optional, nullable search parameters
@@ -1717,15 +2454,34 @@ public class Job {
         private Integer searchPreFilterShardSize = null;
         private String searchPreference = null;
         private Boolean searchRequestCache = null;
+
+        // optional, shared with the other jobs of a request
+        private SearchBatcher searchBatcher = null;
+
+        // optional, reports the progress of the job and stops it when cancelled
+        private ResolutionTask task = null;
+
+        // optional, the node-level stats that the job records into
+        private ResolutionStats stats = null;
     }
 
     /**
      * A builder for a {@link Job}.
      */
     public static class Builder {
-        private NodeClient client;
+        private Client client;
         private final JobConfig config = new JobConfig();
 
+        public Builder deltaHops(boolean deltaHops) {
+            this.config.deltaHops = deltaHops;
+            return this;
+        }
+
+        public Builder docValueFields(boolean docValueFields) {
+            this.config.docValueFields = docValueFields;
+            return this;
+        }
+
         public Builder includeAttributes(boolean includeAttributes) {
             this.config.includeAttributes = includeAttributes;
             return this;
@@ -1771,16 +2527,43 @@ public class Job {
             return this;
         }
 
+        public Builder maxConcurrentSearches(int maxConcurrentSearches) {
+            this.config.maxConcurrentSearches = maxConcurrentSearches;
+            return this;
+        }
+
         public Builder maxDocsPerQuery(int maxDocsPerQuery) {
             this.config.maxDocsPerQuery = maxDocsPerQuery;
             return this;
         }
 
+        public Builder maxExcludedIds(int maxExcludedIds) {
+            this.config.maxExcludedIds = maxExcludedIds;
+            return this;
+        }
+
+        public Builder maxDocs(int maxDocs) {
+            this.config.maxDocs = maxDocs;
+            return this;
+        }
+
         public Builder maxHops(int maxHops) {
             this.config.maxHops = maxHops;
             return this;
         }
 
+        public Builder maxQueries(int maxQueries) {
+            this.config.maxQueries = maxQueries;
+            return this;
+        }
+
+        public Builder maxTime(TimeValue maxTime) {
+            if (maxTime != null) {
+                this.config.maxTime = maxTime;
+            }
+            return this;
+        }
+
         public Builder maxTimePerQuery(TimeValue maxTimePerQuery) {
             if (maxTimePerQuery != null) {
                 this.config.maxTimePerQuery = maxTimePerQuery;
@@ -1788,11 +2571,33 @@ public class Job {
             return this;
         }
 
+        public Builder multiSearch(boolean multiSearch) {
+            this.config.multiSearch = multiSearch;
+            return this;
+        }
+
+        public Builder pageKeepAlive(TimeValue pageKeepAlive) {
+            if (pageKeepAlive != null) {
+                this.config.pageKeepAlive = pageKeepAlive;
+            }
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.config.pageSize = pageSize;
+            return this;
+        }
+
         public Builder profile(Boolean profile) {
             this.config.profile = profile;
             return this;
         }
 
+        public Builder resolutionStream(ResolutionStream resolutionStream) {
+            this.config.resolutionStream = resolutionStream;
+            return this;
+        }
+
         public Builder searchAllowPartialSearchResults(Boolean searchAllowPartialSearchResults) {
             this.config.searchAllowPartialSearchResults = searchAllowPartialSearchResults;
             return this;
@@ -1823,12 +2628,27 @@ public class Job {
             return this;
         }
 
+        public Builder searchBatcher(SearchBatcher searchBatcher) {
+            this.config.searchBatcher = searchBatcher;
+            return this;
+        }
+
         public Builder input(Input input) {
             this.config.input = input;
             return this;
         }
 
-        public Builder client(NodeClient client) {
+        public Builder task(ResolutionTask task) {
+            this.config.task = task;
+            return this;
+        }
+
+        public Builder stats(ResolutionStats stats) {
+            this.config.stats = stats;
+            return this;
+        }
+
+        public Builder client(Client client) {
             this.client = client;
             return this;
         }
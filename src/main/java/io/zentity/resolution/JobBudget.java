@@ -0,0 +1,94 @@
+package io.zentity.resolution;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The limits on the total time, docs and queries of a {@link Job}, across all of its hops.
+ * A negative limit means there is no limit.
+ *
+ * <p>
+ * Once any limit is reached, the budget is exhausted and stays so. Thread-safe, so that concurrent searches
+ * can share it.
+ */
+class JobBudget {
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private final int maxDocs;
+    private final int maxQueries;
+
+    private final AtomicInteger docs = new AtomicInteger(0);
+    private final AtomicInteger queries = new AtomicInteger(0);
+    private final AtomicBoolean exhausted = new AtomicBoolean(false);
+
+    /**
+     * Start a budget now.
+     *
+     * @param maxTime    The max total time, or a negative time for no limit.
+     * @param maxDocs    The max total docs, or a negative number for no limit.
+     * @param maxQueries The max total queries, or a negative number for no limit.
+     */
+    JobBudget(TimeValue maxTime, int maxDocs, int maxQueries) {
+        this.hasDeadline = maxTime != null && maxTime.nanos() >= 0;
+        this.deadlineNanos = this.hasDeadline ? System.nanoTime() + maxTime.nanos() : 0;
+        this.maxDocs = maxDocs;
+        this.maxQueries = maxQueries;
+    }
+
+    /**
+     * Take one query from the budget, if there is time and a query left.
+     *
+     * @return Whether the query can run.
+     */
+    boolean tryAcquireQuery() {
+        if (this.isExhausted()) {
+            return false;
+        }
+        if (this.maxQueries >= 0 && this.queries.incrementAndGet() > this.maxQueries) {
+            this.exhausted.set(true);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Take one doc from the budget, if there is a doc left.
+     *
+     * @return Whether the doc can be kept.
+     */
+    boolean tryAcquireDoc() {
+        if (this.maxDocs >= 0 && this.docs.incrementAndGet() > this.maxDocs) {
+            this.exhausted.set(true);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the time left before the deadline.
+     *
+     * @return The time left, or null if there is no deadline.
+     */
+    TimeValue remainingTime() {
+        if (!this.hasDeadline) {
+            return null;
+        }
+        long remainingNanos = Math.max(this.deadlineNanos - System.nanoTime(), 0);
+        return new TimeValue(TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+    }
+
+    /**
+     * Determine whether any of the limits was reached.
+     *
+     * @return Whether the budget is exhausted.
+     */
+    boolean isExhausted() {
+        if (!this.exhausted.get() && this.hasDeadline && System.nanoTime() - this.deadlineNanos >= 0) {
+            this.exhausted.set(true);
+        }
+        return this.exhausted.get();
+    }
+}
@@ -0,0 +1,186 @@
+package io.zentity.resolution;
+
+import io.zentity.model.Index;
+import io.zentity.model.IndexField;
+import io.zentity.model.Model;
+import io.zentity.model.Resolver;
+import io.zentity.resolution.input.Attribute;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The structures that a job derives from an entity model to decide which resolvers it can query on each index, and
+ * how to arrange their attributes in a query. They depend only on the model, so they are built once for each model
+ * and shared by every job that uses it. A job then only intersects them with the attributes that have values.
+ *
+ * <p>
+ * A plan of a model can be used with the model narrowed down to the scope of an input, as long as the job only asks
+ * about the indices and resolvers in its scope.
+ */
+public class ModelPlan {
+
+    // The number of sets of resolvers to keep the tiers and filter trees of. Past that, they are built on demand.
+    static final int MAX_RESOLVER_SETS = 1024;
+
+    /**
+     * The resolvers of one level of weight, and their attributes nested in a filter tree.
+     */
+    public static class Tier {
+        public final int weight;
+        public final List<String> resolvers;
+        public final FilterTree filterTree;
+
+        Tier(int weight, List<String> resolvers, FilterTree filterTree) {
+            this.weight = weight;
+            this.resolvers = resolvers;
+            this.filterTree = filterTree;
+        }
+    }
+
+    private final Model model;
+    // For each index, the resolvers whose every attribute is mapped to an index field that has a matcher.
+    private final Map<String, Set<String>> indexResolvers = new HashMap<>();
+    private final Map<List<String>, List<Tier>> tiers = new ConcurrentHashMap<>();
+    private final Map<List<String>, List<List<String>>> sortedResolverAttributes = new ConcurrentHashMap<>();
+    private final Map<List<String>, FilterTree> filterTrees = new ConcurrentHashMap<>();
+    // For each index, the index fields that can be read from their doc values, once a job has read the mappings.
+    private final Map<String, Set<String>> docValueFields = new ConcurrentHashMap<>();
+
+    public ModelPlan(Model model) {
+        this.model = model;
+        for (Map.Entry<String, Index> index : model.indices().entrySet()) {
+            // The attributes that are mapped to at least one index field that has a matcher.
+            Set<String> matchedAttributes = new HashSet<>();
+            for (Map.Entry<String, Map<String, IndexField>> attribute : index.getValue().attributeIndexFieldsMap().entrySet()) {
+                for (IndexField indexField : attribute.getValue().values()) {
+                    String matcherName = indexField.matcher();
+                    if (matcherName != null && model.matchers().get(matcherName) != null) {
+                        matchedAttributes.add(attribute.getKey());
+                        break;
+                    }
+                }
+            }
+            Set<String> resolvers = new HashSet<>();
+            for (Map.Entry<String, Resolver> resolver : model.resolvers().entrySet()) {
+                if (matchedAttributes.containsAll(resolver.getValue().attributes())) {
+                    resolvers.add(resolver.getKey());
+                }
+            }
+            this.indexResolvers.put(index.getKey(), resolvers);
+        }
+    }
+
+    /**
+     * @return The entity model of the plan.
+     */
+    public Model model() {
+        return this.model;
+    }
+
+    /**
+     * Determine if we can construct a query for a given resolver on a given index with a given input.
+     * Each attribute of the resolver must be mapped to a field of the index that has a matcher, and must have a value.
+     *
+     * @param indexName    The name of the index.
+     * @param resolverName The name of the resolver.
+     * @param attributes   The values for the input attributes.
+     * @return Boolean decision.
+     */
+    public boolean canQueryResolver(String indexName, String resolverName, Map<String, Attribute> attributes) {
+        if (!this.indexResolvers.get(indexName).contains(resolverName)) {
+            return false;
+        }
+        for (String attributeName : this.model.resolvers().get(resolverName).attributes()) {
+            Attribute attribute = attributes.get(attributeName);
+            if (attribute == null || attribute.values().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Group resolvers by their level of weight, and nest the attributes of each group in a filter tree.
+     * The filter trees are shared, so callers must not modify them.
+     *
+     * @param resolvers The names of the resolvers.
+     * @return The tiers in descending order of weight.
+     */
+    public List<Tier> tiers(List<String> resolvers) {
+        return memoize(this.tiers, resolvers, this::buildTiers);
+    }
+
+    /**
+     * Sort the attributes of each resolver in descending order by how many of the resolvers each attribute appears in,
+     * and secondarily in ascending order by the name of the attribute.
+     *
+     * @param resolvers The names of the resolvers.
+     * @return For each resolver, a list of attributes sorted first by priority and then lexicographically.
+     */
+    public List<List<String>> sortedResolverAttributes(List<String> resolvers) {
+        return memoize(this.sortedResolverAttributes, resolvers, (key) -> {
+            Map<String, Integer> counts = Job.countAttributesAcrossResolvers(this.model, key);
+            return Collections.unmodifiableList(Job.sortResolverAttributes(this.model, key, counts));
+        });
+    }
+
+    /**
+     * Nest the attributes of resolvers in a filter tree. The filter tree is shared, so callers must not modify it.
+     *
+     * @param resolvers The names of the resolvers.
+     * @return The attributes of the resolvers nested in a tree.
+     */
+    public FilterTree filterTree(List<String> resolvers) {
+        return memoize(this.filterTrees, resolvers, (key) -> Job.makeResolversFilterTree(sortedResolverAttributes(key)));
+    }
+
+    /**
+     * @param indexName The name of the index.
+     * @return The index fields of the index that can be read from their doc values, or null if they are not known.
+     */
+    public Set<String> docValueFields(String indexName) {
+        return this.docValueFields.get(indexName);
+    }
+
+    /**
+     * Keep the index fields of an index that can be read from their doc values, for the other jobs of the model.
+     *
+     * @param indexName The name of the index.
+     * @param fields    The index fields.
+     */
+    public void putDocValueFields(String indexName, Set<String> fields) {
+        this.docValueFields.put(indexName, Collections.unmodifiableSet(fields));
+    }
+
+    private List<Tier> buildTiers(List<String> resolvers) {
+        Map<Integer, List<String>> resolverGroups = Job.groupResolversByWeight(this.model, resolvers);
+        List<Tier> tiers = new ArrayList<>(resolverGroups.size());
+        for (Map.Entry<Integer, List<String>> group : resolverGroups.entrySet()) {
+            List<String> groupResolvers = Collections.unmodifiableList(group.getValue());
+            tiers.add(new Tier(group.getKey(), groupResolvers, filterTree(groupResolvers)));
+        }
+        Collections.reverse(tiers);
+        return Collections.unmodifiableList(tiers);
+    }
+
+    private <T> T memoize(Map<List<String>, T> memo, List<String> resolvers, Function<List<String>, T> builder) {
+        T value = memo.get(resolvers);
+        if (value != null) {
+            return value;
+        }
+        List<String> key = List.copyOf(resolvers);
+        value = builder.apply(key);
+        if (memo.size() < MAX_RESOLVER_SETS) {
+            memo.putIfAbsent(key, value);
+        }
+        return value;
+    }
+}
@@ -19,6 +19,8 @@ import java.util.List;
 public class ResolutionResponse {
     // took, in ms
     public Duration took;
+    // whether the job stopped early because it ran out of time, docs or queries
+    public boolean budgetExhausted = false;
     // into { total: number, hits }
     public List<JsonNode> hits = new ArrayList<>();
     // TODO: move to where the response is needed
@@ -78,6 +80,9 @@ public class ResolutionResponse {
             // encode 'took' in ms
             gen.writeFieldName("took");
             gen.writeNumber(value.took.toMillis());
+            if (value.budgetExhausted) {
+                gen.writeBooleanField("budget_exhausted", true);
+            }
             if (value.includeHits) {
                 // encode hits with the total
                 gen.writeObjectFieldStart("hits");
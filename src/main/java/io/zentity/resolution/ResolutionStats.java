@@ -0,0 +1,308 @@
+package io.zentity.resolution;
+
+import io.zentity.common.Histogram;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The node-level stats of resolution jobs. Jobs record into it concurrently, so every counter is a {@link LongAdder}
+ * and every distribution is a fixed-bucket {@link Histogram}.
+ */
+public class ResolutionStats {
+
+    // The number of indices to count the queries of. Past that, the queries are counted under OTHER_INDICES.
+    static final int MAX_INDICES = 1024;
+    static final String OTHER_INDICES = "_other";
+
+    private static final long[] HOPS_BOUNDS = {0, 1, 2, 3, 4, 5, 10, 20, 50, 100};
+    private static final long[] DOCS_BOUNDS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private final LongAdder jobsStarted = new LongAdder();
+    private final LongAdder jobsCompleted = new LongAdder();
+    private final LongAdder jobsFailed = new LongAdder();
+    private final Histogram jobMillis = new Histogram(Histogram.MILLIS_BOUNDS);
+    private final Histogram hopMillis = new Histogram(Histogram.MILLIS_BOUNDS);
+    private final Histogram searchMillis = new Histogram(Histogram.MILLIS_BOUNDS);
+    private final Histogram hopsPerJob = new Histogram(HOPS_BOUNDS);
+    private final Histogram docsPerJob = new Histogram(DOCS_BOUNDS);
+    private final Map<String, LongAdder> indexQueries = new ConcurrentHashMap<>();
+    private final LongAdder bulkRequests = new LongAdder();
+    private final LongAdder bulkItems = new LongAdder();
+    private final LongAdder bulkItemsFailed = new LongAdder();
+
+    /**
+     * Record that a job started.
+     */
+    public void onJobStarted() {
+        this.jobsStarted.increment();
+    }
+
+    /**
+     * Record that a job completed, whether or not it failed.
+     *
+     * @param tookNanos The time the job took.
+     * @param hops      The number of hops the job ran.
+     * @param docs      The number of docs the job found.
+     * @param failed    Whether the job failed.
+     */
+    public void onJobCompleted(long tookNanos, int hops, int docs, boolean failed) {
+        this.jobsCompleted.increment();
+        if (failed) {
+            this.jobsFailed.increment();
+        }
+        this.jobMillis.record(TimeUnit.NANOSECONDS.toMillis(tookNanos));
+        this.hopsPerJob.record(hops);
+        this.docsPerJob.record(docs);
+    }
+
+    /**
+     * Record that a job completed a hop.
+     *
+     * @param tookNanos The time the hop took.
+     */
+    public void onHop(long tookNanos) {
+        this.hopMillis.record(TimeUnit.NANOSECONDS.toMillis(tookNanos));
+    }
+
+    /**
+     * Record that a job submitted a query to an index.
+     *
+     * @param indexName The name of the index.
+     */
+    public void onQuery(String indexName) {
+        LongAdder queries = this.indexQueries.get(indexName);
+        if (queries == null) {
+            String key = this.indexQueries.size() < MAX_INDICES ? indexName : OTHER_INDICES;
+            queries = this.indexQueries.computeIfAbsent(key, (k) -> new LongAdder());
+        }
+        queries.increment();
+    }
+
+    /**
+     * Record that a search completed, whether or not it failed.
+     *
+     * @param tookNanos The time the search took, including the time it waited in a batch.
+     */
+    public void onSearch(long tookNanos) {
+        this.searchMillis.record(TimeUnit.NANOSECONDS.toMillis(tookNanos));
+    }
+
+    /**
+     * Record that a bulk request started.
+     */
+    public void onBulkRequest() {
+        this.bulkRequests.increment();
+    }
+
+    /**
+     * Record that an item of a bulk request completed.
+     *
+     * @param failed Whether the job of the item failed.
+     */
+    public void onBulkItem(boolean failed) {
+        this.bulkItems.increment();
+        if (failed) {
+            this.bulkItemsFailed.increment();
+        }
+    }
+
+    /**
+     * @return The current values of the stats.
+     */
+    public Snapshot snapshot() {
+        Map<String, Long> indexQueries = new TreeMap<>();
+        this.indexQueries.forEach((indexName, queries) -> indexQueries.put(indexName, queries.sum()));
+        return new Snapshot(
+            this.jobsStarted.sum(),
+            this.jobsCompleted.sum(),
+            this.jobsFailed.sum(),
+            this.jobMillis.snapshot(),
+            this.hopMillis.snapshot(),
+            this.searchMillis.snapshot(),
+            this.hopsPerJob.snapshot(),
+            this.docsPerJob.snapshot(),
+            indexQueries,
+            this.bulkRequests.sum(),
+            this.bulkItems.sum(),
+            this.bulkItemsFailed.sum()
+        );
+    }
+
+    /**
+     * The values of the stats at one point in time.
+     */
+    public static class Snapshot implements Writeable, ToXContentFragment {
+
+        private final long jobsStarted;
+        private final long jobsCompleted;
+        private final long jobsFailed;
+        private final Histogram.Snapshot jobMillis;
+        private final Histogram.Snapshot hopMillis;
+        private final Histogram.Snapshot searchMillis;
+        private final Histogram.Snapshot hopsPerJob;
+        private final Histogram.Snapshot docsPerJob;
+        private final Map<String, Long> indexQueries;
+        private final long bulkRequests;
+        private final long bulkItems;
+        private final long bulkItemsFailed;
+
+        Snapshot(
+            long jobsStarted,
+            long jobsCompleted,
+            long jobsFailed,
+            Histogram.Snapshot jobMillis,
+            Histogram.Snapshot hopMillis,
+            Histogram.Snapshot searchMillis,
+            Histogram.Snapshot hopsPerJob,
+            Histogram.Snapshot docsPerJob,
+            Map<String, Long> indexQueries,
+            long bulkRequests,
+            long bulkItems,
+            long bulkItemsFailed
+        ) {
+            this.jobsStarted = jobsStarted;
+            this.jobsCompleted = jobsCompleted;
+            this.jobsFailed = jobsFailed;
+            this.jobMillis = jobMillis;
+            this.hopMillis = hopMillis;
+            this.searchMillis = searchMillis;
+            this.hopsPerJob = hopsPerJob;
+            this.docsPerJob = docsPerJob;
+            this.indexQueries = indexQueries;
+            this.bulkRequests = bulkRequests;
+            this.bulkItems = bulkItems;
+            this.bulkItemsFailed = bulkItemsFailed;
+        }
+
+        public Snapshot(StreamInput in) throws IOException {
+            this.jobsStarted = in.readVLong();
+            this.jobsCompleted = in.readVLong();
+            this.jobsFailed = in.readVLong();
+            this.jobMillis = new Histogram.Snapshot(in);
+            this.hopMillis = new Histogram.Snapshot(in);
+            this.searchMillis = new Histogram.Snapshot(in);
+            this.hopsPerJob = new Histogram.Snapshot(in);
+            this.docsPerJob = new Histogram.Snapshot(in);
+            this.indexQueries = new TreeMap<>(in.readMap(StreamInput::readString, StreamInput::readVLong));
+            this.bulkRequests = in.readVLong();
+            this.bulkItems = in.readVLong();
+            this.bulkItemsFailed = in.readVLong();
+        }
+
+        public long jobsStarted() {
+            return this.jobsStarted;
+        }
+
+        public long jobsCompleted() {
+            return this.jobsCompleted;
+        }
+
+        public long jobsFailed() {
+            return this.jobsFailed;
+        }
+
+        public Histogram.Snapshot jobMillis() {
+            return this.jobMillis;
+        }
+
+        public Histogram.Snapshot hopMillis() {
+            return this.hopMillis;
+        }
+
+        public Histogram.Snapshot searchMillis() {
+            return this.searchMillis;
+        }
+
+        public Histogram.Snapshot hopsPerJob() {
+            return this.hopsPerJob;
+        }
+
+        public Histogram.Snapshot docsPerJob() {
+            return this.docsPerJob;
+        }
+
+        public Map<String, Long> indexQueries() {
+            return this.indexQueries;
+        }
+
+        public long bulkRequests() {
+            return this.bulkRequests;
+        }
+
+        public long bulkItems() {
+            return this.bulkItems;
+        }
+
+        public long bulkItemsFailed() {
+            return this.bulkItemsFailed;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(this.jobsStarted);
+            out.writeVLong(this.jobsCompleted);
+            out.writeVLong(this.jobsFailed);
+            this.jobMillis.writeTo(out);
+            this.hopMillis.writeTo(out);
+            this.searchMillis.writeTo(out);
+            this.hopsPerJob.writeTo(out);
+            this.docsPerJob.writeTo(out);
+            out.writeMap(this.indexQueries, StreamOutput::writeString, StreamOutput::writeVLong);
+            out.writeVLong(this.bulkRequests);
+            out.writeVLong(this.bulkItems);
+            out.writeVLong(this.bulkItemsFailed);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject("jobs");
+            builder.field("started", this.jobsStarted);
+            builder.field("completed", this.jobsCompleted);
+            builder.field("failed", this.jobsFailed);
+            builder.startObject("took_in_millis");
+            this.jobMillis.toXContent(builder, params);
+            builder.endObject();
+            builder.startObject("hops");
+            this.hopsPerJob.toXContent(builder, params);
+            builder.endObject();
+            builder.startObject("docs");
+            this.docsPerJob.toXContent(builder, params);
+            builder.endObject();
+            builder.endObject();
+
+            builder.startObject("hops");
+            builder.startObject("took_in_millis");
+            this.hopMillis.toXContent(builder, params);
+            builder.endObject();
+            builder.endObject();
+
+            builder.startObject("searches");
+            builder.startObject("took_in_millis");
+            this.searchMillis.toXContent(builder, params);
+            builder.endObject();
+            builder.startObject("queries_by_index");
+            for (Map.Entry<String, Long> entry : this.indexQueries.entrySet()) {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+            builder.endObject();
+            builder.endObject();
+
+            builder.startObject("bulk");
+            builder.field("requests", this.bulkRequests);
+            builder.field("items", this.bulkItems);
+            builder.field("failed_items", this.bulkItemsFailed);
+            builder.endObject();
+            return builder;
+        }
+    }
+}
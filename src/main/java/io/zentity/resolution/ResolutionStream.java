@@ -0,0 +1,145 @@
+package io.zentity.resolution;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.zentity.common.Json;
+import io.zentity.common.SecurityUtil;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Buffers the results of a {@link Job} as NDJSON records, which are sent as the body of the response once the job
+ * finishes. Each record is a single line:
+ *
+ * <ul>
+ *     <li>{@code {"query":{...}}} for each logged query, if queries are included</li>
+ *     <li>{@code {"hits":{"_hop":0,"_query":0,"_index":"...","hits":[...]}}} for each query that found new docs</li>
+ *     <li>{@code {"summary":{"took":0,"budget_exhausted":true,"hits":{"total":0},"error":{...}}}} once the job is done</li>
+ * </ul>
+ *
+ * The hits of a query are serialized as soon as the query is read, so the job no longer holds their documents as
+ * JSON trees. The records are still buffered in memory until the job finishes, since responses cannot be sent in
+ * chunks. So the "stream" mode only changes the format of the response: it does not lower the time to the first hit
+ * or the memory use of a job.
+ */
+public class ResolutionStream {
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    static final byte NEW_LINE = '\n';
+
+    private final BytesStreamOutput out = new BytesStreamOutput();
+    private int total = 0;
+
+    /**
+     * Write the record of a query.
+     *
+     * @param query The logged query.
+     * @throws IOException If the query cannot be written.
+     */
+    synchronized void writeQuery(LoggedQuery query) throws IOException {
+        writeRecord((gen) -> {
+            gen.writeFieldName("query");
+            gen.writeObject(query);
+        });
+    }
+
+    /**
+     * Write the record of the new docs found by a query.
+     *
+     * @param hop         The hop of the query.
+     * @param queryNumber The number of the query.
+     * @param indexName   The index of the query.
+     * @param hits        The new docs.
+     * @throws IOException If the hits cannot be written.
+     */
+    synchronized void writeHits(int hop, int queryNumber, String indexName, List<JsonNode> hits) throws IOException {
+        writeRecord((gen) -> {
+            gen.writeObjectFieldStart("hits");
+            gen.writeNumberField("_hop", hop);
+            gen.writeNumberField("_query", queryNumber);
+            gen.writeStringField("_index", indexName);
+            gen.writeArrayFieldStart("hits");
+            for (JsonNode hit : hits) {
+                gen.writeTree(hit);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+        total += hits.size();
+    }
+
+    /**
+     * Write the summary record, which is always the last record.
+     *
+     * @param took              How long the job took.
+     * @param includeHits       Whether to write the total of the hits.
+     * @param budgetExhausted   Whether the job stopped early because it ran out of time, docs or queries.
+     * @param error             The error that stopped the job, if any.
+     * @param includeStackTrace Whether to write the stack trace of the error.
+     * @throws IOException If the summary cannot be written.
+     */
+    synchronized void writeSummary(Duration took, boolean includeHits, boolean budgetExhausted, Throwable error, boolean includeStackTrace) throws IOException {
+        writeRecord((gen) -> {
+            gen.writeObjectFieldStart("summary");
+            gen.writeNumberField("took", took.toMillis());
+            if (budgetExhausted) {
+                gen.writeBooleanField("budget_exhausted", true);
+            }
+            if (includeHits) {
+                gen.writeObjectFieldStart("hits");
+                gen.writeNumberField("total", total);
+                gen.writeEndObject();
+            }
+            if (error != null) {
+                gen.writeFieldName("error");
+                ResolutionResponse.Serializer.serializeException(error, includeStackTrace, gen);
+            }
+            gen.writeEndObject();
+        });
+    }
+
+    /**
+     * Get the records written so far.
+     *
+     * @return The NDJSON bytes.
+     */
+    public synchronized BytesReference bytes() {
+        return out.bytes();
+    }
+
+    @FunctionalInterface
+    interface RecordWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    /**
+     * Serialize a record as a JSON object.
+     *
+     * @param recordWriter Writes the fields of the record.
+     * @return The bytes of the record, without the trailing newline.
+     * @throws IOException If the record cannot be written.
+     */
+    static byte[] serializeRecord(RecordWriter recordWriter) throws IOException {
+        // Jackson needs reflection access, which requires escalated security
+        return SecurityUtil.doPrivileged((CheckedSupplier<byte[], ?>) () -> {
+            try (BytesStreamOutput recordOut = new BytesStreamOutput();
+                 JsonGenerator gen = Json.MAPPER.getFactory().createGenerator(recordOut)) {
+                gen.writeStartObject();
+                recordWriter.write(gen);
+                gen.writeEndObject();
+                gen.flush();
+                return BytesReference.toBytes(recordOut.bytes());
+            }
+        });
+    }
+
+    private void writeRecord(RecordWriter recordWriter) throws IOException {
+        out.writeBytes(serializeRecord(recordWriter));
+        out.writeByte(NEW_LINE);
+    }
+}
@@ -0,0 +1,174 @@
+package io.zentity.resolution;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskId;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The task of a resolution request, which runs one job, or every job of a bulk request. It is listed by the task
+ * management API with the progress of its jobs, and can be cancelled with the task management API or by closing the
+ * connection of the request. The searches of its jobs are its child tasks, so they are cancelled with it, and its
+ * jobs stop before their next query.
+ */
+public class ResolutionTask extends CancellableTask {
+
+    private final AtomicInteger hop = new AtomicInteger();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder docs = new LongAdder();
+    private final LongAdder jobs = new LongAdder();
+
+    public ResolutionTask(long id, String type, String action, String description, TaskId parentTaskId, Map<String, String> headers) {
+        super(id, type, action, description, parentTaskId, headers);
+    }
+
+    @Override
+    public boolean shouldCancelChildrenOnCancellation() {
+        return true;
+    }
+
+    /**
+     * Throw if the task was cancelled, so that a job stops at the point where it checks.
+     *
+     * @throws TaskCancelledException If the task was cancelled.
+     */
+    public void ensureNotCancelled() {
+        if (isCancelled()) {
+            throw new TaskCancelledException("The resolution was cancelled: " + getReasonCancelled());
+        }
+    }
+
+    /**
+     * Record that a job started a hop. The task reports the furthest hop of its jobs.
+     *
+     * @param hop The number of the hop.
+     */
+    void onHop(int hop) {
+        this.hop.accumulateAndGet(hop, Math::max);
+    }
+
+    /**
+     * Record that a job submitted a query.
+     */
+    void onQuery() {
+        this.queries.increment();
+    }
+
+    /**
+     * Record that a job found a doc that it had not found before.
+     */
+    void onDoc() {
+        this.docs.increment();
+    }
+
+    /**
+     * Record that a job completed.
+     */
+    public void onJobCompleted() {
+        this.jobs.increment();
+    }
+
+    @Override
+    public Status getStatus() {
+        return new Status(this.hop.get(), this.queries.sum(), this.docs.sum(), this.jobs.sum());
+    }
+
+    /**
+     * The progress of the jobs of a resolution task.
+     */
+    public static class Status implements Task.Status {
+
+        public static final String NAME = "zentity_resolution";
+
+        private final int hop;
+        private final long queries;
+        private final long docs;
+        private final long jobs;
+
+        public Status(int hop, long queries, long docs, long jobs) {
+            this.hop = hop;
+            this.queries = queries;
+            this.docs = docs;
+            this.jobs = jobs;
+        }
+
+        public Status(StreamInput in) throws IOException {
+            this.hop = in.readVInt();
+            this.queries = in.readVLong();
+            this.docs = in.readVLong();
+            this.jobs = in.readVLong();
+        }
+
+        public int hop() {
+            return this.hop;
+        }
+
+        public long queries() {
+            return this.queries;
+        }
+
+        public long docs() {
+            return this.docs;
+        }
+
+        public long jobs() {
+            return this.jobs;
+        }
+
+        @Override
+        public String getWriteableName() {
+            return NAME;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(this.hop);
+            out.writeVLong(this.queries);
+            out.writeVLong(this.docs);
+            out.writeVLong(this.jobs);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("hop", this.hop);
+            builder.field("queries", this.queries);
+            builder.field("docs", this.docs);
+            builder.field("jobs_completed", this.jobs);
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Status status = (Status) o;
+            return hop == status.hop && queries == status.queries && docs == status.docs && jobs == status.jobs;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hop, queries, docs, jobs);
+        }
+
+        @Override
+        public String toString() {
+            return Strings.toString(this);
+        }
+    }
+}
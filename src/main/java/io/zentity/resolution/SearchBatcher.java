@@ -0,0 +1,142 @@
+package io.zentity.resolution;
+
+import io.zentity.common.ActionRequestUtil;
+import org.elasticsearch.action.search.MultiSearchAction;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects the searches submitted by many {@link Job Jobs} and sends them together as multi search requests.
+ * A batch is flushed once it holds {@code maxBatchSize} searches, or once the first search in it has waited
+ * for {@code linger}, whichever comes first. Each response is routed back to the future of the search that
+ * requested it.
+ *
+ * <p>
+ * Meant to be shared by the jobs of a single request, e.g. a bulk resolution request.
+ */
+public class SearchBatcher {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final TimeValue DEFAULT_LINGER = TimeValue.timeValueMillis(5);
+
+    private final Client client;
+    private final int maxBatchSize;
+    private final TimeValue linger;
+
+    // Guarded by "this".
+    private List<PendingSearch> batch = new ArrayList<>();
+    private Scheduler.ScheduledCancellable scheduledFlush;
+
+    /**
+     * A search waiting to be sent, and the future to complete with its response.
+     */
+    private static class PendingSearch {
+        final SearchRequestBuilder searchRequest;
+        final CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+
+        PendingSearch(SearchRequestBuilder searchRequest) {
+            this.searchRequest = searchRequest;
+        }
+    }
+
+    public SearchBatcher(Client client, int maxBatchSize, TimeValue linger) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Cannot have a max batch size less than 1");
+        }
+        this.client = client;
+        this.maxBatchSize = maxBatchSize;
+        this.linger = linger;
+    }
+
+    public int maxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    public TimeValue linger() {
+        return this.linger;
+    }
+
+    /**
+     * Add a search to the current batch.
+     *
+     * @param searchRequest The search to run.
+     * @return A future that completes with the response of the search, or exceptionally with its failure.
+     */
+    public CompletableFuture<SearchResponse> submit(SearchRequestBuilder searchRequest) {
+        PendingSearch pending = new PendingSearch(searchRequest);
+        List<PendingSearch> fullBatch = null;
+        synchronized (this) {
+            batch.add(pending);
+            if (batch.size() >= maxBatchSize || linger.millis() <= 0) {
+                fullBatch = takeBatch();
+            } else if (scheduledFlush == null) {
+                // Flush on the generic pool rather than the scheduler thread, which every timer of the node shares.
+                // The search pool would reject the flush when its queue is full, which would strand the batch.
+                scheduledFlush = client.threadPool().schedule(this::flush, linger, ThreadPool.Names.GENERIC);
+            }
+        }
+        if (fullBatch != null) {
+            send(fullBatch);
+        }
+        return pending.future;
+    }
+
+    /**
+     * Send all the searches that are waiting, if any.
+     */
+    public void flush() {
+        List<PendingSearch> pendingBatch;
+        synchronized (this) {
+            pendingBatch = takeBatch();
+        }
+        send(pendingBatch);
+    }
+
+    private List<PendingSearch> takeBatch() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel();
+            scheduledFlush = null;
+        }
+        List<PendingSearch> taken = batch;
+        batch = new ArrayList<>();
+        return taken;
+    }
+
+    private void send(List<PendingSearch> pendingBatch) {
+        if (pendingBatch.isEmpty()) {
+            return;
+        }
+
+        MultiSearchRequestBuilder multiSearchReqBuilder = new MultiSearchRequestBuilder(client, MultiSearchAction.INSTANCE);
+        for (PendingSearch pending : pendingBatch) {
+            multiSearchReqBuilder.add(pending.searchRequest);
+        }
+
+        ActionRequestUtil
+            .toCompletableFuture(multiSearchReqBuilder)
+            .whenComplete((multiResponse, throwable) -> {
+                if (throwable != null) {
+                    pendingBatch.forEach((pending) -> pending.future.completeExceptionally(throwable));
+                    return;
+                }
+                MultiSearchResponse.Item[] items = multiResponse.getResponses();
+                for (int i = 0; i < pendingBatch.size(); i++) {
+                    PendingSearch pending = pendingBatch.get(i);
+                    if (items[i].isFailure()) {
+                        pending.future.completeExceptionally(items[i].getFailure());
+                    } else {
+                        pending.future.complete(items[i].getResponse());
+                    }
+                }
+            });
+    }
+}
@@ -0,0 +1,172 @@
+package io.zentity.resolution;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.zentity.common.Json;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the parts of a {@link SearchHit} that a {@link Job} needs straight from the hit, rather than serializing
+ * the whole search response and parsing it back.
+ *
+ * <p>
+ * An instance is built from the {@link JsonPointer} paths of an index's fields and only materializes the parts of the
+ * "_source" that lie on those paths. Everything else in the "_source" is skipped by the streaming parser.
+ */
+class SearchHitParser {
+
+    private static final JsonNodeFactory NODE_FACTORY = Json.ORDERED_MAPPER.getNodeFactory();
+
+    // the next path segments to follow from this point in the "_source"
+    private final Map<String, SearchHitParser> children = new HashMap<>();
+    // whether a path ends here, in which case the whole value is kept
+    private boolean terminal = false;
+
+    /**
+     * Build a parser that keeps the values found at any of the given paths.
+     *
+     * @param paths The paths to keep. Null paths are ignored.
+     */
+    SearchHitParser(Collection<JsonPointer> paths) {
+        for (JsonPointer path : paths) {
+            if (path != null) {
+                this.addPath(path);
+            }
+        }
+    }
+
+    private SearchHitParser() {
+    }
+
+    private void addPath(JsonPointer path) {
+        if (path.matches()) {
+            this.terminal = true;
+            return;
+        }
+        this.children
+            .computeIfAbsent(path.getMatchingProperty(), (segment) -> new SearchHitParser())
+            .addPath(path.tail());
+    }
+
+    /**
+     * Parse the "_source" of a hit, keeping only the values on the paths of this parser. Arrays are kept whole, so any
+     * {@link JsonPointer} on these paths resolves to the same value it would on the full "_source".
+     *
+     * @param source The "_source" of a hit. Can be null.
+     * @return The limited "_source", or null if the hit has no "_source".
+     * @throws IOException If the "_source" cannot be parsed.
+     */
+    JsonNode parseSource(BytesReference source) throws IOException {
+        if (source == null) {
+            return null;
+        }
+        if (XContentHelper.xContentType(source) != XContentType.JSON) {
+            return parseFullSource(source);
+        }
+        try (InputStream stream = source.streamInput(); JsonParser parser = Json.ORDERED_MAPPER.getFactory().createParser(stream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Json.ORDERED_MAPPER.readTree(parser);
+            }
+            return this.parseObject(parser);
+        }
+    }
+
+    /**
+     * Parse the fields of an object with the parser positioned on its start, and leave the parser on its end.
+     */
+    private ObjectNode parseObject(JsonParser parser) throws IOException {
+        ObjectNode objNode = NODE_FACTORY.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            SearchHitParser child = this.children.get(fieldName);
+            if (child == null) {
+                parser.skipChildren();
+            } else if (!child.terminal && valueToken == JsonToken.START_OBJECT) {
+                objNode.set(fieldName, child.parseObject(parser));
+            } else {
+                objNode.set(fieldName, Json.ORDERED_MAPPER.readTree(parser));
+            }
+        }
+        return objNode;
+    }
+
+    /**
+     * Parse the entire "_source" of a hit.
+     *
+     * @param source The "_source" of a hit. Can be null.
+     * @return The "_source", or null if the hit has no "_source".
+     * @throws IOException If the "_source" cannot be parsed.
+     */
+    static JsonNode parseFullSource(BytesReference source) throws IOException {
+        if (source == null) {
+            return null;
+        }
+        XContentType xContentType = XContentHelper.xContentType(source);
+        if (xContentType != XContentType.JSON) {
+            return Json.ORDERED_MAPPER.readTree(XContentHelper.convertToJson(source, false, false, xContentType));
+        }
+        try (InputStream stream = source.streamInput()) {
+            return Json.ORDERED_MAPPER.readTree(stream);
+        }
+    }
+
+    /**
+     * Convert the values of a {@link DocumentField} to the array node that parsing its JSON rendering would give.
+     *
+     * @param values The values.
+     * @return The array node.
+     */
+    static JsonNode arrayNode(List<Object> values) {
+        return NODE_FACTORY.arrayNode(values.size()).addAll(
+            values.stream().map(SearchHitParser::valueNode).collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Convert a single value of a {@link DocumentField} or a metadata field. Numbers are narrowed the same way as
+     * when Jackson parses JSON, so that values compare the same way they did when they were parsed.
+     *
+     * @param value The value.
+     * @return The value node.
+     */
+    static JsonNode valueNode(Object value) {
+        if (value == null) {
+            return NODE_FACTORY.nullNode();
+        } else if (value instanceof String) {
+            return NODE_FACTORY.textNode((String) value);
+        } else if (value instanceof Boolean) {
+            return NODE_FACTORY.booleanNode((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return NODE_FACTORY.numberNode(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            long longValue = (Long) value;
+            if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                return NODE_FACTORY.numberNode((int) longValue);
+            }
+            return NODE_FACTORY.numberNode(longValue);
+        } else if (value instanceof Float) {
+            // Floats are rendered with their shortest representation and parsed back as doubles.
+            return NODE_FACTORY.numberNode(Double.parseDouble(value.toString()));
+        } else if (value instanceof Double) {
+            return NODE_FACTORY.numberNode((Double) value);
+        }
+        return Json.ORDERED_MAPPER.valueToTree(value);
+    }
+}
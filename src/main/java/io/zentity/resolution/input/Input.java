@@ -7,6 +7,7 @@ import io.zentity.common.Patterns;
 import io.zentity.model.Index;
 import io.zentity.model.Model;
 import io.zentity.model.ValidationException;
+import io.zentity.resolution.ModelPlan;
 import io.zentity.resolution.input.scope.Scope;
 
 import java.io.IOException;
@@ -21,6 +22,7 @@ public class Input {
     private Map<String, Attribute> attributes = new TreeMap<>();
     private Map<String, Set<String>> ids = new TreeMap<>();
     private Model model;
+    private ModelPlan plan;
     private final Scope scope = new Scope();
     private Set<Term> terms = new TreeSet<>();
 
@@ -29,6 +31,18 @@ public class Input {
         this.deserialize(json);
     }
 
+    /**
+     * Read an input for a shared entity model, and keep the plan of the model for the job.
+     *
+     * @param json The input.
+     * @param plan The plan of the entity model.
+     */
+    public Input(String json, ModelPlan plan) throws ValidationException, IOException {
+        this.model = plan.model();
+        this.plan = plan;
+        this.deserialize(json);
+    }
+
     public Input(JsonNode json) throws ValidationException, IOException {
         this.deserialize(json);
     }
@@ -42,7 +56,7 @@ public class Input {
      *
      * @param model   The entity model.
      * @param indices Names of indices from "scope.exclude.indices" to exclude in the entity model.
-     * @return Updated entity model.
+     * @return The entity model with the scope applied, which shares everything else with the given model.
      * @throws ValidationException
      */
     private static Model excludeIndices(Model model, Set<String> indices) throws ValidationException {
@@ -52,8 +66,8 @@ public class Input {
                     continue;
                 if (!model.indices().containsKey(index))
                     throw new ValidationException("'" + index + "' is not in the 'indices' field of the entity model.");
-                model.indices().remove(index);
             }
+            return model.withoutIndices(indices);
         }
         return model;
     }
@@ -63,7 +77,7 @@ public class Input {
      *
      * @param model   The entity model.
      * @param indices Names of indices from "scope.include.indices" to include in the entity model.
-     * @return Updated entity model.
+     * @return The entity model with the scope applied, which shares everything else with the given model.
      * @throws ValidationException
      */
     public static Model includeIndices(Model model, Set<String> indices) throws ValidationException {
@@ -74,7 +88,7 @@ public class Input {
                 if (!model.indices().containsKey(index))
                     throw new ValidationException("'" + index + "' is not in the 'indices' field of the entity model.");
             }
-            model.indices().keySet().retainAll(indices);
+            return model.withIndices(indices);
         }
         return model;
     }
@@ -84,7 +98,7 @@ public class Input {
      *
      * @param model     The entity model.
      * @param resolvers Names of resolvers from "scope.exclude.resolvers" to exclude in the entity model.
-     * @return Updated entity model.
+     * @return The entity model with the scope applied, which shares everything else with the given model.
      * @throws ValidationException
      */
     private static Model excludeResolvers(Model model, Set<String> resolvers) throws ValidationException {
@@ -94,8 +108,8 @@ public class Input {
                     continue;
                 if (!model.resolvers().containsKey(resolver))
                     throw new ValidationException("'" + resolver + "' is not in the 'resolvers' field of the entity model.");
-                model.resolvers().remove(resolver);
             }
+            return model.withoutResolvers(resolvers);
         }
         return model;
     }
@@ -105,7 +119,7 @@ public class Input {
      *
      * @param model     The entity model.
      * @param resolvers Names of resolvers from "scope.include.resolvers" to include in the entity model.
-     * @return Updated entity model.
+     * @return The entity model with the scope applied, which shares everything else with the given model.
      */
     public static Model includeResolvers(Model model, Set<String> resolvers) {
         if (!resolvers.isEmpty()) {
@@ -117,7 +131,7 @@ public class Input {
                     throw new ValidationException("'" + resolver + "' is not in the 'resolvers' field of the entity model.");
                 }
             }
-            model.resolvers().keySet().retainAll(resolvers);
+            return model.withResolvers(resolvers);
         }
         return model;
     }
@@ -259,6 +273,13 @@ public class Input {
         return this.model;
     }
 
+    /**
+     * @return The plan of the entity model, or null if the model is not shared.
+     */
+    public ModelPlan plan() {
+        return this.plan;
+    }
+
     public Scope scope() {
         return this.scope;
     }
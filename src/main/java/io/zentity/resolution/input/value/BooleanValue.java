@@ -1,27 +1,34 @@
 package io.zentity.resolution.input.value;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import io.zentity.model.ValidationException;
 
 public class BooleanValue extends Value {
 
     public final String type = "boolean";
 
+    private final boolean isNull;
+    private final boolean booleanValue;
+
     public BooleanValue(JsonNode value) throws ValidationException {
         super(value);
+        this.isNull = value.isNull();
+        this.booleanValue = value.booleanValue();
     }
 
     /**
-     * Serialize the attribute value from a JsonNode object to a String object.
+     * Serialize the attribute value to a String object.
      *
      * @return
      */
     @Override
-    public String serialize(JsonNode value) {
-        if (value.isNull()) {
+    public String serialize() {
+        if (this.isNull) {
             return "null";
         }
-        return value.asText();
+        return String.valueOf(this.booleanValue);
     }
 
     /**
@@ -37,4 +44,23 @@ public class BooleanValue extends Value {
         }
     }
 
+    @Override
+    public JsonNode value() {
+        return this.isNull ? NullNode.getInstance() : BooleanNode.valueOf(this.booleanValue);
+    }
+
+    @Override
+    protected int compareToSameType(Value o) {
+        BooleanValue other = (BooleanValue) o;
+        if (this.isNull || other.isNull) {
+            return Boolean.compare(!this.isNull, !other.isNull);
+        }
+        return Boolean.compare(this.booleanValue, other.booleanValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.isNull ? 0 : Boolean.hashCode(this.booleanValue);
+    }
+
 }
@@ -1,32 +1,76 @@
 package io.zentity.resolution.input.value;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import io.zentity.model.ValidationException;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A number, held as a long when it is a whole number within the range of a long, as a BigInteger when it is a
+ * larger whole number, and as a double otherwise. Numbers are equal when their values are equal, so 1 and 1.0 are
+ * the same value, though each is serialized the way it was given.
+ */
 public class NumberValue extends Value {
 
     public final String type = "number";
 
+    private static final double MIN_LONG = -0x1p63;
+    private static final double MAX_LONG = 0x1p63;
+
+    private final boolean isNull;
+    // whether the number was given as a floating point number, which is serialized as a double
+    private final boolean isFloatingPoint;
+    private final double doubleValue;
+    // whether the number is a whole number within the range of a long
+    private final boolean isLong;
+    private final long longValue;
+    // the number if it is a whole number outside of the range of a long, otherwise null
+    private final BigInteger bigIntegerValue;
+
     public NumberValue(JsonNode value) throws ValidationException {
         super(value);
+        this.isNull = value.isNull();
+        this.isFloatingPoint = value.isFloatingPointNumber();
+        this.doubleValue = value.doubleValue();
+        if (this.isNull) {
+            this.isLong = false;
+            this.longValue = 0;
+            this.bigIntegerValue = null;
+        } else if (!this.isFloatingPoint) {
+            this.isLong = value.canConvertToLong();
+            this.longValue = this.isLong ? value.longValue() : 0;
+            this.bigIntegerValue = this.isLong ? null : value.bigIntegerValue();
+        } else if (this.doubleValue == Math.rint(this.doubleValue) && !Double.isInfinite(this.doubleValue)) {
+            this.isLong = this.doubleValue >= MIN_LONG && this.doubleValue < MAX_LONG;
+            this.longValue = this.isLong ? (long) this.doubleValue : 0;
+            this.bigIntegerValue = this.isLong ? null : new BigDecimal(this.doubleValue).toBigInteger();
+        } else {
+            this.isLong = false;
+            this.longValue = 0;
+            this.bigIntegerValue = null;
+        }
     }
 
     /**
-     * Serialize the attribute value from a JsonNode object to a String object.
+     * Serialize the attribute value to a String object.
      *
      * @return
      */
     @Override
-    public String serialize(JsonNode value) {
-        if (value.isNull()) {
+    public String serialize() {
+        if (this.isNull) {
             return "null";
-        } else if (value.isIntegralNumber()) {
-            return value.bigIntegerValue().toString();
-        } else if (value.isFloatingPointNumber()) {
-            return String.valueOf(value.doubleValue());
+        } else if (this.isFloatingPoint) {
+            return String.valueOf(this.doubleValue);
+        } else if (this.isLong) {
+            return String.valueOf(this.longValue);
         }
-
-        return value.numberValue().toString();
+        return this.bigIntegerValue.toString();
     }
 
     /**
@@ -41,4 +85,53 @@ public class NumberValue extends Value {
             throw new ValidationException("Expected '" + this.type + "' attribute data type.");
         }
     }
+
+    @Override
+    public JsonNode value() {
+        if (this.isNull) {
+            return NullNode.getInstance();
+        } else if (this.isFloatingPoint) {
+            return DoubleNode.valueOf(this.doubleValue);
+        } else if (this.isLong) {
+            return LongNode.valueOf(this.longValue);
+        }
+        return BigIntegerNode.valueOf(this.bigIntegerValue);
+    }
+
+    @Override
+    protected int compareToSameType(Value o) {
+        NumberValue other = (NumberValue) o;
+        if (this.isNull || other.isNull) {
+            return Boolean.compare(!this.isNull, !other.isNull);
+        }
+        if (this.isLong && other.isLong) {
+            return Long.compare(this.longValue, other.longValue);
+        }
+        if (this.bigIntegerValue != null || other.bigIntegerValue != null) {
+            return this.toBigDecimal().compareTo(other.toBigDecimal());
+        }
+        // At least one of the numbers has a fraction, which a double holds exactly enough to order it.
+        return Double.compare(this.doubleValue, other.doubleValue);
+    }
+
+    private BigDecimal toBigDecimal() {
+        if (this.isLong) {
+            return BigDecimal.valueOf(this.longValue);
+        } else if (this.bigIntegerValue != null) {
+            return new BigDecimal(this.bigIntegerValue);
+        }
+        return BigDecimal.valueOf(this.doubleValue);
+    }
+
+    @Override
+    public int hashCode() {
+        if (this.isNull) {
+            return 0;
+        } else if (this.isLong) {
+            return Long.hashCode(this.longValue);
+        } else if (this.bigIntegerValue != null) {
+            return this.bigIntegerValue.hashCode();
+        }
+        return Double.hashCode(this.doubleValue);
+    }
 }
@@ -1,27 +1,33 @@
 package io.zentity.resolution.input.value;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import io.zentity.model.ValidationException;
 
 public class StringValue extends Value {
 
     public final String type = "string";
 
+    // the text of the value, or null if the value is null
+    private final String text;
+
     public StringValue(JsonNode value) throws ValidationException {
         super(value);
+        this.text = value.textValue();
     }
 
     /**
-     * Serialize the attribute value from a JsonNode object to a String object.
+     * Serialize the attribute value to a String object.
      *
      * @return
      */
     @Override
-    public String serialize(JsonNode value) {
-        if (value.isNull()) {
+    public String serialize() {
+        if (this.text == null) {
             return "null";
         }
-        return value.textValue();
+        return this.text;
     }
 
     /**
@@ -36,4 +42,23 @@ public class StringValue extends Value {
             throw new ValidationException("Expected '" + this.type + "' attribute data type.");
         }
     }
+
+    @Override
+    public JsonNode value() {
+        return this.text == null ? NullNode.getInstance() : TextNode.valueOf(this.text);
+    }
+
+    @Override
+    protected int compareToSameType(Value o) {
+        StringValue other = (StringValue) o;
+        if (this.text == null || other.text == null) {
+            return Boolean.compare(this.text != null, other.text != null);
+        }
+        return this.text.compareTo(other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.text == null ? 0 : this.text.hashCode();
+    }
 }
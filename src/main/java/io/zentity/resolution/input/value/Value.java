@@ -6,17 +6,16 @@ import io.zentity.model.ValidationException;
 public abstract class Value implements ValueInterface {
 
     protected final String type = "value";
-    protected final JsonNode value;
     private String serialized;
 
     /**
-     * Validate and hold the object of a value.
+     * Validate the object of a value. Each type of value holds the object as a primitive rather than as a
+     * {@link JsonNode}.
      *
      * @param value Attribute value.
      */
     Value(JsonNode value) throws ValidationException {
         this.validate(value);
-        this.value = value;
     }
 
     /**
@@ -43,33 +42,41 @@ public abstract class Value implements ValueInterface {
     }
 
     @Override
-    public abstract String serialize(JsonNode value);
+    public abstract String serialize();
 
     @Override
     public abstract void validate(JsonNode value) throws ValidationException;
 
+    /**
+     * Compare the value to another value of the same class.
+     *
+     * @param o The other value.
+     * @return A negative integer, zero, or a positive integer as this value is less than, equal to, or greater
+     * than the other value.
+     */
+    protected abstract int compareToSameType(Value o);
+
     @Override
     public String type() {
         return this.type;
     }
 
-    @Override
-    public JsonNode value() {
-        return this.value;
-    }
-
     @Override
     public String serialized() {
         // lazy instantiation
         if (this.serialized == null) {
-            this.serialized = this.serialize(value);
+            this.serialized = this.serialize();
         }
         return this.serialized;
     }
 
     @Override
     public int compareTo(Value o) {
-        return this.serialized().compareTo(o.serialized());
+        if (this.getClass() == o.getClass()) {
+            return this.compareToSameType(o);
+        }
+        int c = this.getClass().getName().compareTo(o.getClass().getName());
+        return c != 0 ? c : this.serialized().compareTo(o.serialized());
     }
 
     @Override
@@ -78,9 +85,17 @@ public abstract class Value implements ValueInterface {
     }
 
     @Override
-    public boolean equals(Object o) { return this.hashCode() == o.hashCode(); }
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || this.getClass() != o.getClass()) {
+            return false;
+        }
+        return this.compareToSameType((Value) o) == 0;
+    }
 
     @Override
-    public int hashCode() { return this.serialized().hashCode(); }
+    public abstract int hashCode();
 
 }
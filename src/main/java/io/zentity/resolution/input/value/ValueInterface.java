@@ -14,9 +14,9 @@ public interface ValueInterface extends Comparable<Value> {
     void validate(JsonNode value) throws ValidationException;
 
     /**
-     * Serialize the attribute value from a JsonNode object to a String object.
+     * Serialize the attribute value to a String object.
      */
-    String serialize(JsonNode value);
+    String serialize();
 
     /**
      * Return the attribute type.
@@ -28,9 +28,9 @@ public interface ValueInterface extends Comparable<Value> {
     /**
      * Return the attribute value.
      *
-     * @return The raw value.
+     * @return The value as a JSON node.
      */
-    Object value();
+    JsonNode value();
 
     /**
      * Return the serialized attribute value.
@@ -2,15 +2,66 @@ package org.elasticsearch.plugin.zentity;
 
 import io.zentity.common.CompletableFutureUtil;
 import io.zentity.model.ValidationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * A utility class for actions that provides common handler functionality.
  */
 public abstract class ActionUtil extends BaseRestHandler {
+    private static final Logger logger = LogManager.getLogger(ActionUtil.class);
+
+    /**
+     * A consumer of a channel that starts handling a request and returns the response asynchronously.
+     */
+    @FunctionalInterface
+    public interface AsyncRestChannelConsumer extends CheckedFunction<RestChannel, CompletableFuture<? extends RestResponse>, Exception> {
+    }
+
+    /**
+     * Send the response of an error to a channel, with the status that fits the error.
+     *
+     * @param channel The channel.
+     * @param ex      The error.
+     */
+    public static void sendErrorResponse(RestChannel channel, Throwable ex) {
+        RestStatus status;
+        Throwable unwrapped = CompletableFutureUtil.getCause(ex);
+
+        if (unwrapped instanceof ElasticsearchException) {
+            status = ((ElasticsearchException) unwrapped).status();
+        } else if (unwrapped instanceof EsRejectedExecutionException) {
+            // a thread pool is saturated, so the client should back off and retry
+            status = RestStatus.TOO_MANY_REQUESTS;
+        } else if (unwrapped instanceof ValidationException) {
+            // TODO: move validation handling to where the deserialization is done
+            status = RestStatus.BAD_REQUEST;
+        } else {
+            status = RestStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        if (!(unwrapped instanceof Exception)) {
+            unwrapped = new Exception(unwrapped);
+        }
+
+        try {
+            channel.sendResponse(new BytesRestResponse(channel, status, (Exception) unwrapped));
+        } catch (Exception inner) {
+            inner.addSuppressed(unwrapped);
+            logger.error("failed to send failure response", inner);
+        }
+    }
+
     /**
      * Wrap a consumer with error handling.
      *
@@ -22,24 +73,34 @@ public abstract class ActionUtil extends BaseRestHandler {
             try {
                 consumer.accept(channel);
             } catch (Throwable ex) {
-                RestStatus status;
-                Throwable unwrapped = CompletableFutureUtil.getCause(ex);
-
-                if (unwrapped instanceof ElasticsearchException) {
-                    status = ((ElasticsearchException) unwrapped).status();
-                } else if (unwrapped instanceof ValidationException) {
-                    // TODO: move validation handling to where the deserialization is done
-                    status = RestStatus.BAD_REQUEST;
-                } else {
-                    status = RestStatus.INTERNAL_SERVER_ERROR;
-                }
-
-                if (!(unwrapped instanceof Exception)) {
-                    unwrapped = new Exception(unwrapped);
-                }
+                sendErrorResponse(channel, ex);
+            }
+        };
+    }
 
-                channel.sendResponse(new BytesRestResponse(channel, status, (Exception) unwrapped));
+    /**
+     * Wrap an asynchronous consumer with error handling. The response is sent from the callback of its future, so
+     * the thread that handles the request is not held until the response is ready.
+     *
+     * @param consumer The consumer to wrap.
+     * @return The wrapped consumer.
+     */
+    public static RestChannelConsumer asyncErrorHandlingConsumer(AsyncRestChannelConsumer consumer) {
+        return channel -> {
+            final CompletableFuture<? extends RestResponse> responseFuture;
+            try {
+                responseFuture = consumer.apply(channel);
+            } catch (Throwable ex) {
+                sendErrorResponse(channel, ex);
+                return;
             }
+            responseFuture.whenComplete((response, ex) -> {
+                if (ex != null) {
+                    sendErrorResponse(channel, ex);
+                } else {
+                    channel.sendResponse(response);
+                }
+            });
         };
     }
 }
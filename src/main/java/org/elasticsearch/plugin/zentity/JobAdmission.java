@@ -0,0 +1,71 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of resolution jobs that run at once on a node. A job holds its slot from the moment it is admitted
+ * until it completes, including the time it waits for its searches. A job that would exceed the cap is rejected right
+ * away, so that a saturated node answers with a 429 response instead of queueing more work.
+ */
+public class JobAdmission {
+
+    private final int maxJobs;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxJobs The maximum number of jobs that can run at once.
+     */
+    public JobAdmission(int maxJobs) {
+        this.maxJobs = maxJobs;
+    }
+
+    /**
+     * Admit a job, which must call {@link #release()} once it completes.
+     *
+     * @throws EsRejectedExecutionException If the maximum number of jobs are running.
+     */
+    public void acquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= this.maxJobs) {
+                this.rejected.increment();
+                throw new EsRejectedExecutionException("Rejected the resolution job because " + current + " jobs are running, which is the maximum of [resolution.max_concurrent_jobs].");
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Free the slot of a job that completed.
+     */
+    public void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    /**
+     * @return The maximum number of jobs that can run at once.
+     */
+    public int maxJobs() {
+        return this.maxJobs;
+    }
+
+    /**
+     * @return The number of jobs that are running.
+     */
+    public int inFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * @return The number of jobs that were rejected.
+     */
+    public long rejected() {
+        return this.rejected.sum();
+    }
+}
@@ -0,0 +1,162 @@
+package org.elasticsearch.plugin.zentity;
+
+import io.zentity.resolution.ModelPlan;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.unit.TimeValue;
+
+/**
+ * A node-level cache of parsed entity models and their plans, so that resolution requests for an entity type do not
+ * fetch, parse, and plan its model each time. The cache holds at most a fixed number of models and evicts the least
+ * recently used.
+ *
+ * <p>
+ * Each model is stored with the primary term and sequence number of the document it was parsed from. When
+ * {@link ModelsAction} indexes or deletes a model, every node invalidates its copy up to the version of that write.
+ * A model that was fetched before the write but is put into the cache after the invalidation is then rejected as
+ * stale instead of hiding the new model.
+ *
+ * <p>
+ * Invalidation is best effort: a node can miss it, and writes to the models index that bypass {@link ModelsAction}
+ * do not invalidate anything. So every model also expires a fixed time after it was cached, which bounds how long a
+ * node can serve an old model. The invalidated versions expire the same way, so that a model whose version went
+ * backwards, e.g. after a snapshot restore, can be cached again.
+ */
+public class ModelCache {
+
+    private static class Entry {
+        final long primaryTerm;
+        final long seqNo;
+        final ModelPlan plan;
+
+        Entry(long primaryTerm, long seqNo, ModelPlan plan) {
+            this.primaryTerm = primaryTerm;
+            this.seqNo = seqNo;
+            this.plan = plan;
+        }
+
+        /**
+         * Compare the version of the entry to another version.
+         *
+         * @return A negative integer, zero, or a positive integer as this version is older than, the same as, or
+         * newer than the other version.
+         */
+        int compareVersion(long primaryTerm, long seqNo) {
+            int c = Long.compare(this.primaryTerm, primaryTerm);
+            return c != 0 ? c : Long.compare(this.seqNo, seqNo);
+        }
+    }
+
+    private final Cache<String, Entry> cache;
+    private final CounterMetric hits = new CounterMetric();
+    private final CounterMetric misses = new CounterMetric();
+    // the latest version of each entity type that was invalidated
+    private final Cache<String, Entry> invalidated;
+
+    /**
+     * @param maxSize          The maximum number of entity models to hold.
+     * @param expireAfterWrite The time after which a cached model is fetched again.
+     */
+    public ModelCache(int maxSize, TimeValue expireAfterWrite) {
+        this.cache = CacheBuilder.<String, Entry>builder()
+            .setMaximumWeight(maxSize)
+            .setExpireAfterWrite(expireAfterWrite)
+            .build();
+        this.invalidated = CacheBuilder.<String, Entry>builder()
+            .setExpireAfterWrite(expireAfterWrite)
+            .build();
+    }
+
+    /**
+     * Get the cached plan of the model of an entity type.
+     *
+     * @param entityType The entity type.
+     * @return The plan of the model, or null if it is not cached.
+     */
+    public ModelPlan get(String entityType) {
+        Entry entry = this.cache.get(entityType);
+        if (entry == null) {
+            this.misses.inc();
+            return null;
+        }
+        this.hits.inc();
+        return entry.plan;
+    }
+
+    /**
+     * Cache the model of an entity type unless the cache holds a newer version of it, or it is older than the write
+     * that last invalidated it. The version of that write itself is cached, since it is the current model.
+     *
+     * @param entityType  The entity type.
+     * @param primaryTerm The primary term of the model document.
+     * @param seqNo       The sequence number of the model document.
+     * @param plan        The plan of the parsed model.
+     */
+    public synchronized void put(String entityType, long primaryTerm, long seqNo, ModelPlan plan) {
+        Entry invalidatedEntry = this.invalidated.get(entityType);
+        if (invalidatedEntry != null && invalidatedEntry.compareVersion(primaryTerm, seqNo) > 0) {
+            return;
+        }
+        Entry current = this.cache.get(entityType);
+        if (current != null && current.compareVersion(primaryTerm, seqNo) >= 0) {
+            return;
+        }
+        this.cache.put(entityType, new Entry(primaryTerm, seqNo, plan));
+    }
+
+    /**
+     * Remove the model of an entity type if it is not newer than the given version, and reject any older version
+     * that is put afterwards. The given version can still be put, since it is the version that the write created.
+     *
+     * @param entityType  The entity type.
+     * @param primaryTerm The primary term of the write that changed the model.
+     * @param seqNo       The sequence number of the write that changed the model.
+     */
+    public synchronized void invalidate(String entityType, long primaryTerm, long seqNo) {
+        Entry previous = this.invalidated.get(entityType);
+        if (previous == null || previous.compareVersion(primaryTerm, seqNo) < 0) {
+            this.invalidated.put(entityType, new Entry(primaryTerm, seqNo, null));
+        }
+        Entry current = this.cache.get(entityType);
+        if (current != null && current.compareVersion(primaryTerm, seqNo) <= 0) {
+            this.cache.invalidate(entityType);
+        }
+    }
+
+    /**
+     * Remove every cached model, and forget the versions that were invalidated.
+     */
+    public synchronized void clear() {
+        this.cache.invalidateAll();
+        this.invalidated.invalidateAll();
+    }
+
+    /**
+     * @return The number of cached models.
+     */
+    public int count() {
+        return this.cache.count();
+    }
+
+    /**
+     * @return The number of times a model was found in the cache.
+     */
+    public long hits() {
+        return this.hits.count();
+    }
+
+    /**
+     * @return The number of times a model was not found in the cache.
+     */
+    public long misses() {
+        return this.misses.count();
+    }
+
+    /**
+     * @return The number of models that were evicted to keep the cache within its maximum size.
+     */
+    public long evictions() {
+        return this.cache.stats().getEvictions();
+    }
+}
@@ -0,0 +1,63 @@
+package org.elasticsearch.plugin.zentity;
+
+import io.zentity.common.ActionRequestUtil;
+import io.zentity.common.FunctionalUtil.UnCheckedFunction;
+import io.zentity.common.XContentUtil;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.elasticsearch.plugin.zentity.ActionUtil.asyncErrorHandlingConsumer;
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+public class ModelCacheAction extends BaseZentityAction {
+
+    public ModelCacheAction(ZentityConfig config) {
+        super(config);
+    }
+
+    @Override
+    public List<Route> routes() {
+        return List.of(
+            new Route(GET, "_zentity/_cache"),
+            new Route(POST, "_zentity/_cache/_clear")
+        );
+    }
+
+    @Override
+    public String getName() {
+        return "zentity_model_cache_action";
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest restRequest, NodeClient client) {
+
+        final boolean pretty = restRequest.paramAsBoolean("pretty", false);
+        final boolean clear = restRequest.method() == POST;
+
+        final UnaryOperator<XContentBuilder> prettyPrintModifier = (builder) -> {
+            if (pretty) {
+                return builder.prettyPrint();
+            }
+            return builder;
+        };
+
+        return asyncErrorHandlingConsumer(channel -> {
+            ModelCacheNodesRequestBuilder request = new ModelCacheNodesRequestBuilder(client);
+            if (clear) {
+                // POST _zentity/_cache/_clear
+                request.clear();
+            }
+            return ActionRequestUtil.toCompletableFuture(request)
+                .thenApply(UnCheckedFunction.from(res -> res.toXContent(XContentUtil.jsonBuilder(prettyPrintModifier), ToXContent.EMPTY_PARAMS)))
+                .thenApply((builder) -> new BytesRestResponse(RestStatus.OK, builder));
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * The stats of the {@link ModelCache} of a node.
+ */
+public class ModelCacheNodeResponse extends BaseNodeResponse implements ToXContentFragment {
+
+    private final int count;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    public ModelCacheNodeResponse(StreamInput in) throws IOException {
+        super(in);
+        this.count = in.readVInt();
+        this.hits = in.readVLong();
+        this.misses = in.readVLong();
+        this.evictions = in.readVLong();
+    }
+
+    public ModelCacheNodeResponse(DiscoveryNode node, ModelCache modelCache) {
+        super(node);
+        this.count = modelCache.count();
+        this.hits = modelCache.hits();
+        this.misses = modelCache.misses();
+        this.evictions = modelCache.evictions();
+    }
+
+    public int count() {
+        return this.count;
+    }
+
+    public long hits() {
+        return this.hits;
+    }
+
+    public long misses() {
+        return this.misses;
+    }
+
+    public long evictions() {
+        return this.evictions;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(this.count);
+        out.writeVLong(this.hits);
+        out.writeVLong(this.misses);
+        out.writeVLong(this.evictions);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field("name", getNode().getName());
+        builder.startObject("models");
+        builder.field("count", this.count);
+        builder.field("hits", this.hits);
+        builder.field("misses", this.misses);
+        builder.field("evictions", this.evictions);
+        builder.endObject();
+        return builder;
+    }
+}
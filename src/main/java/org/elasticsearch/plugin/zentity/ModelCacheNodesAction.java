@@ -0,0 +1,16 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.ActionType;
+
+/**
+ * Runs an operation on the {@link ModelCache} of every node: read its stats, invalidate an entity model, or clear it.
+ */
+public class ModelCacheNodesAction extends ActionType<ModelCacheNodesResponse> {
+
+    public static final String NAME = "cluster:admin/zentity/models/cache";
+    public static final ModelCacheNodesAction INSTANCE = new ModelCacheNodesAction();
+
+    private ModelCacheNodesAction() {
+        super(NAME, ModelCacheNodesResponse::new);
+    }
+}
@@ -0,0 +1,81 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * A request to the {@link ModelCache} of every node. Without an entity type or "clear", the request only reads the
+ * stats of the caches.
+ */
+public class ModelCacheNodesRequest extends BaseNodesRequest<ModelCacheNodesRequest> {
+
+    private String entityType;
+    private long primaryTerm;
+    private long seqNo;
+    private boolean clear;
+
+    public ModelCacheNodesRequest(StreamInput in) throws IOException {
+        super(in);
+        this.entityType = in.readOptionalString();
+        this.primaryTerm = in.readLong();
+        this.seqNo = in.readLong();
+        this.clear = in.readBoolean();
+    }
+
+    public ModelCacheNodesRequest(String... nodesIds) {
+        super(nodesIds);
+    }
+
+    /**
+     * Invalidate the model of an entity type up to the version of a write to it.
+     *
+     * @param entityType  The entity type.
+     * @param primaryTerm The primary term of the write.
+     * @param seqNo       The sequence number of the write.
+     * @return This request.
+     */
+    public ModelCacheNodesRequest invalidate(String entityType, long primaryTerm, long seqNo) {
+        this.entityType = entityType;
+        this.primaryTerm = primaryTerm;
+        this.seqNo = seqNo;
+        return this;
+    }
+
+    /**
+     * Remove every model from the caches.
+     *
+     * @return This request.
+     */
+    public ModelCacheNodesRequest clear() {
+        this.clear = true;
+        return this;
+    }
+
+    public String entityType() {
+        return this.entityType;
+    }
+
+    public long primaryTerm() {
+        return this.primaryTerm;
+    }
+
+    public long seqNo() {
+        return this.seqNo;
+    }
+
+    public boolean isClear() {
+        return this.clear;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeOptionalString(this.entityType);
+        out.writeLong(this.primaryTerm);
+        out.writeLong(this.seqNo);
+        out.writeBoolean(this.clear);
+    }
+}
@@ -0,0 +1,21 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.support.nodes.NodesOperationRequestBuilder;
+import org.elasticsearch.client.ElasticsearchClient;
+
+public class ModelCacheNodesRequestBuilder extends NodesOperationRequestBuilder<ModelCacheNodesRequest, ModelCacheNodesResponse, ModelCacheNodesRequestBuilder> {
+
+    public ModelCacheNodesRequestBuilder(ElasticsearchClient client) {
+        super(client, ModelCacheNodesAction.INSTANCE, new ModelCacheNodesRequest());
+    }
+
+    public ModelCacheNodesRequestBuilder invalidate(String entityType, long primaryTerm, long seqNo) {
+        request.invalidate(entityType, primaryTerm, seqNo);
+        return this;
+    }
+
+    public ModelCacheNodesRequestBuilder clear() {
+        request.clear();
+        return this;
+    }
+}
@@ -5,9 +5,14 @@ import io.zentity.common.CompletableFutureUtil;
 import io.zentity.common.FunctionalUtil.UnCheckedFunction;
 import io.zentity.common.XContentUtil;
 import io.zentity.model.Model;
+import io.zentity.resolution.ModelPlan;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRequestBuilder;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.delete.DeleteResponse;
@@ -36,7 +41,7 @@ import java.util.concurrent.CompletionException;
 import java.util.function.UnaryOperator;
 
 import static io.zentity.common.CompletableFutureUtil.composeExceptionally;
-import static org.elasticsearch.plugin.zentity.ActionUtil.errorHandlingConsumer;
+import static org.elasticsearch.plugin.zentity.ActionUtil.asyncErrorHandlingConsumer;
 import static org.elasticsearch.rest.RestRequest.Method;
 import static org.elasticsearch.rest.RestRequest.Method.DELETE;
 import static org.elasticsearch.rest.RestRequest.Method.GET;
@@ -45,10 +50,15 @@ import static org.elasticsearch.rest.RestRequest.Method.PUT;
 
 public class ModelsAction extends BaseZentityAction {
 
+    private static final Logger logger = LogManager.getLogger(ModelsAction.class);
+
     public static final String INDEX_NAME = ".zentity-models";
 
-    public ModelsAction(ZentityConfig config) {
+    private final ModelCache modelCache;
+
+    public ModelsAction(ZentityConfig config, ModelCache modelCache) {
         super(config);
+        this.modelCache = modelCache;
     }
 
     @Override
@@ -131,6 +141,57 @@ public class ModelsAction extends BaseZentityAction {
         return getResponseWithImplicitIndexCreation(client, request);
     }
 
+    /**
+     * Retrieve the plan of one parsed entity model by its type from the model cache of the node, or from the
+     * .zentity-models index if it is not cached. The model is shared with other requests.
+     *
+     * @param entityType The entity type.
+     * @param client     The client that will communicate with Elasticsearch.
+     * @return The plan of the entity model, or null if the entity model does not exist.
+     */
+    CompletableFuture<ModelPlan> getCachedModelPlan(String entityType, NodeClient client) {
+        ModelPlan cached = modelCache.get(entityType);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return getEntityModel(entityType, client)
+            .thenApply(UnCheckedFunction.from((res) -> {
+                if (!res.isExists()) {
+                    return null;
+                }
+                ModelPlan plan = new ModelPlan(new Model(res.getSourceAsString()));
+                modelCache.put(entityType, res.getPrimaryTerm(), res.getSeqNo(), plan);
+                return plan;
+            }));
+    }
+
+    /**
+     * Invalidate an entity model in the model cache of every node after a write to it. Nodes that fail to
+     * invalidate the model do not fail the write, which has already succeeded. They are logged instead, and serve
+     * the old model until it expires from their cache.
+     *
+     * @param entityType The entity type.
+     * @param response   The response of the write.
+     * @param client     The client that will communicate with Elasticsearch.
+     * @param <ResT>     The type of Response.
+     * @return The response of the write.
+     */
+    <ResT extends DocWriteResponse> CompletableFuture<ResT> invalidateEntityModel(String entityType, ResT response, NodeClient client) {
+        ModelCacheNodesRequestBuilder request = new ModelCacheNodesRequestBuilder(client)
+            .invalidate(entityType, response.getPrimaryTerm(), response.getSeqNo());
+        return ActionRequestUtil.toCompletableFuture(request)
+            .handle((res, ex) -> {
+                if (ex != null) {
+                    logger.warn("Failed to invalidate the cached model of entity type [" + entityType + "]", CompletableFutureUtil.getCause(ex));
+                } else {
+                    for (FailedNodeException failure : res.failures()) {
+                        logger.warn("Failed to invalidate the cached model of entity type [" + entityType + "] on node [" + failure.nodeId() + "]", failure);
+                    }
+                }
+                return response;
+            });
+    }
+
     /**
      * Index one entity model by its type. Return error if an entity model already exists for that entity type.
      *
@@ -145,7 +206,8 @@ public class ModelsAction extends BaseZentityAction {
                 IndexRequestBuilder request = client.prepareIndex(config.getModelsIndexName(), "doc", entityType);
                 request.setSource(requestBody, XContentType.JSON).setCreate(true).setRefreshPolicy("wait_for");
                 return ActionRequestUtil.toCompletableFuture(request);
-            });
+            })
+            .thenCompose((res) -> invalidateEntityModel(entityType, res, client));
     }
 
     /**
@@ -165,7 +227,8 @@ public class ModelsAction extends BaseZentityAction {
                     .setCreate(false)
                     .setRefreshPolicy("wait_for");
                 return ActionRequestUtil.toCompletableFuture(request);
-            });
+            })
+            .thenCompose((res) -> invalidateEntityModel(entityType, res, client));
     }
 
     /**
@@ -178,7 +241,8 @@ public class ModelsAction extends BaseZentityAction {
     CompletableFuture<DeleteResponse> deleteEntityModel(String entityType, NodeClient client) {
         DeleteRequestBuilder request = client.prepareDelete(config.getModelsIndexName(), "doc", entityType);
         request.setRefreshPolicy("wait_for");
-        return getResponseWithImplicitIndexCreation(client, request);
+        return getResponseWithImplicitIndexCreation(client, request)
+            .thenCompose((res) -> invalidateEntityModel(entityType, res, client));
     }
 
     @Override
@@ -202,7 +266,7 @@ public class ModelsAction extends BaseZentityAction {
             return builder;
         };
 
-        return errorHandlingConsumer(channel -> {
+        return asyncErrorHandlingConsumer(channel -> {
             // Validate input
             if (method == POST || method == PUT) {
 
@@ -237,10 +301,9 @@ public class ModelsAction extends BaseZentityAction {
                 throw new NotImplementedException("Method and endpoint not implemented.");
             }
 
-            responseFuture
+            return responseFuture
                 .thenApply(UnCheckedFunction.from(res -> res.toXContent(XContentUtil.jsonBuilder(prettyPrintModifier), ToXContent.EMPTY_PARAMS)))
-                .thenAccept((builder) -> channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder)))
-                .get();
+                .thenApply((builder) -> new BytesRestResponse(RestStatus.OK, builder));
         });
     }
 }
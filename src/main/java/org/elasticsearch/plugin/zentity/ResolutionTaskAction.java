@@ -0,0 +1,18 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.ActionType;
+
+/**
+ * Runs a resolution request as a {@link io.zentity.resolution.ResolutionTask}, which the task management API can list
+ * and cancel. The action is named as an index read, like "_msearch", so that the "read" index privilege that a caller
+ * needs for the searches of the jobs is also enough to run them.
+ */
+public class ResolutionTaskAction extends ActionType<ResolutionTaskResponse> {
+
+    public static final String NAME = "indices:data/read/zentity/resolution";
+    public static final ResolutionTaskAction INSTANCE = new ResolutionTaskAction();
+
+    private ResolutionTaskAction() {
+        super(NAME, ResolutionTaskResponse::new);
+    }
+}
@@ -0,0 +1,80 @@
+package org.elasticsearch.plugin.zentity;
+
+import io.zentity.resolution.ResolutionTask;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.CompositeIndicesRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The body and params of a resolution request, or of a bulk resolution request. The indices it reads are only known
+ * once the model is loaded, so it is a {@link CompositeIndicesRequest} like "_msearch": security authorizes each search
+ * of its jobs against the indices it reads.
+ */
+public class ResolutionTaskRequest extends ActionRequest implements CompositeIndicesRequest {
+
+    private final BytesReference content;
+    private final Map<String, String> params;
+    private final boolean bulk;
+
+    public ResolutionTaskRequest(StreamInput in) throws IOException {
+        super(in);
+        this.content = in.readBytesReference();
+        this.params = in.readMap(StreamInput::readString, StreamInput::readString);
+        this.bulk = in.readBoolean();
+    }
+
+    /**
+     * @param content The body of the request.
+     * @param params  The params of the request.
+     * @param bulk    Whether the body has a line of params and a line of input for each job.
+     */
+    public ResolutionTaskRequest(BytesReference content, Map<String, String> params, boolean bulk) {
+        this.content = content;
+        this.params = params;
+        this.bulk = bulk;
+    }
+
+    public BytesReference content() {
+        return this.content;
+    }
+
+    public Map<String, String> params() {
+        return this.params;
+    }
+
+    public boolean isBulk() {
+        return this.bulk;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        return null;
+    }
+
+    @Override
+    public ResolutionTask createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+        return new ResolutionTask(id, type, action, getDescription(), parentTaskId, headers);
+    }
+
+    @Override
+    public String getDescription() {
+        String entityType = this.params.get("entity_type");
+        return (this.bulk ? "bulk resolution" : "resolution") + (entityType != null ? " of [" + entityType + "]" : "");
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeBytesReference(this.content);
+        out.writeMap(this.params, StreamOutput::writeString, StreamOutput::writeString);
+        out.writeBoolean(this.bulk);
+    }
+}
@@ -0,0 +1,60 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.rest.RestStatus;
+
+import java.io.IOException;
+
+/**
+ * The serialized body of the response to a resolution request, which the REST handler sends as it is.
+ */
+public class ResolutionTaskResponse extends ActionResponse {
+
+    private final RestStatus status;
+    private final String contentType;
+    private final BytesReference content;
+
+    public ResolutionTaskResponse(StreamInput in) throws IOException {
+        super(in);
+        this.status = RestStatus.readFrom(in);
+        this.contentType = in.readString();
+        this.content = in.readBytesReference();
+    }
+
+    public ResolutionTaskResponse(RestStatus status, String contentType, BytesReference content) {
+        this.status = status;
+        this.contentType = contentType;
+        this.content = content;
+    }
+
+    public ResolutionTaskResponse(RestStatus status, String contentType, byte[] content) {
+        this(status, contentType, new BytesArray(content));
+    }
+
+    public ResolutionTaskResponse(RestStatus status, String contentType, String content) {
+        this(status, contentType, new BytesArray(content));
+    }
+
+    public RestStatus status() {
+        return this.status;
+    }
+
+    public String contentType() {
+        return this.contentType;
+    }
+
+    public BytesReference content() {
+        return this.content;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        RestStatus.writeTo(out, this.status);
+        out.writeString(this.contentType);
+        out.writeBytesReference(this.content);
+    }
+}
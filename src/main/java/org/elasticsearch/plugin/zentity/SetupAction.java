@@ -28,7 +28,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.function.UnaryOperator;
 
-import static org.elasticsearch.plugin.zentity.ActionUtil.errorHandlingConsumer;
+import static org.elasticsearch.plugin.zentity.ActionUtil.asyncErrorHandlingConsumer;
 import static org.elasticsearch.rest.RestRequest.Method;
 import static org.elasticsearch.rest.RestRequest.Method.DELETE;
 import static org.elasticsearch.rest.RestRequest.Method.POST;
@@ -159,7 +159,7 @@ public class SetupAction extends BaseZentityAction {
             List.of(prettyPrintModifier, ackResponseModifier)
         );
 
-        return errorHandlingConsumer(channel -> {
+        return asyncErrorHandlingConsumer(channel -> {
             final CompletableFuture<?> fut;
             if (method == POST) {
                 fut = createIndex(client, numberOfShards, numberOfReplicas);
@@ -169,9 +169,8 @@ public class SetupAction extends BaseZentityAction {
                 throw new NotImplementedException("Method and endpoint not implemented.");
             }
 
-            fut.thenApply(FunctionalUtil.UnCheckedFunction.from(res -> XContentUtil.jsonBuilder(responseBuilderFunc)))
-                .thenAccept(builder -> channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder)))
-                .get();
+            return fut.thenApply(FunctionalUtil.UnCheckedFunction.from(res -> XContentUtil.jsonBuilder(responseBuilderFunc)))
+                .thenApply(builder -> new BytesRestResponse(RestStatus.OK, builder));
         });
     }
 }
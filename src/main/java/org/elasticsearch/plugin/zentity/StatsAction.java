@@ -0,0 +1,60 @@
+package org.elasticsearch.plugin.zentity;
+
+import io.zentity.common.ActionRequestUtil;
+import io.zentity.common.FunctionalUtil.UnCheckedFunction;
+import io.zentity.common.XContentUtil;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.elasticsearch.plugin.zentity.ActionUtil.asyncErrorHandlingConsumer;
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+public class StatsAction extends BaseZentityAction {
+
+    public StatsAction(ZentityConfig config) {
+        super(config);
+    }
+
+    @Override
+    public List<Route> routes() {
+        return List.of(
+            new Route(GET, "_zentity/_stats"),
+            new Route(GET, "_zentity/_stats/{node_id}")
+        );
+    }
+
+    @Override
+    public String getName() {
+        return "zentity_stats_action";
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest restRequest, NodeClient client) {
+
+        final boolean pretty = restRequest.paramAsBoolean("pretty", false);
+        final String[] nodesIds = Strings.splitStringByCommaToArray(restRequest.param("node_id"));
+
+        final UnaryOperator<XContentBuilder> prettyPrintModifier = (builder) -> {
+            if (pretty) {
+                return builder.prettyPrint();
+            }
+            return builder;
+        };
+
+        return asyncErrorHandlingConsumer(channel -> {
+            // GET _zentity/_stats or GET _zentity/_stats/{node_id}
+            StatsNodesRequestBuilder request = new StatsNodesRequestBuilder(client).setNodesIds(nodesIds);
+            return ActionRequestUtil.toCompletableFuture(request)
+                .thenApply(UnCheckedFunction.from(res -> res.toXContent(XContentUtil.jsonBuilder(prettyPrintModifier), ToXContent.EMPTY_PARAMS)))
+                .thenApply((builder) -> new BytesRestResponse(RestStatus.OK, builder));
+        });
+    }
+}
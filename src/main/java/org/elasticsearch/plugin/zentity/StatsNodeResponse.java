@@ -0,0 +1,118 @@
+package org.elasticsearch.plugin.zentity;
+
+import io.zentity.resolution.ResolutionStats;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.threadpool.ThreadPoolStats;
+
+import java.io.IOException;
+
+/**
+ * The stats of the resolution jobs, the resolution thread pool, and the {@link ModelCache} of a node.
+ */
+public class StatsNodeResponse extends BaseNodeResponse implements ToXContentFragment {
+
+    private final ResolutionStats.Snapshot resolution;
+    private final int jobsInFlight;
+    private final int maxJobs;
+    private final long jobsRejected;
+    private final ThreadPoolStats.Stats threadPool;
+    private final int modelsCount;
+    private final long modelsHits;
+    private final long modelsMisses;
+    private final long modelsEvictions;
+
+    public StatsNodeResponse(StreamInput in) throws IOException {
+        super(in);
+        this.resolution = new ResolutionStats.Snapshot(in);
+        this.jobsInFlight = in.readVInt();
+        this.maxJobs = in.readVInt();
+        this.jobsRejected = in.readVLong();
+        this.threadPool = in.readOptionalWriteable(ThreadPoolStats.Stats::new);
+        this.modelsCount = in.readVInt();
+        this.modelsHits = in.readVLong();
+        this.modelsMisses = in.readVLong();
+        this.modelsEvictions = in.readVLong();
+    }
+
+    /**
+     * @param threadPool The stats of the resolution thread pool, or null if the node does not have it.
+     */
+    public StatsNodeResponse(DiscoveryNode node, ResolutionStats.Snapshot resolution, JobAdmission jobAdmission, ThreadPoolStats.Stats threadPool, ModelCache modelCache) {
+        super(node);
+        this.resolution = resolution;
+        this.jobsInFlight = jobAdmission.inFlight();
+        this.maxJobs = jobAdmission.maxJobs();
+        this.jobsRejected = jobAdmission.rejected();
+        this.threadPool = threadPool;
+        this.modelsCount = modelCache.count();
+        this.modelsHits = modelCache.hits();
+        this.modelsMisses = modelCache.misses();
+        this.modelsEvictions = modelCache.evictions();
+    }
+
+    public ResolutionStats.Snapshot resolution() {
+        return this.resolution;
+    }
+
+    public ThreadPoolStats.Stats threadPool() {
+        return this.threadPool;
+    }
+
+    /**
+     * @return The share of model lookups that were found in the cache, or 0 if there were none.
+     */
+    public double modelsHitRate() {
+        long lookups = this.modelsHits + this.modelsMisses;
+        return lookups == 0 ? 0.0 : (double) this.modelsHits / lookups;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        this.resolution.writeTo(out);
+        out.writeVInt(this.jobsInFlight);
+        out.writeVInt(this.maxJobs);
+        out.writeVLong(this.jobsRejected);
+        out.writeOptionalWriteable(this.threadPool);
+        out.writeVInt(this.modelsCount);
+        out.writeVLong(this.modelsHits);
+        out.writeVLong(this.modelsMisses);
+        out.writeVLong(this.modelsEvictions);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field("name", getNode().getName());
+        builder.startObject("resolution");
+        this.resolution.toXContent(builder, params);
+        builder.startObject("admission");
+        builder.field("in_flight", this.jobsInFlight);
+        builder.field("max", this.maxJobs);
+        builder.field("rejected", this.jobsRejected);
+        builder.endObject();
+        builder.endObject();
+        if (this.threadPool != null) {
+            builder.startObject("thread_pool");
+            builder.field("threads", this.threadPool.getThreads());
+            builder.field("queue", this.threadPool.getQueue());
+            builder.field("active", this.threadPool.getActive());
+            builder.field("rejected", this.threadPool.getRejected());
+            builder.field("largest", this.threadPool.getLargest());
+            builder.field("completed", this.threadPool.getCompleted());
+            builder.endObject();
+        }
+        builder.startObject("models");
+        builder.field("count", this.modelsCount);
+        builder.field("hits", this.modelsHits);
+        builder.field("misses", this.modelsMisses);
+        builder.field("evictions", this.modelsEvictions);
+        builder.field("hit_rate", modelsHitRate());
+        builder.endObject();
+        return builder;
+    }
+}
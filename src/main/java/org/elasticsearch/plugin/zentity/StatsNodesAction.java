@@ -0,0 +1,16 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.ActionType;
+
+/**
+ * Reads the stats of resolution jobs, the resolution thread pool, and the {@link ModelCache} of every node.
+ */
+public class StatsNodesAction extends ActionType<StatsNodesResponse> {
+
+    public static final String NAME = "cluster:monitor/zentity/stats";
+    public static final StatsNodesAction INSTANCE = new StatsNodesAction();
+
+    private StatsNodesAction() {
+        super(NAME, StatsNodesResponse::new);
+    }
+}
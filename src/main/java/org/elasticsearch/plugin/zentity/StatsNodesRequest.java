@@ -0,0 +1,20 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+
+/**
+ * A request for the zentity stats of some or all nodes.
+ */
+public class StatsNodesRequest extends BaseNodesRequest<StatsNodesRequest> {
+
+    public StatsNodesRequest(StreamInput in) throws IOException {
+        super(in);
+    }
+
+    public StatsNodesRequest(String... nodesIds) {
+        super(nodesIds);
+    }
+}
@@ -0,0 +1,11 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.support.nodes.NodesOperationRequestBuilder;
+import org.elasticsearch.client.ElasticsearchClient;
+
+public class StatsNodesRequestBuilder extends NodesOperationRequestBuilder<StatsNodesRequest, StatsNodesResponse, StatsNodesRequestBuilder> {
+
+    public StatsNodesRequestBuilder(ElasticsearchClient client) {
+        super(client, StatsNodesAction.INSTANCE, new StatsNodesRequest());
+    }
+}
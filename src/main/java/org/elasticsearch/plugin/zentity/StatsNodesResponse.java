@@ -0,0 +1,53 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.action.RestActions;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The zentity stats of every node.
+ */
+public class StatsNodesResponse extends BaseNodesResponse<StatsNodeResponse> implements ToXContentObject {
+
+    public StatsNodesResponse(StreamInput in) throws IOException {
+        super(in);
+    }
+
+    public StatsNodesResponse(ClusterName clusterName, List<StatsNodeResponse> nodes, List<FailedNodeException> failures) {
+        super(clusterName, nodes, failures);
+    }
+
+    @Override
+    protected List<StatsNodeResponse> readNodesFrom(StreamInput in) throws IOException {
+        return in.readList(StatsNodeResponse::new);
+    }
+
+    @Override
+    protected void writeNodesTo(StreamOutput out, List<StatsNodeResponse> nodes) throws IOException {
+        out.writeList(nodes);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        RestActions.buildNodesHeader(builder, params, this);
+        builder.field("cluster_name", getClusterName().value());
+        builder.startObject("nodes");
+        for (StatsNodeResponse node : getNodes()) {
+            builder.startObject(node.getNode().getId());
+            node.toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+}
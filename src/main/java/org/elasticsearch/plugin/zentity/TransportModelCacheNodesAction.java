@@ -0,0 +1,95 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.BaseNodeRequest;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs a {@link ModelCacheNodesRequest} on the {@link ModelCache} of every node and collects the stats of the caches.
+ */
+public class TransportModelCacheNodesAction extends TransportNodesAction<
+    ModelCacheNodesRequest,
+    ModelCacheNodesResponse,
+    TransportModelCacheNodesAction.NodeRequest,
+    ModelCacheNodeResponse> {
+
+    private final ModelCache modelCache;
+
+    @Inject
+    public TransportModelCacheNodesAction(
+        ThreadPool threadPool,
+        ClusterService clusterService,
+        TransportService transportService,
+        ActionFilters actionFilters,
+        ModelCache modelCache
+    ) {
+        super(
+            ModelCacheNodesAction.NAME,
+            threadPool,
+            clusterService,
+            transportService,
+            actionFilters,
+            ModelCacheNodesRequest::new,
+            NodeRequest::new,
+            ThreadPool.Names.MANAGEMENT,
+            ModelCacheNodeResponse.class
+        );
+        this.modelCache = modelCache;
+    }
+
+    @Override
+    protected ModelCacheNodesResponse newResponse(ModelCacheNodesRequest request, List<ModelCacheNodeResponse> responses, List<FailedNodeException> failures) {
+        return new ModelCacheNodesResponse(clusterService.getClusterName(), responses, failures);
+    }
+
+    @Override
+    protected NodeRequest newNodeRequest(ModelCacheNodesRequest request) {
+        return new NodeRequest(request);
+    }
+
+    @Override
+    protected ModelCacheNodeResponse newNodeResponse(StreamInput in) throws IOException {
+        return new ModelCacheNodeResponse(in);
+    }
+
+    @Override
+    protected ModelCacheNodeResponse nodeOperation(NodeRequest nodeRequest) {
+        ModelCacheNodesRequest request = nodeRequest.request;
+        if (request.isClear()) {
+            modelCache.clear();
+        } else if (request.entityType() != null) {
+            modelCache.invalidate(request.entityType(), request.primaryTerm(), request.seqNo());
+        }
+        return new ModelCacheNodeResponse(clusterService.localNode(), modelCache);
+    }
+
+    public static class NodeRequest extends BaseNodeRequest {
+
+        final ModelCacheNodesRequest request;
+
+        public NodeRequest(StreamInput in) throws IOException {
+            super(in);
+            this.request = new ModelCacheNodesRequest(in);
+        }
+
+        NodeRequest(ModelCacheNodesRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            request.writeTo(out);
+        }
+    }
+}
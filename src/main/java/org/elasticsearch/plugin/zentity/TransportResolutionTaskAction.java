@@ -0,0 +1,466 @@
+package org.elasticsearch.plugin.zentity;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.zentity.common.CompletableFutureUtil;
+import io.zentity.common.FunctionalUtil.UnCheckedBiFunction;
+import io.zentity.common.FunctionalUtil.UnCheckedFunction;
+import io.zentity.common.FunctionalUtil.UnCheckedSupplier;
+import io.zentity.common.Json;
+import io.zentity.common.LineIterator;
+import io.zentity.common.SecurityUtil;
+import io.zentity.resolution.BulkResolutionResponse;
+import io.zentity.resolution.BulkResolutionStream;
+import io.zentity.resolution.Job;
+import io.zentity.resolution.ResolutionResponse;
+import io.zentity.resolution.ResolutionStats;
+import io.zentity.resolution.ResolutionStream;
+import io.zentity.resolution.ResolutionTask;
+import io.zentity.resolution.SearchBatcher;
+import io.zentity.resolution.input.Input;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.ParentTaskAssigningClient;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.plugin.zentity.exceptions.BadRequestException;
+import org.elasticsearch.plugin.zentity.exceptions.NotFoundException;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static java.util.Collections.emptyMap;
+
+/**
+ * Runs the jobs of a {@link ResolutionTaskRequest} under a {@link ResolutionTask}. The searches of the jobs are sent
+ * as child tasks of it, so that cancelling the task cancels them too.
+ */
+public class TransportResolutionTaskAction extends HandledTransportAction<ResolutionTaskRequest, ResolutionTaskResponse> {
+
+    // All parameters known to the request
+    static final String PARAM_ENTITY_TYPE = "entity_type";
+    static final String PARAM_PRETTY = "pretty";
+    static final String PARAM_DELTA_HOPS = "delta_hops";
+    static final String PARAM_DOC_VALUE_FIELDS = "docvalue_fields";
+    static final String PARAM_INCLUDE_ATTRIBUTES = "_attributes";
+    static final String PARAM_INCLUDE_ERROR_TRACE = "error_trace";
+    static final String PARAM_INCLUDE_EXPLANATION = "_explanation";
+    static final String PARAM_INCLUDE_HITS = "hits";
+    static final String PARAM_INCLUDE_QUERIES = "queries";
+    static final String PARAM_INCLUDE_SCORE = "_score";
+    static final String PARAM_INCLUDE_SEQ_NO_PRIMARY_TERM = "_seq_no_primary_term";
+    static final String PARAM_INCLUDE_SOURCE = "_source";
+    static final String PARAM_INCLUDE_VERSION = "_version";
+    static final String PARAM_MAX_CONCURRENT_SEARCHES = "max_concurrent_searches";
+    static final String PARAM_MAX_DOCS = "max_docs";
+    static final String PARAM_MAX_DOCS_PER_QUERY = "max_docs_per_query";
+    static final String PARAM_MAX_EXCLUDED_IDS = "max_excluded_ids";
+    static final String PARAM_MAX_HOPS = "max_hops";
+    static final String PARAM_MAX_QUERIES = "max_queries";
+    static final String PARAM_MAX_TIME = "max_time";
+    static final String PARAM_MAX_TIME_PER_QUERY = "max_time_per_query";
+    static final String PARAM_MULTI_SEARCH = "msearch";
+    static final String PARAM_MULTI_SEARCH_BATCH_SIZE = "msearch_batch_size";
+    static final String PARAM_MULTI_SEARCH_BATCH_LINGER = "msearch_batch_linger";
+    static final String PARAM_PAGE_KEEP_ALIVE = "page_keep_alive";
+    static final String PARAM_PAGE_SIZE = "page_size";
+    static final String PARAM_PROFILE = "profile";
+    static final String PARAM_STREAM = "stream";
+    static final String PARAM_SEARCH_ALLOW_PARTIAL_SEARCH_RESULTS = "search.allow_partial_search_results";
+    static final String PARAM_SEARCH_BATCHED_REDUCE_SIZE = "search.batched_reduce_size";
+    static final String PARAM_SEARCH_MAX_CONCURRENT_SHARD_REQUESTS = "search.max_concurrent_shard_requests";
+    static final String PARAM_SEARCH_PRE_FILTER_SHARD_SIZE = "search.pre_filter_shard_size";
+    static final String PARAM_SEARCH_REQUEST_CACHE = "search.request_cache";
+    static final String PARAM_SEARCH_PREFERENCE = "search.preference";
+
+    // All parameters known to the request, which are read from the REST request so that unknown ones are rejected
+    static final String[] PARAMS = {
+        PARAM_ENTITY_TYPE,
+        PARAM_PRETTY,
+        PARAM_DELTA_HOPS,
+        PARAM_DOC_VALUE_FIELDS,
+        PARAM_INCLUDE_ATTRIBUTES,
+        PARAM_INCLUDE_ERROR_TRACE,
+        PARAM_INCLUDE_EXPLANATION,
+        PARAM_INCLUDE_HITS,
+        PARAM_INCLUDE_QUERIES,
+        PARAM_INCLUDE_SCORE,
+        PARAM_INCLUDE_SEQ_NO_PRIMARY_TERM,
+        PARAM_INCLUDE_SOURCE,
+        PARAM_INCLUDE_VERSION,
+        PARAM_MAX_CONCURRENT_SEARCHES,
+        PARAM_MAX_DOCS,
+        PARAM_MAX_DOCS_PER_QUERY,
+        PARAM_MAX_EXCLUDED_IDS,
+        PARAM_MAX_HOPS,
+        PARAM_MAX_QUERIES,
+        PARAM_MAX_TIME,
+        PARAM_MAX_TIME_PER_QUERY,
+        PARAM_MULTI_SEARCH,
+        PARAM_MULTI_SEARCH_BATCH_SIZE,
+        PARAM_MULTI_SEARCH_BATCH_LINGER,
+        PARAM_PAGE_KEEP_ALIVE,
+        PARAM_PAGE_SIZE,
+        PARAM_PROFILE,
+        PARAM_STREAM,
+        PARAM_SEARCH_ALLOW_PARTIAL_SEARCH_RESULTS,
+        PARAM_SEARCH_BATCHED_REDUCE_SIZE,
+        PARAM_SEARCH_MAX_CONCURRENT_SHARD_REQUESTS,
+        PARAM_SEARCH_PRE_FILTER_SHARD_SIZE,
+        PARAM_SEARCH_REQUEST_CACHE,
+        PARAM_SEARCH_PREFERENCE
+    };
+
+    private final NodeClient nodeClient;
+    private final ZentityConfig config;
+    private final ModelCache modelCache;
+    private final ResolutionStats stats;
+    private final JobAdmission jobAdmission;
+    private final Executor resolutionExecutor;
+
+    @Inject
+    public TransportResolutionTaskAction(
+        TransportService transportService,
+        ActionFilters actionFilters,
+        NodeClient nodeClient,
+        ThreadPool threadPool,
+        ZentityConfig config,
+        ModelCache modelCache,
+        ResolutionStats stats,
+        JobAdmission jobAdmission
+    ) {
+        super(ResolutionTaskAction.NAME, transportService, actionFilters, ResolutionTaskRequest::new);
+        this.nodeClient = nodeClient;
+        this.config = config;
+        this.modelCache = modelCache;
+        this.stats = stats;
+        this.jobAdmission = jobAdmission;
+        // The executor that starts the jobs, which rejects them when it is saturated.
+        this.resolutionExecutor = threadPool.executor(ZentityPlugin.RESOLUTION_THREAD_POOL_NAME);
+    }
+
+    CompletableFuture<Input> getInputAsync(String entityType, String body) {
+        return CompletableFuture
+            .supplyAsync(
+                UnCheckedSupplier.from(() -> {
+                    // Validate the request body.
+                    if (body == null || body.equals("")) {
+                        throw new BadRequestException("Request body is missing.");
+                    }
+
+                    // Parse and validate the job input.
+                    if (entityType == null || entityType.equals("")) {
+                        return new Input(body);
+                    }
+                    return null;
+                }),
+                resolutionExecutor
+            ).thenCompose((input) -> {
+                if (input != null) {
+                    return CompletableFuture.completedFuture(input);
+                }
+                return new ModelsAction(config, modelCache)
+                    .getCachedModelPlan(entityType, nodeClient)
+                    .thenApply(UnCheckedFunction.from((plan) -> {
+                        if (plan == null) {
+                            throw new NotFoundException("Entity type '" + entityType + "' not found.");
+                        }
+                        return new Input(body, plan);
+                    }));
+            })
+            .exceptionally((ex) -> {
+                Throwable cause = CompletableFutureUtil.getCause(ex);
+                if (cause instanceof JsonParseException) {
+                    throw new BadRequestException("Invalid JSON body", cause);
+                }
+                throw new CompletionException(cause);
+            });
+    }
+
+    CompletableFuture<Job> buildJobAsync(ResolutionTask task, Client client, String body, Map<String, String> params, Map<String, String> reqParams, SearchBatcher searchBatcher, ResolutionStream resolutionStream) {
+        final String entityType = ParamsUtil.optString(PARAM_ENTITY_TYPE, null, params, reqParams);
+        return getInputAsync(entityType, body)
+            .thenApply(
+                (input) -> {
+                    // Parse the request params that will be passed to the job configuration
+                    final boolean deltaHops = ParamsUtil.optBoolean(PARAM_DELTA_HOPS, Job.DEFAULT_DELTA_HOPS, params, reqParams);
+                    final boolean docValueFields = ParamsUtil.optBoolean(PARAM_DOC_VALUE_FIELDS, Job.DEFAULT_DOC_VALUE_FIELDS, params, reqParams);
+                    final boolean includeAttributes = ParamsUtil.optBoolean(PARAM_INCLUDE_ATTRIBUTES, Job.DEFAULT_INCLUDE_ATTRIBUTES, params, reqParams);
+                    final boolean includeErrorTrace = ParamsUtil.optBoolean(PARAM_INCLUDE_ERROR_TRACE, Job.DEFAULT_INCLUDE_ERROR_TRACE, params, reqParams);
+                    final boolean includeExplanation = ParamsUtil.optBoolean(PARAM_INCLUDE_EXPLANATION, Job.DEFAULT_INCLUDE_EXPLANATION, params, reqParams);
+                    final boolean includeHits = ParamsUtil.optBoolean(PARAM_INCLUDE_HITS, Job.DEFAULT_INCLUDE_HITS, params, reqParams);
+                    final boolean includeQueries = ParamsUtil.optBoolean(PARAM_INCLUDE_QUERIES, Job.DEFAULT_INCLUDE_QUERIES, params, reqParams);
+                    final boolean includeScore = ParamsUtil.optBoolean(PARAM_INCLUDE_SCORE, Job.DEFAULT_INCLUDE_SCORE, params, reqParams);
+                    final boolean includeSeqNoPrimaryTerm = ParamsUtil.optBoolean(PARAM_INCLUDE_SEQ_NO_PRIMARY_TERM, Job.DEFAULT_INCLUDE_SEQ_NO_PRIMARY_TERM, params, reqParams);
+                    final boolean includeSource = ParamsUtil.optBoolean(PARAM_INCLUDE_SOURCE, Job.DEFAULT_INCLUDE_SOURCE, params, reqParams);
+                    final boolean includeVersion = ParamsUtil.optBoolean(PARAM_INCLUDE_VERSION, Job.DEFAULT_INCLUDE_VERSION, params, reqParams);
+                    final int maxConcurrentSearches = ParamsUtil.optInteger(PARAM_MAX_CONCURRENT_SEARCHES, Job.DEFAULT_MAX_CONCURRENT_SEARCHES, params, reqParams);
+                    final int maxDocs = ParamsUtil.optInteger(PARAM_MAX_DOCS, Job.DEFAULT_MAX_DOCS, params, reqParams);
+                    final int maxDocsPerQuery = ParamsUtil.optInteger(PARAM_MAX_DOCS_PER_QUERY, Job.DEFAULT_MAX_DOCS_PER_QUERY, params, reqParams);
+                    final int maxExcludedIds = ParamsUtil.optInteger(PARAM_MAX_EXCLUDED_IDS, Job.DEFAULT_MAX_EXCLUDED_IDS, params, reqParams);
+                    final int maxHops = ParamsUtil.optInteger(PARAM_MAX_HOPS, Job.DEFAULT_MAX_HOPS, params, reqParams);
+                    final int maxQueries = ParamsUtil.optInteger(PARAM_MAX_QUERIES, Job.DEFAULT_MAX_QUERIES, params, reqParams);
+                    final TimeValue maxTime = ParamsUtil.optTimeValue(PARAM_MAX_TIME, Job.DEFAULT_MAX_TIME, params, reqParams);
+                    final TimeValue maxTimePerQuery = ParamsUtil.optTimeValue(PARAM_MAX_TIME_PER_QUERY, Job.DEFAULT_MAX_TIME_PER_QUERY, params, reqParams);
+                    final boolean multiSearch = ParamsUtil.optBoolean(PARAM_MULTI_SEARCH, Job.DEFAULT_MULTI_SEARCH, params, reqParams);
+                    final TimeValue pageKeepAlive = ParamsUtil.optTimeValue(PARAM_PAGE_KEEP_ALIVE, Job.DEFAULT_PAGE_KEEP_ALIVE, params, reqParams);
+                    final int pageSize = ParamsUtil.optInteger(PARAM_PAGE_SIZE, Job.DEFAULT_PAGE_SIZE, params, reqParams);
+                    final boolean profile = ParamsUtil.optBoolean(PARAM_PROFILE, Job.DEFAULT_PROFILE, params, reqParams);
+
+                    // Parse any optional search parameters that will be passed to the job configuration.
+                    final Boolean searchAllowPartialSearchResults = ParamsUtil.optBoolean(PARAM_SEARCH_ALLOW_PARTIAL_SEARCH_RESULTS, null, params, reqParams);
+                    final Integer searchBatchedReduceSize = ParamsUtil.optInteger(PARAM_SEARCH_BATCHED_REDUCE_SIZE, null, params, reqParams);
+                    final Integer searchMaxConcurrentShardRequests = ParamsUtil.optInteger(PARAM_SEARCH_MAX_CONCURRENT_SHARD_REQUESTS, null, params, reqParams);
+                    final Integer searchPreFilterShardSize = ParamsUtil.optInteger(PARAM_SEARCH_PRE_FILTER_SHARD_SIZE, null, params, reqParams);
+                    final Boolean searchRequestCache = ParamsUtil.optBoolean(PARAM_SEARCH_REQUEST_CACHE, null, params, reqParams);
+                    final String searchPreference = ParamsUtil.optString(PARAM_SEARCH_PREFERENCE, null, params, reqParams);
+
+                    return Job.newBuilder()
+                        .client(client)
+                        .task(task)
+                        .deltaHops(deltaHops)
+                        .docValueFields(docValueFields)
+                        .includeAttributes(includeAttributes)
+                        .includeErrorTrace(includeErrorTrace)
+                        .includeExplanation(includeExplanation)
+                        .includeHits(includeHits)
+                        .includeQueries(includeQueries)
+                        .includeScore(includeScore)
+                        .includeSeqNoPrimaryTerm(includeSeqNoPrimaryTerm)
+                        .includeSource(includeSource)
+                        .includeVersion(includeVersion)
+                        .maxConcurrentSearches(maxConcurrentSearches)
+                        .maxDocs(maxDocs)
+                        .maxDocsPerQuery(maxDocsPerQuery)
+                        .maxExcludedIds(maxExcludedIds)
+                        .maxHops(maxHops)
+                        .maxQueries(maxQueries)
+                        .maxTime(maxTime)
+                        .maxTimePerQuery(maxTimePerQuery)
+                        .multiSearch(multiSearch)
+                        .pageKeepAlive(pageKeepAlive)
+                        .pageSize(pageSize)
+                        .profile(profile)
+                        .resolutionStream(resolutionStream)
+                        .input(input)
+                        .searchAllowPartialSearchResults(searchAllowPartialSearchResults)
+                        .searchBatchedReduceSize(searchBatchedReduceSize)
+                        .searchMaxConcurrentShardRequests(searchMaxConcurrentShardRequests)
+                        .searchPreFilterShardSize(searchPreFilterShardSize)
+                        .searchPreference(searchPreference)
+                        .searchRequestCache(searchRequestCache)
+                        .searchBatcher(searchBatcher)
+                        .stats(stats)
+                        .build();
+                }
+            );
+    }
+
+    CompletableFuture<ResolutionResponse> buildAndRunJobAsync(ResolutionTask task, Client client, String body, Map<String, String> params, Map<String, String> reqParams, SearchBatcher searchBatcher, ResolutionStream resolutionStream) {
+        // Reject the job right away if the node runs as many jobs as it can.
+        try {
+            jobAdmission.acquire();
+        } catch (EsRejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        CompletableFuture<ResolutionResponse> responseFuture;
+        try {
+            responseFuture = buildJobAsync(task, client, body, params, reqParams, searchBatcher, resolutionStream)
+                .thenCompose(Job::runAsync);
+        } catch (RuntimeException ex) {
+            responseFuture = CompletableFuture.failedFuture(ex);
+        }
+        return responseFuture.whenComplete((res, ex) -> {
+            jobAdmission.release();
+            task.onJobCompleted();
+        });
+    }
+
+    /**
+     * Read the pairs of params and resolution body of a bulk request as suppliers that run their jobs.
+     * Each pair of lines is read only when there is room to run its job, so that the jobs start while the rest of
+     * the body is still unread, and no more than the concurrency limit of them are decoded at a time. A params line
+     * without a resolution body fails the request once it is read.
+     *
+     * @param itemHandler Handles the response of a job, given the position of the job in the request.
+     */
+    <T> Iterator<Supplier<CompletableFuture<T>>> bulkJobSuppliers(ResolutionTask task, Client client, BytesReference reqBody, Map<String, String> reqParams, SearchBatcher searchBatcher, BiFunction<Integer, ResolutionResponse, T> itemHandler) {
+        final LineIterator lines = new LineIterator(reqBody);
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public Supplier<CompletableFuture<T>> next() {
+                // Start no more jobs once the request is cancelled.
+                task.ensureNotCancelled();
+                final int itemPosition = position++;
+                final BytesReference paramsLine = lines.next();
+                if (!lines.hasNext()) {
+                    throw new BadRequestException("Bulk request must have repeating pairs of params and resolution body on separate lines.");
+                }
+                final BytesReference bodyLine = lines.next();
+                return () -> {
+                    final String paramsStr = paramsLine.utf8ToString();
+                    Map<String, String> params;
+                    try {
+                        params = Json.toStringMap(paramsStr);
+                    } catch (Exception ex) {
+                        throw new BadRequestException("Could not parse parameters: " + paramsStr);
+                    }
+                    final String body = bodyLine.utf8ToString();
+
+                    return buildAndRunJobAsync(task, client, body, params, reqParams, searchBatcher, null)
+                        .thenApply((res) -> {
+                            stats.onBulkItem(res.isFailure());
+                            return itemHandler.apply(itemPosition, res);
+                        });
+                };
+            }
+        };
+    }
+
+    CompletableFuture<ResolutionTaskResponse> handleBulkJobRequest(final ResolutionTask task, final Client client, final ObjectWriter responseWriter, final BytesReference reqBody, final Map<String, String> reqParams) {
+        stats.onBulkRequest();
+
+        // Optionally coalesce the searches of all the jobs into shared _msearch requests.
+        final int searchBatchSize = ParamsUtil.optInteger(PARAM_MULTI_SEARCH_BATCH_SIZE, 0, reqParams, emptyMap());
+        final SearchBatcher searchBatcher;
+        if (searchBatchSize > 0) {
+            final TimeValue searchBatchLinger = ParamsUtil.optTimeValue(PARAM_MULTI_SEARCH_BATCH_LINGER, SearchBatcher.DEFAULT_LINGER, reqParams, emptyMap());
+            searchBatcher = new SearchBatcher(client, searchBatchSize, searchBatchLinger);
+        } else {
+            searchBatcher = null;
+        }
+
+        int maxConcurrentJobs = config.getResolutionMaxConcurrentJobsPerRequest();
+
+        // Start timer and begin the jobs
+        final long startTime = System.nanoTime();
+
+        // Optionally buffer each response as an NDJSON record when its job completes, and keep only the record.
+        // The records are sent once every job is done.
+        if (ParamsUtil.optBoolean(PARAM_STREAM, false, reqParams, emptyMap())) {
+            final BulkResolutionStream bulkStream = new BulkResolutionStream();
+            Iterator<Supplier<CompletableFuture<Boolean>>> runJobsSuppliers = bulkJobSuppliers(
+                task,
+                client,
+                reqBody,
+                reqParams,
+                searchBatcher,
+                UnCheckedBiFunction.from((position, res) -> {
+                    bulkStream.writeItem(position, res);
+                    return res.isFailure();
+                })
+            );
+            return CompletableFutureUtil.runParallel(runJobsSuppliers, maxConcurrentJobs)
+                .thenApply(UnCheckedFunction.from((failures) -> {
+                    bulkStream.writeSummary(Duration.ofNanos(System.nanoTime() - startTime));
+                    return new ResolutionTaskResponse(RestStatus.OK, ResolutionStream.CONTENT_TYPE, bulkStream.bytes());
+                }));
+        }
+
+        Iterator<Supplier<CompletableFuture<ResolutionResponse>>> runJobsSuppliers = bulkJobSuppliers(
+            task,
+            client,
+            reqBody,
+            reqParams,
+            searchBatcher,
+            (position, res) -> res
+        );
+
+        // maybe this belongs better in a BulkJob class
+        return CompletableFutureUtil.runParallel(runJobsSuppliers, maxConcurrentJobs)
+            .thenApply(UnCheckedFunction.from((jobResponses) -> {
+                BulkResolutionResponse response = new BulkResolutionResponse();
+                // mark as an error if any of the jobs failed
+                response.errors = jobResponses.stream().anyMatch(ResolutionResponse::isFailure);
+                response.items = jobResponses;
+                response.tookMs = Duration.ofNanos(System.nanoTime() - startTime).toMillis();
+
+                // Jackson needs reflection access, which requires escalated security
+                String responseJson = SecurityUtil.doPrivileged(
+                    (CheckedSupplier<String, ?>) () -> responseWriter.writeValueAsString(response)
+                );
+
+                return new ResolutionTaskResponse(RestStatus.OK, "application/json", responseJson);
+            }));
+    }
+
+    CompletableFuture<ResolutionTaskResponse> handleSingleJobRequest(ResolutionTask task, Client client, ObjectWriter responseWriter, String body, Map<String, String> reqParams) {
+        // Optionally buffer the results as NDJSON records, which are sent once the job is done.
+        if (ParamsUtil.optBoolean(PARAM_STREAM, false, reqParams, emptyMap())) {
+            final ResolutionStream resolutionStream = new ResolutionStream();
+            return buildAndRunJobAsync(task, client, body, reqParams, emptyMap(), null, resolutionStream)
+                .thenApply((res) -> {
+                    RestStatus status = res.isFailure() ? RestStatus.INTERNAL_SERVER_ERROR : RestStatus.OK;
+                    return new ResolutionTaskResponse(status, ResolutionStream.CONTENT_TYPE, resolutionStream.bytes());
+                });
+        }
+
+        return buildAndRunJobAsync(task, client, body, reqParams, emptyMap(), null, null)
+            .thenApply(UnCheckedFunction.from((res) -> {
+                // Jackson needs reflection access, which requires escalated security
+                String responseJson = SecurityUtil.doPrivileged((
+                    CheckedSupplier<String, ?>) () -> responseWriter.writeValueAsString(res)
+                );
+
+                RestStatus status = res.isFailure() ? RestStatus.INTERNAL_SERVER_ERROR : RestStatus.OK;
+
+                return new ResolutionTaskResponse(status, "application/json", responseJson);
+            }));
+    }
+
+    @Override
+    protected void doExecute(Task task, ResolutionTaskRequest request, ActionListener<ResolutionTaskResponse> listener) {
+        final ResolutionTask resolutionTask = (ResolutionTask) task;
+        // Send every request of the jobs as a child of the task.
+        final Client client = new ParentTaskAssigningClient(nodeClient, new TaskId(nodeClient.getLocalNodeId(), task.getId()));
+        final Map<String, String> reqParams = request.params();
+
+        // Parse the request params that govern the entire request/response
+        final boolean pretty = ParamsUtil.optBoolean(PARAM_PRETTY, false, reqParams, emptyMap());
+        final ObjectWriter writer = pretty
+            ? Json.ORDERED_MAPPER.writerWithDefaultPrettyPrinter()
+            : Json.MAPPER.writer();
+
+        final CompletableFuture<ResolutionTaskResponse> responseFuture;
+        try {
+            responseFuture = request.isBulk()
+                ? handleBulkJobRequest(resolutionTask, client, writer, request.content(), reqParams)
+                : handleSingleJobRequest(resolutionTask, client, writer, request.content().utf8ToString(), reqParams);
+        } catch (Exception ex) {
+            listener.onFailure(ex);
+            return;
+        }
+        responseFuture.whenComplete((response, ex) -> {
+            if (ex != null) {
+                Throwable cause = CompletableFutureUtil.getCause(ex);
+                listener.onFailure(cause instanceof Exception ? (Exception) cause : new Exception(cause));
+            } else {
+                listener.onResponse(response);
+            }
+        });
+    }
+}
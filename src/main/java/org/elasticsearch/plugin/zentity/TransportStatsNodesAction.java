@@ -0,0 +1,104 @@
+package org.elasticsearch.plugin.zentity;
+
+import io.zentity.resolution.ResolutionStats;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.BaseNodeRequest;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.threadpool.ThreadPoolStats;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads the zentity stats of every node of a {@link StatsNodesRequest}.
+ */
+public class TransportStatsNodesAction extends TransportNodesAction<
+    StatsNodesRequest,
+    StatsNodesResponse,
+    TransportStatsNodesAction.NodeRequest,
+    StatsNodeResponse> {
+
+    private final ModelCache modelCache;
+    private final ResolutionStats resolutionStats;
+    private final JobAdmission jobAdmission;
+
+    @Inject
+    public TransportStatsNodesAction(
+        ThreadPool threadPool,
+        ClusterService clusterService,
+        TransportService transportService,
+        ActionFilters actionFilters,
+        ModelCache modelCache,
+        ResolutionStats resolutionStats,
+        JobAdmission jobAdmission
+    ) {
+        super(
+            StatsNodesAction.NAME,
+            threadPool,
+            clusterService,
+            transportService,
+            actionFilters,
+            StatsNodesRequest::new,
+            NodeRequest::new,
+            ThreadPool.Names.MANAGEMENT,
+            StatsNodeResponse.class
+        );
+        this.modelCache = modelCache;
+        this.resolutionStats = resolutionStats;
+        this.jobAdmission = jobAdmission;
+    }
+
+    @Override
+    protected StatsNodesResponse newResponse(StatsNodesRequest request, List<StatsNodeResponse> responses, List<FailedNodeException> failures) {
+        return new StatsNodesResponse(clusterService.getClusterName(), responses, failures);
+    }
+
+    @Override
+    protected NodeRequest newNodeRequest(StatsNodesRequest request) {
+        return new NodeRequest(request);
+    }
+
+    @Override
+    protected StatsNodeResponse newNodeResponse(StreamInput in) throws IOException {
+        return new StatsNodeResponse(in);
+    }
+
+    @Override
+    protected StatsNodeResponse nodeOperation(NodeRequest nodeRequest) {
+        ThreadPoolStats.Stats threadPoolStats = null;
+        for (ThreadPoolStats.Stats stats : threadPool.stats()) {
+            if (stats.getName().equals(ZentityPlugin.RESOLUTION_THREAD_POOL_NAME)) {
+                threadPoolStats = stats;
+                break;
+            }
+        }
+        return new StatsNodeResponse(clusterService.localNode(), resolutionStats.snapshot(), jobAdmission, threadPoolStats, modelCache);
+    }
+
+    public static class NodeRequest extends BaseNodeRequest {
+
+        final StatsNodesRequest request;
+
+        public NodeRequest(StreamInput in) throws IOException {
+            super(in);
+            this.request = new StatsNodesRequest(in);
+        }
+
+        NodeRequest(StatsNodesRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            request.writeTo(out);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.elasticsearch.plugin.zentity;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.env.Environment;
 
 import java.io.IOException;
@@ -27,6 +28,12 @@ public class ZentityConfig {
     private static final Setting<Integer> MODELS_INDEX_DEFAULT_NUMBER_OF_REPLICAS = Setting
         .intSetting("index.default_number_of_replicas", 1, Setting.Property.NodeScope, Setting.Property.Final);
 
+    private static final Setting<Integer> MODELS_CACHE_MAX_SIZE = Setting
+        .intSetting("models.cache.max_size", 100, 0, Setting.Property.NodeScope, Setting.Property.Final);
+
+    private static final Setting<TimeValue> MODELS_CACHE_EXPIRE_AFTER_WRITE = Setting
+        .timeSetting("models.cache.expire_after_write", TimeValue.timeValueMinutes(1), TimeValue.timeValueMillis(1), Setting.Property.NodeScope, Setting.Property.Final);
+
     private final Settings settings;
 
     public ZentityConfig(Environment env) {
@@ -68,13 +75,23 @@ public class ZentityConfig {
         return MODELS_INDEX_DEFAULT_NUMBER_OF_REPLICAS.get(settings);
     }
 
+    public int getModelsCacheMaxSize() {
+        return MODELS_CACHE_MAX_SIZE.get(settings);
+    }
+
+    public TimeValue getModelsCacheExpireAfterWrite() {
+        return MODELS_CACHE_EXPIRE_AFTER_WRITE.get(settings);
+    }
+
     public List<Setting<?>> getSettings() {
         return Arrays.asList(
             RESOLUTION_MAX_CONCURRENT_JOBS,
             RESOLUTION_MAX_CONCURRENT_JOBS_PER_REQUEST,
             MODELS_INDEX_NAME,
             MODELS_INDEX_DEFAULT_NUMBER_OF_SHARDS,
-            MODELS_INDEX_DEFAULT_NUMBER_OF_REPLICAS
+            MODELS_INDEX_DEFAULT_NUMBER_OF_REPLICAS,
+            MODELS_CACHE_MAX_SIZE,
+            MODELS_CACHE_EXPIRE_AFTER_WRITE
         );
     }
 }
@@ -9,31 +9,48 @@ import io.zentity.resolution.LoggedFilter;
 import io.zentity.resolution.LoggedQuery;
 import io.zentity.resolution.LoggedSearch;
 import io.zentity.resolution.ResolutionResponse;
+import io.zentity.resolution.ResolutionStats;
+import io.zentity.resolution.ResolutionTask;
 import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
 import org.elasticsearch.action.search.SearchAction;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchResponseSections;
 import org.elasticsearch.action.search.ShardSearchFailure;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.settings.SettingsFilter;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.Environment;
+import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.plugins.ActionPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestHandler;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.profile.SearchProfileShardResults;
 import org.elasticsearch.search.suggest.Suggest;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ExecutorBuilder;
+import org.elasticsearch.threadpool.FixedExecutorBuilder;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.watcher.ResourceWatcherService;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -49,10 +66,19 @@ import java.util.function.Supplier;
 
 public class ZentityPlugin extends Plugin implements ActionPlugin {
 
+    // The thread pool that starts resolution jobs
+    public static final String RESOLUTION_THREAD_POOL_NAME = "zentity_resolution";
+
     private static final Properties PROPERTIES = new Properties();
 
     public ZentityConfig config;
 
+    private final ModelCache modelCache;
+
+    private final ResolutionStats resolutionStats = new ResolutionStats();
+
+    private final JobAdmission jobAdmission;
+
     static {
         try {
             Properties zentityProperties = loadPropertiesFromResources("/zentity.properties");
@@ -148,6 +174,8 @@ public class ZentityPlugin extends Plugin implements ActionPlugin {
 
     public ZentityPlugin(final Settings settings, final Path configPath) {
         this.config = new ZentityConfig(new Environment(settings, configPath));
+        this.modelCache = new ModelCache(config.getModelsCacheMaxSize(), config.getModelsCacheExpireAfterWrite());
+        this.jobAdmission = new JobAdmission(config.getResolutionMaxConcurrentJobs());
     }
 
     private static Properties loadPropertiesFromResources(String resourcePath) throws IOException {
@@ -165,6 +193,61 @@ public class ZentityPlugin extends Plugin implements ActionPlugin {
         return PROPERTIES.getProperty("version");
     }
 
+    @Override
+    public Collection<Object> createComponents(
+        Client client,
+        ClusterService clusterService,
+        ThreadPool threadPool,
+        ResourceWatcherService resourceWatcherService,
+        ScriptService scriptService,
+        NamedXContentRegistry xContentRegistry,
+        Environment environment,
+        NodeEnvironment nodeEnvironment,
+        NamedWriteableRegistry namedWriteableRegistry,
+        IndexNameExpressionResolver indexNameExpressionResolver,
+        Supplier<RepositoriesService> repositoriesServiceSupplier) {
+        // Bind the model cache, the stats, the job admission, and the config for injection into the transport actions.
+        return List.of(modelCache, resolutionStats, jobAdmission, config);
+    }
+
+    /**
+     * Declare the thread pool that parses the inputs of resolution jobs, so that it is listed in the thread pool
+     * stats. The number of jobs that run at once is capped by {@link JobAdmission}, which never admits more jobs than
+     * the queue holds. Its size and queue size can be set in the node settings with
+     * "thread_pool.zentity_resolution.size" and "thread_pool.zentity_resolution.queue_size".
+     */
+    @Override
+    public List<ExecutorBuilder<?>> getExecutorBuilders(Settings settings) {
+        return List.of(
+            new FixedExecutorBuilder(
+                settings,
+                RESOLUTION_THREAD_POOL_NAME,
+                EsExecutors.allocatedProcessors(settings),
+                config.getResolutionMaxConcurrentJobs(),
+                "thread_pool." + RESOLUTION_THREAD_POOL_NAME
+            )
+        );
+    }
+
+    @Override
+    public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+        return List.of(
+            new ActionHandler<>(ModelCacheNodesAction.INSTANCE, TransportModelCacheNodesAction.class),
+            new ActionHandler<>(ResolutionTaskAction.INSTANCE, TransportResolutionTaskAction.class),
+            new ActionHandler<>(StatsNodesAction.INSTANCE, TransportStatsNodesAction.class)
+        );
+    }
+
+    /**
+     * Register the status of resolution tasks, so that the task management API can read it from other nodes.
+     */
+    @Override
+    public List<NamedWriteableRegistry.Entry> getNamedWriteables() {
+        return List.of(
+            new NamedWriteableRegistry.Entry(Task.Status.class, ResolutionTask.Status.NAME, ResolutionTask.Status::new)
+        );
+    }
+
     @Override
     public List<RestHandler> getRestHandlers(
         Settings settings,
@@ -176,9 +259,11 @@ public class ZentityPlugin extends Plugin implements ActionPlugin {
         Supplier<DiscoveryNodes> nodesInCluster) {
         return List.of(
             new HomeAction(config),
-            new ModelsAction(config),
+            new ModelCacheAction(config),
+            new ModelsAction(config, modelCache),
             new ResolutionAction(config),
-            new SetupAction(config)
+            new SetupAction(config),
+            new StatsAction(config)
         );
     }
 
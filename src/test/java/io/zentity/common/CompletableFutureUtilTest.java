@@ -1,15 +1,23 @@
 package io.zentity.common;
 
+import io.zentity.common.CompletableFutureUtil.ErrorPolicy;
 import org.junit.Test;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class CompletableFutureUtilTest {
     @Test
@@ -63,4 +71,268 @@ public class CompletableFutureUtilTest {
 
         assertEquals(seeds, results);
     }
+
+    @Test
+    public void testRunParallelOutOfOrderCompletion() throws ExecutionException, InterruptedException {
+        List<Integer> seeds = IntStream.range(0, 50)
+            .boxed()
+            .collect(Collectors.toList());
+
+        // Later items finish first, and each completes on a different thread.
+        List<Supplier<CompletableFuture<Integer>>> suppliers = seeds
+            .stream()
+            .map((i) -> (Supplier<CompletableFuture<Integer>>) () -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(50 - i);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return i;
+            }))
+            .collect(Collectors.toList());
+
+        CompletableFuture<List<Integer>> resultFut = CompletableFutureUtil.runParallel(suppliers, 8);
+
+        List<Integer> results = resultFut.get();
+
+        assertEquals(seeds, results);
+    }
+
+    @Test
+    public void testRunParallelIterator() throws ExecutionException, InterruptedException {
+        int size = 1_000_000;
+        List<Integer> seeds = IntStream.range(0, size)
+            .boxed()
+            .collect(Collectors.toList());
+
+        // Futures that complete on the thread that started them must not recurse into the next supplier.
+        Iterator<Supplier<CompletableFuture<Integer>>> suppliers = seeds
+            .stream()
+            .map((i) -> (Supplier<CompletableFuture<Integer>>) () -> CompletableFuture.completedFuture(i))
+            .iterator();
+
+        CompletableFuture<List<Integer>> resultFut = CompletableFutureUtil.runParallel(suppliers, 2);
+
+        List<Integer> results = resultFut.get();
+
+        assertEquals(seeds, results);
+    }
+
+    @Test
+    public void testRunParallelIteratorPullsOnDemand() throws ExecutionException, InterruptedException {
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 10)
+            .mapToObj((i) -> new CompletableFuture<Integer>())
+            .collect(Collectors.toList());
+        AtomicInteger pulled = new AtomicInteger();
+
+        Iterator<Supplier<CompletableFuture<Integer>>> suppliers = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < futures.size();
+            }
+
+            @Override
+            public Supplier<CompletableFuture<Integer>> next() {
+                CompletableFuture<Integer> future = futures.get(pulled.getAndIncrement());
+                return () -> future;
+            }
+        };
+
+        CompletableFuture<List<Integer>> resultFut = CompletableFutureUtil.runParallel(suppliers, 3);
+        assertEquals(3, pulled.get());
+
+        // Completing one out of order frees a single slot.
+        futures.get(2).complete(2);
+        assertEquals(4, pulled.get());
+
+        for (int i = 0; i < futures.size(); i++) {
+            futures.get(i).complete(i);
+        }
+
+        assertEquals(10, pulled.get());
+        assertEquals(IntStream.range(0, 10).boxed().collect(Collectors.toList()), resultFut.get());
+    }
+
+    @Test
+    public void testRunParallelIteratorFailure() throws InterruptedException {
+        AtomicInteger pulled = new AtomicInteger();
+        Iterator<Supplier<CompletableFuture<Integer>>> suppliers = IntStream.range(0, 10)
+            .mapToObj((i) -> (Supplier<CompletableFuture<Integer>>) () -> {
+                pulled.incrementAndGet();
+                if (i == 3) {
+                    return CompletableFuture.failedFuture(new IllegalStateException("failed " + i));
+                }
+                return CompletableFuture.completedFuture(i);
+            })
+            .iterator();
+
+        CompletableFuture<List<Integer>> resultFut = CompletableFutureUtil.runParallel(suppliers, 1);
+
+        try {
+            resultFut.get();
+            fail("Expected the first failure");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+            assertEquals("failed 3", ex.getCause().getMessage());
+        }
+        // No more suppliers are pulled after a failure.
+        assertEquals(4, pulled.get());
+    }
+
+    @Test
+    public void testRunParallelNoStackGrowth() throws ExecutionException, InterruptedException {
+        int size = 1_000_000;
+        int baseDepth = Thread.currentThread().getStackTrace().length;
+        AtomicInteger maxDepth = new AtomicInteger();
+
+        // No-op futures complete on the thread that started them, which would nest a chain of futures.
+        List<Supplier<CompletableFuture<Integer>>> suppliers = IntStream.range(0, size)
+            .mapToObj((i) -> (Supplier<CompletableFuture<Integer>>) () -> {
+                if (i % 10_000 == 0) {
+                    maxDepth.accumulateAndGet(Thread.currentThread().getStackTrace().length, Math::max);
+                }
+                return CompletableFuture.completedFuture(i);
+            })
+            .collect(Collectors.toList());
+
+        List<Integer> results = CompletableFutureUtil.runParallel(suppliers, 8).get();
+
+        assertEquals(size, results.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals(i, results.get(i).intValue());
+        }
+        // Every supplier is called from the same loop, a fixed number of frames down.
+        assertTrue(maxDepth.get() - baseDepth < 20);
+    }
+
+    @Test
+    public void testRunParallelPermits() throws ExecutionException, InterruptedException {
+        int size = 100_000;
+        int parallelism = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<Supplier<CompletableFuture<Integer>>> suppliers = IntStream.range(0, size)
+                .mapToObj((i) -> (Supplier<CompletableFuture<Integer>>) () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    return CompletableFuture.supplyAsync(() -> {
+                        running.decrementAndGet();
+                        return i;
+                    }, executor);
+                })
+                .collect(Collectors.toList());
+
+            List<Integer> results = CompletableFutureUtil.runParallel(suppliers, parallelism).get();
+
+            assertEquals(IntStream.range(0, size).boxed().collect(Collectors.toList()), results);
+            assertTrue(maxRunning.get() <= parallelism);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRunParallelKeepsPermitsInFlight() {
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 100)
+            .mapToObj((i) -> new CompletableFuture<Integer>())
+            .collect(Collectors.toList());
+        AtomicInteger started = new AtomicInteger();
+        List<Supplier<CompletableFuture<Integer>>> suppliers = futures
+            .stream()
+            .map((future) -> (Supplier<CompletableFuture<Integer>>) () -> {
+                started.incrementAndGet();
+                return future;
+            })
+            .collect(Collectors.toList());
+
+        CompletableFuture<List<Integer>> resultFut = CompletableFutureUtil.runParallel(suppliers, 4);
+        assertEquals(4, started.get());
+
+        // A slow item does not hold back the others.
+        for (int i = 1; i < 50; i++) {
+            futures.get(i).complete(i);
+            assertEquals(i + 4, started.get());
+        }
+        assertFalse(resultFut.isDone());
+    }
+
+    @Test
+    public void testRunParallelFailFast() throws InterruptedException {
+        CompletableFuture<Integer> slow = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+        List<Supplier<CompletableFuture<Integer>>> suppliers = List.of(
+            () -> {
+                started.incrementAndGet();
+                return slow;
+            },
+            () -> {
+                started.incrementAndGet();
+                return CompletableFuture.failedFuture(new IllegalStateException("failed 1"));
+            },
+            () -> {
+                started.incrementAndGet();
+                return CompletableFuture.completedFuture(2);
+            }
+        );
+
+        CompletableFuture<List<Integer>> resultFut = CompletableFutureUtil.runParallel(suppliers.iterator(), 2, ErrorPolicy.FAIL_FAST);
+
+        // Fails without waiting for the slow item, and starts nothing more.
+        assertTrue(resultFut.isCompletedExceptionally());
+        assertEquals(2, started.get());
+        try {
+            resultFut.get();
+            fail("Expected the first failure");
+        } catch (ExecutionException ex) {
+            assertEquals("failed 1", ex.getCause().getMessage());
+        }
+        slow.complete(0);
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    public void testRunParallelCollectAll() throws InterruptedException {
+        AtomicInteger completed = new AtomicInteger();
+        List<Supplier<CompletableFuture<Integer>>> suppliers = IntStream.range(0, 10)
+            .mapToObj((i) -> (Supplier<CompletableFuture<Integer>>) () -> {
+                completed.incrementAndGet();
+                if (i % 3 == 0) {
+                    return CompletableFuture.failedFuture(new IllegalStateException("failed " + i));
+                }
+                return CompletableFuture.completedFuture(i);
+            })
+            .collect(Collectors.toList());
+
+        CompletableFuture<List<Integer>> resultFut = CompletableFutureUtil.runParallel(suppliers.iterator(), 2, ErrorPolicy.COLLECT_ALL);
+
+        assertEquals(10, completed.get());
+        try {
+            resultFut.get();
+            fail("Expected the failures");
+        } catch (ExecutionException ex) {
+            assertEquals("failed 0", ex.getCause().getMessage());
+            Throwable[] suppressed = ex.getCause().getSuppressed();
+            assertEquals(3, suppressed.length);
+            assertEquals("failed 3", suppressed[0].getMessage());
+            assertEquals("failed 6", suppressed[1].getMessage());
+            assertEquals("failed 9", suppressed[2].getMessage());
+        }
+    }
+
+    @Test
+    public void testRunSeries() throws ExecutionException, InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        List<Supplier<CompletableFuture<Integer>>> suppliers = IntStream.range(0, 20)
+            .mapToObj((i) -> (Supplier<CompletableFuture<Integer>>) () -> {
+                assertEquals(1, running.incrementAndGet());
+                return CompletableFuture.supplyAsync(() -> {
+                    running.decrementAndGet();
+                    return i;
+                });
+            })
+            .collect(Collectors.toList());
+
+        assertEquals(IntStream.range(0, 20).boxed().collect(Collectors.toList()), CompletableFutureUtil.runSeries(suppliers).get());
+    }
 }
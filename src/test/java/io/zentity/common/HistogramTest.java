@@ -0,0 +1,112 @@
+package io.zentity.common;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class HistogramTest {
+
+    @Test
+    public void testEmpty() {
+        Histogram.Snapshot snapshot = new Histogram(1, 10, 100).snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.sum());
+        assertEquals(0, snapshot.max());
+        assertEquals(0, snapshot.percentile(50));
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram(1, 10, 100);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count());
+        assertEquals(5050, snapshot.sum());
+        assertEquals(100, snapshot.max());
+        assertEquals(1, snapshot.percentile(0));
+        assertEquals(1, snapshot.percentile(1));
+        assertEquals(10, snapshot.percentile(10));
+        assertEquals(100, snapshot.percentile(11));
+        assertEquals(100, snapshot.percentile(99));
+    }
+
+    /**
+     * Values above the last bound fall in the overflow bucket, whose percentiles are estimated as the max.
+     */
+    @Test
+    public void testOverflow() {
+        Histogram histogram = new Histogram(1, 10);
+        histogram.record(5);
+        histogram.record(500);
+        histogram.record(-3);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.count());
+        assertEquals(505, snapshot.sum());
+        assertEquals(1, snapshot.percentile(0));
+        assertEquals(10, snapshot.percentile(50));
+        assertEquals(500, snapshot.percentile(99));
+    }
+
+    /**
+     * A percentile is not estimated above the largest recorded value.
+     */
+    @Test
+    public void testPercentileAtMostMax() {
+        Histogram histogram = new Histogram(1000);
+        histogram.record(3);
+        assertEquals(3, histogram.snapshot().percentile(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnorderedBounds() {
+        new Histogram(10, 1);
+    }
+
+    @Test
+    public void testConcurrentRecord() throws Exception {
+        Histogram histogram = new Histogram(Histogram.MILLIS_BOUNDS);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.record(i % 100);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.snapshot().count());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        Histogram histogram = new Histogram(1, 10);
+        histogram.record(1);
+        histogram.record(7);
+        histogram.record(20);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        snapshot.writeTo(out);
+        Histogram.Snapshot read = new Histogram.Snapshot(out.bytes().streamInput());
+
+        XContentBuilder builder = JsonXContent.contentBuilder().startObject();
+        read.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+        String expected = "{\"count\":3,\"avg\":9,\"max\":20,\"percentiles\":{\"50\":10,\"90\":20,\"99\":20},\"buckets\":{\"1\":1,\"10\":1,\"+Inf\":1}}";
+        assertEquals(expected, Strings.toString(builder));
+    }
+}
@@ -0,0 +1,60 @@
+package io.zentity.common;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineIteratorTest {
+
+    private static List<String> lines(BytesReference bytes) {
+        List<String> lines = new ArrayList<>();
+        new LineIterator(bytes).forEachRemaining((line) -> lines.add(line.utf8ToString()));
+        return lines;
+    }
+
+    private static void assertSplitLikeString(String str) {
+        List<String> expected = Arrays.asList(str.split("\\n"));
+        if (expected.size() == 1 && expected.get(0).isEmpty()) {
+            // String.split() returns the empty string itself when there is nothing to split.
+            expected = List.of();
+        }
+        BytesReference bytes = new BytesArray(str);
+        assertEquals(expected, lines(bytes));
+    }
+
+    @Test
+    public void testLines() {
+        assertSplitLikeString("{\"a\":1}\n{\"b\":2}");
+        assertSplitLikeString("{\"a\":1}\n{\"b\":2}\n");
+        assertSplitLikeString("{\"a\":1}\n{\"b\":2}\n\n\n");
+        assertSplitLikeString("{\"a\":1}\n\n{\"b\":2}");
+        assertSplitLikeString("\n{\"a\":1}");
+        assertSplitLikeString("{}");
+        assertSplitLikeString("");
+        assertSplitLikeString("\n\n");
+    }
+
+    @Test
+    public void testUnicode() {
+        assertSplitLikeString("{\"name\":\"Zo\u00eb\"}\n{\"name\":\"\u540d\u524d\"}\n");
+    }
+
+    @Test
+    public void testComposite() {
+        // A request body that arrives in several chunks, with lines that span them.
+        BytesReference bytes = CompositeBytesReference.of(
+            new BytesArray("{\"a\":".getBytes(StandardCharsets.UTF_8)),
+            new BytesArray("1}\n{\"b\"".getBytes(StandardCharsets.UTF_8)),
+            new BytesArray(":2}\n".getBytes(StandardCharsets.UTF_8))
+        );
+        assertEquals(List.of("{\"a\":1}", "{\"b\":2}"), lines(bytes));
+    }
+}
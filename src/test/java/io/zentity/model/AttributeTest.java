@@ -8,8 +8,14 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeSet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 
 public class AttributeTest {
@@ -299,4 +305,48 @@ public class AttributeTest {
         assertEquals(NullNode.getInstance(), value.value());
         assertEquals(value.serialized(), "null");
     }
+
+    ////  Value Equality  //////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testValueEqualsTypeNumberCanonical() throws Exception {
+        Value integer = Value.create("number", jsonValue("{\"value\":1}"));
+        Value floatingPoint = Value.create("number", jsonValue("{\"value\":1.0}"));
+        assertEquals(integer, floatingPoint);
+        assertEquals(integer.hashCode(), floatingPoint.hashCode());
+        assertEquals(0, integer.compareTo(floatingPoint));
+        assertNotEquals(integer, Value.create("number", jsonValue("{\"value\":1.5}")));
+        assertEquals(
+            Value.create("number", jsonValue("{\"value\":100000000000000000000}")),
+            Value.create("number", jsonValue("{\"value\":1e20}"))
+        );
+    }
+
+    @Test
+    public void testValueEqualsTypeStringHashCollision() throws Exception {
+        Value a = Value.create("string", jsonValue("{\"value\":\"Aa\"}"));
+        Value b = Value.create("string", jsonValue("{\"value\":\"BB\"}"));
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, b);
+        assertEquals(2, new TreeSet<>(Arrays.asList(a, b)).size());
+        assertEquals(2, new HashSet<>(Arrays.asList(a, b)).size());
+    }
+
+    @Test
+    public void testValueEqualsTypeNullable() throws Exception {
+        assertNotEquals(Value.create("string", jsonValue("{\"value\":null}")), Value.create("string", jsonValue("{\"value\":\"null\"}")));
+        assertNotEquals(Value.create("string", jsonValue("{\"value\":\"a\"}")), Value.create("date", jsonValue("{\"value\":\"a\"}")));
+        assertEquals(Value.create("boolean", jsonValue("{\"value\":null}")), Value.create("boolean", jsonValue("{\"value\":null}")));
+    }
+
+    @Test
+    public void testValueCompareTypeNumber() throws Exception {
+        TreeSet<Value> values = new TreeSet<>();
+        for (String number : Arrays.asList("10", "9", "-2.5", "1e20", "3")) {
+            values.add(Value.create("number", jsonValue("{\"value\":" + number + "}")));
+        }
+        List<String> serialized = new ArrayList<>();
+        values.forEach((value) -> serialized.add(value.serialized()));
+        assertEquals(Arrays.asList("-2.5", "3", "9", "10", "1.0E20"), serialized);
+    }
 }
@@ -0,0 +1,103 @@
+package io.zentity.model;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the cost of building the query of a single matcher clause.
+ *
+ * <ul>
+ *     <li>{@code regexReplace}: replace each variable of the clause string with a regular expression and parse the
+ *     result with a new registry, as clauses were built before {@link ClauseTemplate}</li>
+ *     <li>{@code template}: populate the compiled {@link ClauseTemplate}</li>
+ * </ul>
+ *
+ * Run with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) io.zentity.model.ClauseTemplateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClauseTemplateBenchmark {
+
+    static final String MATCHER = "{\"clause\":{\"match\":{\"{{ field }}\":{\"query\":\"{{ value }}\",\"fuzziness\":\"{{ params.fuzziness }}\"}}}}";
+
+    private Matcher matcher;
+    private Map<String, String> params;
+
+    @Setup
+    public void setUp() throws Exception {
+        matcher = new Matcher("matcher_name", MATCHER);
+        params = new HashMap<>();
+        params.put("fuzziness", "auto");
+    }
+
+    @Benchmark
+    public QueryBuilder regexReplace() throws Exception {
+        String clause = matcher.clause();
+        for (Map.Entry<String, Pattern> variable : matcher.variables().entrySet()) {
+            switch (variable.getKey()) {
+                case "field":
+                    clause = variable.getValue().matcher(clause).replaceAll("name");
+                    break;
+                case "value":
+                    clause = variable.getValue().matcher(clause).replaceAll("Alice Jones");
+                    break;
+                default:
+                    clause = variable.getValue().matcher(clause).replaceAll(params.get("fuzziness"));
+                    break;
+            }
+        }
+        try (XContentParser parser = buildXContentParser(clause)) {
+            return AbstractQueryBuilder.parseInnerQueryBuilder(parser);
+        }
+    }
+
+    @Benchmark
+    public QueryBuilder template() throws Exception {
+        return matcher.template().build("name", "Alice Jones", params);
+    }
+
+    private static XContentParser buildXContentParser(String query) throws IOException {
+        SearchModule searchModule = new SearchModule(Settings.EMPTY, false, Collections.emptyList());
+        NamedXContentRegistry registry = new NamedXContentRegistry(searchModule.getNamedXContents());
+        return XContentFactory.xContent(XContentType.JSON)
+            .createParser(registry, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, query);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ClauseTemplateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package io.zentity.model;
+
+import io.zentity.common.Json;
+import io.zentity.common.XContentUtil;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClauseTemplateTest {
+
+    static ClauseTemplate template(String clause) throws Exception {
+        return new ClauseTemplate("matcher_name", Json.MAPPER.readTree(clause));
+    }
+
+    static String build(ClauseTemplate template, String field, String value, Map<String, String> params) throws Exception {
+        QueryBuilder query = template.build(field, value, params);
+        return XContentUtil.serializeAsJSON(query);
+    }
+
+    @Test
+    public void testBuildVariablesInText() throws Exception {
+        ClauseTemplate template = template("{\"term\":{\"{{ field }}.keyword\":{\"value\":\"prefix-{{value}}-suffix\",\"boost\":2}}}");
+        String expected = "{\"term\":{\"name.keyword\":{\"value\":\"prefix-Alice-suffix\",\"boost\":2.0}}}";
+        assertEquals(expected, build(template, "name", "Alice", new HashMap<>()));
+    }
+
+    @Test
+    public void testBuildReusesTemplate() throws Exception {
+        ClauseTemplate template = template("{\"term\":{\"{{ field }}\":\"{{ value }}\"}}");
+        assertEquals("{\"term\":{\"name\":{\"value\":\"Alice\",\"boost\":1.0}}}", build(template, "name", "Alice", new HashMap<>()));
+        assertEquals("{\"term\":{\"city\":{\"value\":\"Bob\",\"boost\":1.0}}}", build(template, "city", "Bob", new HashMap<>()));
+    }
+
+    @Test
+    public void testBuildValueIsLiteral() throws Exception {
+        // Values are not read as JSON or as regular expression replacements.
+        ClauseTemplate template = template("{\"term\":{\"{{ field }}\":\"{{ value }}\"}}");
+        String value = "a \"quoted\" $1 \\ value";
+        String expected = "{\"term\":{\"name\":{\"value\":" + Json.MAPPER.writeValueAsString(value) + ",\"boost\":1.0}}}";
+        assertEquals(expected, build(template, "name", value, new HashMap<>()));
+    }
+
+    @Test
+    public void testBuildParams() throws Exception {
+        ClauseTemplate template = template("{\"bool\":{\"should\":[" +
+            "{\"match\":{\"{{ field }}\":{\"query\":\"{{ value }}\",\"fuzziness\":\"{{ params.fuzziness }}\"}}}," +
+            "{\"term\":{\"{{ field }}\":\"{{ value }}\"}}" +
+            "]}}");
+        Map<String, String> params = new HashMap<>();
+        params.put("fuzziness", "2");
+        QueryBuilder query = template.build("name", "Alice", params);
+        String actual = XContentUtil.serializeAsJSON(query);
+        assertTrue(actual.contains("\"fuzziness\":\"2\""));
+        assertTrue(actual.contains("{\"term\":{\"name\":{\"value\":\"Alice\",\"boost\":1.0}}}"));
+    }
+
+    @Test
+    public void testIsTerm() throws Exception {
+        assertTrue(template("{\"term\":{\"{{ field }}\":\"{{ value }}\"}}").isTerm());
+        assertTrue(template("{\"term\":{\"{{ field }}\":{\"value\":\"{{ value }}\"}}}").isTerm());
+        assertEquals("name.{{ other }}", template("{\"term\":{\"{{ field }}.{{ other }}\":\"{{ value }}\"}}").termField("name", new HashMap<>()));
+        assertFalse(template("{\"term\":{\"{{ field }}\":{\"value\":\"{{ value }}\",\"boost\":2}}}").isTerm());
+        assertFalse(template("{\"term\":{\"{{ field }}\":\"prefix-{{ value }}\"}}").isTerm());
+        assertFalse(template("{\"term\":{\"{{ value }}\":\"{{ value }}\"}}").isTerm());
+        assertFalse(template("{\"match\":{\"{{ field }}\":\"{{ value }}\"}}").isTerm());
+    }
+
+    @Test
+    public void testTermField() throws Exception {
+        ClauseTemplate template = template("{\"term\":{\"{{ field }}.{{ params.suffix }}\":\"{{ value }}\"}}");
+        Map<String, String> params = new HashMap<>();
+        params.put("suffix", "keyword");
+        assertEquals("name.keyword", template.termField("name", params));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testBuildParamMissing() throws Exception {
+        ClauseTemplate template = template("{\"match\":{\"{{ field }}\":{\"query\":\"{{ value }}\",\"fuzziness\":\"{{ params.fuzziness }}\"}}}");
+        template.build("name", "Alice", new HashMap<>());
+    }
+}
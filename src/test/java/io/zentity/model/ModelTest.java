@@ -1,7 +1,10 @@
 package io.zentity.model;
 
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Set;
+
 public class ModelTest {
 
     public final static String VALID_OBJECT = "{\n" +
@@ -18,6 +21,36 @@ public class ModelTest {
         new Model(VALID_OBJECT);
     }
 
+    @Test
+    public void testScope() throws Exception {
+        Model model = new Model(VALID_OBJECT);
+        Model scoped = model
+            .withIndices(Set.of("index_name_a", "index_name_b"))
+            .withoutIndices(Set.of("index_name_b"))
+            .withResolvers(Set.of("resolver_name_a", "resolver_name_b"))
+            .withoutResolvers(Set.of("resolver_name_a"));
+        Assert.assertEquals(Set.of("index_name_a"), scoped.indices().keySet());
+        Assert.assertEquals(Set.of("resolver_name_b"), scoped.resolvers().keySet());
+        Assert.assertEquals(3, model.indices().size());
+        Assert.assertEquals(3, model.resolvers().size());
+        Assert.assertSame(model.attributes(), scoped.attributes());
+        Assert.assertSame(model.matchers(), scoped.matchers());
+        Assert.assertSame(model.indices().get("index_name_a"), scoped.indices().get("index_name_a"));
+
+        // A scope that keeps everything shares the maps too.
+        Assert.assertSame(model.indices(), model.withoutIndices(Set.of("unknown")).indices());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws Exception {
+        new Model(VALID_OBJECT).resolvers().remove("resolver_name_a");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutableChildren() throws Exception {
+        new Model(VALID_OBJECT).indices().get("index_name_a").fields().clear();
+    }
+
     @Test(expected = ValidationException.class)
     public void testInvalidUnexpectedField() throws Exception {
         new Model("{\n" +
@@ -0,0 +1,76 @@
+package io.zentity.resolution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.zentity.common.Json;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BulkResolutionStreamTest {
+
+    static String[] readLines(BulkResolutionStream stream) {
+        String ndjson = stream.bytes().utf8ToString();
+        assertTrue(ndjson.endsWith("\n"));
+        return ndjson.split("\n");
+    }
+
+    static ResolutionResponse createResponse(long tookMs) throws Exception {
+        ResolutionResponse response = new ResolutionResponse();
+        response.took = Duration.ofMillis(tookMs);
+        response.includeQueries = false;
+        response.hits.add(Json.ORDERED_MAPPER.readTree("{\"_id\":\"" + tookMs + "\"}"));
+        return response;
+    }
+
+    @Test
+    public void testWriteRecords() throws Exception {
+        BulkResolutionStream stream = new BulkResolutionStream();
+        // The jobs complete out of order.
+        ResolutionResponse second = createResponse(2);
+        ResolutionResponse first = createResponse(1);
+        stream.writeItem(1, second);
+        stream.writeItem(0, first);
+        stream.writeSummary(Duration.ofMillis(12));
+
+        String[] lines = readLines(stream);
+        assertEquals(3, lines.length);
+
+        JsonNode item = Json.ORDERED_MAPPER.readTree(lines[0]).get("item");
+        assertEquals(1, item.get("_position").asInt());
+        assertEquals(Json.ORDERED_MAPPER.readTree(Json.MAPPER.writeValueAsString(second)), item.get("response"));
+
+        item = Json.ORDERED_MAPPER.readTree(lines[1]).get("item");
+        assertEquals(0, item.get("_position").asInt());
+        assertEquals(Json.ORDERED_MAPPER.readTree(Json.MAPPER.writeValueAsString(first)), item.get("response"));
+
+        JsonNode summary = Json.ORDERED_MAPPER.readTree(lines[2]);
+        assertEquals(
+            Json.ORDERED_MAPPER.readTree("{\"summary\":{\"took\":12,\"errors\":false}}"),
+            summary
+        );
+    }
+
+    @Test
+    public void testWriteSummaryErrors() throws Exception {
+        BulkResolutionStream stream = new BulkResolutionStream();
+        ResolutionResponse failure = createResponse(1);
+        failure.error = new ElasticsearchStatusException("This was not found", RestStatus.NOT_FOUND);
+        failure.includeStackTrace = false;
+        stream.writeItem(0, createResponse(2));
+        stream.writeItem(1, failure);
+        stream.writeSummary(Duration.ofMillis(3));
+
+        String[] lines = readLines(stream);
+        assertEquals(3, lines.length);
+        JsonNode response = Json.ORDERED_MAPPER.readTree(lines[1]).get("item").get("response");
+        assertEquals("This was not found", response.get("error").get("reason").asText());
+        assertFalse(response.get("error").has("stack_trace"));
+        assertTrue(Json.ORDERED_MAPPER.readTree(lines[2]).get("summary").get("errors").asBoolean());
+    }
+}
@@ -0,0 +1,52 @@
+package io.zentity.resolution;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JobBudgetTest {
+
+    @Test
+    public void testUnlimited() {
+        JobBudget budget = new JobBudget(TimeValue.MINUS_ONE, -1, -1);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(budget.tryAcquireQuery());
+            assertTrue(budget.tryAcquireDoc());
+        }
+        assertNull(budget.remainingTime());
+        assertFalse(budget.isExhausted());
+    }
+
+    @Test
+    public void testMaxQueries() {
+        JobBudget budget = new JobBudget(TimeValue.MINUS_ONE, -1, 2);
+        assertTrue(budget.tryAcquireQuery());
+        assertTrue(budget.tryAcquireQuery());
+        assertFalse(budget.isExhausted());
+        assertFalse(budget.tryAcquireQuery());
+        assertTrue(budget.isExhausted());
+    }
+
+    @Test
+    public void testMaxDocs() {
+        JobBudget budget = new JobBudget(TimeValue.MINUS_ONE, 1, -1);
+        assertTrue(budget.tryAcquireDoc());
+        assertFalse(budget.isExhausted());
+        assertFalse(budget.tryAcquireDoc());
+        assertTrue(budget.isExhausted());
+        assertFalse(budget.tryAcquireQuery());
+    }
+
+    @Test
+    public void testMaxTime() throws Exception {
+        JobBudget budget = new JobBudget(TimeValue.timeValueMillis(20), -1, -1);
+        assertTrue(budget.remainingTime().millis() <= 20);
+        Thread.sleep(50);
+        assertTrue(budget.isExhausted());
+        assertFalse(budget.tryAcquireQuery());
+        assertTrue(budget.remainingTime().millis() == 0);
+    }
+}
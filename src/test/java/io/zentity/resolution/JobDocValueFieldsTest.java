@@ -0,0 +1,144 @@
+package io.zentity.resolution;
+
+import io.zentity.model.Model;
+import io.zentity.resolution.input.Input;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.admin.indices.mapping.get.GetFieldMappingsAction;
+import org.elasticsearch.action.admin.indices.mapping.get.GetFieldMappingsRequest;
+import org.elasticsearch.action.admin.indices.mapping.get.GetFieldMappingsResponse;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class JobDocValueFieldsTest {
+
+    private static final String MODEL = "{" +
+        "\"attributes\":{\"name\":{},\"age\":{}}," +
+        "\"resolvers\":{\"name\":{\"attributes\":[\"name\"]}}," +
+        "\"matchers\":{\"exact\":{\"clause\":{\"term\":{\"{{field}}\":\"{{value}}\"}}}}," +
+        "\"indices\":{\"index_a\":{\"fields\":{" +
+        "\"name\":{\"attribute\":\"name\",\"matcher\":\"exact\"}," +
+        "\"age\":{\"attribute\":\"age\"}" +
+        "}}}}";
+
+    // The age field coerces values by default, so only the name can be read from its doc values.
+    private static final String MAPPINGS = "{\"index_a\":{\"mappings\":{\"_doc\":{" +
+        "\"name\":{\"full_name\":\"name\",\"mapping\":{\"name\":{\"type\":\"keyword\"}}}," +
+        "\"age\":{\"full_name\":\"age\",\"mapping\":{\"age\":{\"type\":\"long\"}}}" +
+        "}}}}";
+
+    /**
+     * A client that answers field mappings requests with {@link #MAPPINGS}, and searches with an empty response.
+     */
+    static class MappingsClient extends NodeClient {
+        final List<ActionRequest> requests = new CopyOnWriteArrayList<>();
+
+        MappingsClient(ThreadPool threadPool) {
+            super(Settings.EMPTY, threadPool);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <Request extends ActionRequest, Response extends ActionResponse> void doExecute(
+            ActionType<Response> action,
+            Request request,
+            ActionListener<Response> listener
+        ) {
+            requests.add(request);
+            try {
+                if (action == GetFieldMappingsAction.INSTANCE) {
+                    try (XContentParser parser = JsonXContent.jsonXContent.createParser(
+                        NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, MAPPINGS)) {
+                        listener.onResponse((Response) GetFieldMappingsResponse.fromXContent(parser));
+                    }
+                } else {
+                    assertEquals(SearchAction.INSTANCE, action);
+                    listener.onResponse((Response) new SearchResponse(
+                        InternalSearchResponse.empty(), null, 1, 1, 0, 1, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY
+                    ));
+                }
+            } catch (Exception ex) {
+                listener.onFailure(ex);
+            }
+        }
+
+        long count(Class<?> requestClass) {
+            return requests.stream().filter(requestClass::isInstance).count();
+        }
+    }
+
+    private ThreadPool threadPool;
+    private MappingsClient client;
+
+    @Before
+    public void setUp() {
+        threadPool = new ThreadPool(Settings.builder().put("node.name", "job-doc-value-fields-test").build());
+        client = new MappingsClient(threadPool);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    private ResolutionResponse runJob(ModelPlan plan) throws Exception {
+        Input input = new Input("{\"attributes\":{\"name\":[\"Alice\"]}}", plan);
+        return Job.newBuilder()
+            .client(client)
+            .input(input)
+            .docValueFields(true)
+            .build()
+            .runAsync()
+            .get();
+    }
+
+    /**
+     * The mappings are read by the first job of a plan, and the other jobs of the plan reuse the fields.
+     */
+    @Test
+    public void testMappingsReadOncePerPlan() throws Exception {
+        ModelPlan plan = new ModelPlan(new Model(MODEL));
+        assertNull(plan.docValueFields("index_a"));
+
+        assertNull(runJob(plan).error);
+        assertNull(runJob(plan).error);
+
+        assertEquals(Set.of("name"), plan.docValueFields("index_a"));
+        assertEquals(1, client.count(GetFieldMappingsRequest.class));
+        assertEquals(2, client.count(SearchRequest.class));
+        for (ActionRequest request : client.requests) {
+            if (request instanceof SearchRequest) {
+                assertEquals(
+                    List.of("name"),
+                    ((SearchRequest) request).source().docValueFields().stream()
+                        .map((field) -> field.field)
+                        .collect(Collectors.toList())
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package io.zentity.resolution;
+
+import io.zentity.model.Model;
+import io.zentity.resolution.input.Input;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.search.ClearScrollAction;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollAction;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.IdsQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JobExcludedIdsTest {
+
+    private static final String MODEL = "{" +
+        "\"attributes\":{\"name\":{}}," +
+        "\"resolvers\":{\"name\":{\"attributes\":[\"name\"]}}," +
+        "\"matchers\":{\"exact\":{\"clause\":{\"term\":{\"{{field}}\":\"{{value}}\"}}}}," +
+        "\"indices\":{\"index_a\":{\"fields\":{\"name\":{\"attribute\":\"name\",\"matcher\":\"exact\"}}}}" +
+        "}";
+
+    private static final int DOCS = 9;
+    private static final int RESULT_WINDOW = 4;
+
+    /**
+     * A client that answers searches from an index of {@link #DOCS} docs that all match, in the order of their ids.
+     * Each doc has a name of its own, so every new doc brings a new value for the next hop. The docs excluded by an
+     * "ids" clause of the query are left out, and a search that is not scrolled returns at most
+     * {@link #RESULT_WINDOW} docs, like an index with a small "index.max_result_window".
+     */
+    static class IndexClient extends NodeClient {
+        final List<ActionRequest> requests = new CopyOnWriteArrayList<>();
+        final Map<String, List<SearchHit>> scrolls = new ConcurrentHashMap<>();
+        final Map<String, Integer> scrollSizes = new ConcurrentHashMap<>();
+        final Map<String, Integer> scrollTotals = new ConcurrentHashMap<>();
+        final AtomicInteger nextScrollId = new AtomicInteger();
+
+        IndexClient(ThreadPool threadPool) {
+            super(Settings.EMPTY, threadPool);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <Request extends ActionRequest, Response extends ActionResponse> void doExecute(
+            ActionType<Response> action,
+            Request request,
+            ActionListener<Response> listener
+        ) {
+            if (action == ClearScrollAction.INSTANCE) {
+                listener.onResponse((Response) new ClearScrollResponse(true, 1));
+                return;
+            }
+            requests.add(request);
+            if (action == SearchScrollAction.INSTANCE) {
+                String scrollId = ((SearchScrollRequest) request).scrollId();
+                listener.onResponse((Response) nextPage(scrollId));
+                return;
+            }
+            assertEquals(SearchAction.INSTANCE, action);
+            SearchRequest searchRequest = (SearchRequest) request;
+            Set<String> excludedIds = excludedIds(searchRequest.source().query());
+            List<SearchHit> hits = new ArrayList<>();
+            for (int i = 0; i < DOCS; i++) {
+                if (!excludedIds.contains(Integer.toString(i))) {
+                    hits.add(hit(i));
+                }
+            }
+            int size = searchRequest.source().size();
+            if (searchRequest.scroll() == null) {
+                List<SearchHit> window = hits.subList(0, Math.min(Math.min(size, RESULT_WINDOW), hits.size()));
+                listener.onResponse((Response) response(window, hits.size(), null));
+                return;
+            }
+            String scrollId = Integer.toString(nextScrollId.incrementAndGet());
+            scrolls.put(scrollId, hits);
+            scrollSizes.put(scrollId, size);
+            scrollTotals.put(scrollId, hits.size());
+            listener.onResponse((Response) nextPage(scrollId));
+        }
+
+        private SearchResponse nextPage(String scrollId) {
+            List<SearchHit> remaining = scrolls.get(scrollId);
+            List<SearchHit> page = new ArrayList<>(remaining.subList(0, Math.min(scrollSizes.get(scrollId), remaining.size())));
+            scrolls.put(scrollId, new ArrayList<>(remaining.subList(page.size(), remaining.size())));
+            return response(page, scrollTotals.get(scrollId), scrollId);
+        }
+
+        private static Set<String> excludedIds(QueryBuilder query) {
+            Set<String> ids = new HashSet<>();
+            if (query instanceof BoolQueryBuilder) {
+                for (QueryBuilder clause : ((BoolQueryBuilder) query).mustNot()) {
+                    if (clause instanceof IdsQueryBuilder) {
+                        ids.addAll(((IdsQueryBuilder) clause).ids());
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private static SearchHit hit(int i) {
+            SearchHit hit = new SearchHit(i, Integer.toString(i), new Text("_doc"), Map.of(), Map.of());
+            hit.sourceRef(new BytesArray("{\"name\":\"name_" + i + "\"}"));
+            hit.shard(new SearchShardTarget("node", new ShardId("index_a", "_na_", 0), null, OriginalIndices.NONE));
+            return hit;
+        }
+
+        private static SearchResponse response(List<SearchHit> hits, long total, String scrollId) {
+            InternalSearchResponse sections = new InternalSearchResponse(
+                new SearchHits(hits.toArray(new SearchHit[0]), new TotalHits(total, TotalHits.Relation.EQUAL_TO), 1.0f),
+                null, null, null, false, null, 1
+            );
+            return new SearchResponse(sections, scrollId, 1, 1, 0, 1, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+        }
+
+        long count(Class<?> requestClass) {
+            return requests.stream().filter(requestClass::isInstance).count();
+        }
+    }
+
+    private ThreadPool threadPool;
+    private IndexClient client;
+
+    @Before
+    public void setUp() {
+        threadPool = new ThreadPool(Settings.builder().put("node.name", "job-excluded-ids-test").build());
+        client = new IndexClient(threadPool);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    private ResolutionResponse runJob(int maxExcludedIds) throws Exception {
+        Input input = new Input("{\"attributes\":{\"name\":[\"name_0\"]}}", new Model(MODEL));
+        return Job.newBuilder()
+            .client(client)
+            .input(input)
+            .maxDocsPerQuery(2)
+            .maxExcludedIds(maxExcludedIds)
+            .build()
+            .runAsync()
+            .get();
+    }
+
+    /**
+     * Once more docs were fetched than can be excluded from the query, the docs that were fetched already fill the
+     * result window. The search is then paged even though "page_size" is not set, so the docs past the window are
+     * still found.
+     */
+    @Test
+    public void testFindsDocsPastResultWindow() throws Exception {
+        ResolutionResponse response = runJob(3);
+
+        assertNull(response.error);
+        assertEquals(DOCS, response.hits.size());
+        assertTrue(client.count(SearchScrollRequest.class) > 0);
+    }
+
+    /**
+     * While the docs that were fetched can be excluded from the query, the search is not paged.
+     */
+    @Test
+    public void testExcludedIdsNotPaged() throws Exception {
+        ResolutionResponse response = runJob(Job.DEFAULT_MAX_EXCLUDED_IDS);
+
+        assertNull(response.error);
+        assertEquals(DOCS, response.hits.size());
+        assertEquals(0, client.count(SearchScrollRequest.class));
+        for (ActionRequest request : client.requests) {
+            assertNull(((SearchRequest) request).scroll());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.zentity.resolution;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.zentity.common.CollectionUtil;
+import io.zentity.resolution.input.value.StringValue;
+import io.zentity.resolution.input.value.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the state that a {@link Job} keeps while it reads the hits of an entity of 10,000 docs,
+ * each of which has a few attributes that share most of their values with the other docs.
+ *
+ * <ul>
+ *     <li>{@code treeState}: sorted and synchronized maps and sets, as the job kept its state before</li>
+ *     <li>{@code hashState}: hash-based maps and sets, sorted only when the attributes are written out</li>
+ * </ul>
+ *
+ * Run with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) io.zentity.resolution.JobStateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobStateBenchmark {
+
+    static final int DOCS = 10000;
+    static final String[] ATTRIBUTES = {"city", "email", "first_name", "last_name", "phone", "street"};
+    // the attribute names of the model, which are sorted
+    static final Set<String> MODEL_ATTRIBUTES = new TreeSet<>(List.of(ATTRIBUTES));
+
+    private String[] ids;
+    private Value[][] docValues;
+
+    @Setup
+    public void setUp() throws Exception {
+        ids = new String[DOCS];
+        docValues = new Value[DOCS][ATTRIBUTES.length];
+        for (int i = 0; i < DOCS; i++) {
+            ids[i] = "doc-" + i;
+            for (int a = 0; a < ATTRIBUTES.length; a++) {
+                // Most docs of an entity repeat the same values.
+                docValues[i][a] = new StringValue(TextNode.valueOf(ATTRIBUTES[a] + "-" + (i % 50)));
+            }
+        }
+    }
+
+    @Benchmark
+    public Object treeState() {
+        Set<String> docIds = Collections.synchronizedSet(new TreeSet<>());
+        Map<String, Set<Value>> nextInputAttributes = Collections.synchronizedMap(new TreeMap<>());
+        int written = 0;
+        for (int i = 0; i < DOCS; i++) {
+            if (!docIds.add(ids[i])) {
+                continue;
+            }
+            Map<String, Set<Value>> docAttributes = new TreeMap<>();
+            for (int a = 0; a < ATTRIBUTES.length; a++) {
+                docAttributes.computeIfAbsent(ATTRIBUTES[a], (name) -> new TreeSet<>()).add(docValues[i][a]);
+                nextInputAttributes.computeIfAbsent(ATTRIBUTES[a], (name) -> new TreeSet<>()).add(docValues[i][a]);
+            }
+            for (Map.Entry<String, Set<Value>> attribute : docAttributes.entrySet()) {
+                written += attribute.getValue().size();
+            }
+        }
+        return written + nextInputAttributes.size();
+    }
+
+    @Benchmark
+    public Object hashState() {
+        Set<String> docIds = ConcurrentHashMap.newKeySet();
+        Map<String, Set<Value>> nextInputAttributes = new HashMap<>();
+        int written = 0;
+        for (int i = 0; i < DOCS; i++) {
+            if (!docIds.add(ids[i])) {
+                continue;
+            }
+            Map<String, Set<Value>> docAttributes = new HashMap<>();
+            for (int a = 0; a < ATTRIBUTES.length; a++) {
+                docAttributes.computeIfAbsent(ATTRIBUTES[a], (name) -> new HashSet<>()).add(docValues[i][a]);
+                nextInputAttributes.computeIfAbsent(ATTRIBUTES[a], (name) -> new HashSet<>()).add(docValues[i][a]);
+            }
+            for (String attributeName : MODEL_ATTRIBUTES) {
+                Set<Value> values = docAttributes.get(attributeName);
+                if (values != null) {
+                    written += CollectionUtil.sorted(values).size();
+                }
+            }
+        }
+        return written + nextInputAttributes.size();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JobStateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
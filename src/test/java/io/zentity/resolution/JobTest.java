@@ -11,13 +11,16 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.zentity.resolution.BoolQueryUtils.BoolQueryCombiner.FILTER;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -55,11 +58,78 @@ public class JobTest {
         );
         assertNotNull(resolversQuery);
 
-        String expected = "{\"bool\":{\"should\":[{\"match\":{\"id\":{\"query\":\"1234567890\",\"operator\":\"OR\",\"fuzziness\":\"AUTO\",\"prefix_length\":0,\"max_expansions\":50,\"fuzzy_transpositions\":true,\"lenient\":false,\"zero_terms_query\":\"NONE\",\"auto_generate_synonyms_phrase_query\":true,\"boost\":1.0}}},{\"bool\":{\"filter\":[{\"bool\":{\"should\":[{\"term\":{\"name\":{\"value\":\"Alice Jones\",\"boost\":1.0}}},{\"term\":{\"name\":{\"value\":\"Alice Jones-Smith\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},{\"bool\":{\"should\":[{\"match\":{\"phone\":{\"query\":\"555-123-4567\",\"operator\":\"OR\",\"fuzziness\":\"2\",\"prefix_length\":0,\"max_expansions\":50,\"fuzzy_transpositions\":true,\"lenient\":false,\"zero_terms_query\":\"NONE\",\"auto_generate_synonyms_phrase_query\":true,\"boost\":1.0}}},{\"bool\":{\"filter\":[{\"term\":{\"street\":{\"value\":\"123 Main St\",\"boost\":1.0}}},{\"bool\":{\"should\":[{\"bool\":{\"filter\":[{\"term\":{\"city\":{\"value\":\"Beverly Hills\",\"boost\":1.0}}},{\"term\":{\"state\":{\"value\":\"CA\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},{\"term\":{\"zip\":{\"value\":\"90210\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}";
+        String expected = "{\"bool\":{\"should\":[{\"match\":{\"id\":{\"query\":\"1234567890\",\"operator\":\"OR\",\"fuzziness\":\"AUTO\",\"prefix_length\":0,\"max_expansions\":50,\"fuzzy_transpositions\":true,\"lenient\":false,\"zero_terms_query\":\"NONE\",\"auto_generate_synonyms_phrase_query\":true,\"boost\":1.0}}},{\"bool\":{\"filter\":[{\"terms\":{\"name\":[\"Alice Jones\",\"Alice Jones-Smith\"],\"boost\":1.0}},{\"bool\":{\"should\":[{\"match\":{\"phone\":{\"query\":\"555-123-4567\",\"operator\":\"OR\",\"fuzziness\":\"2\",\"prefix_length\":0,\"max_expansions\":50,\"fuzzy_transpositions\":true,\"lenient\":false,\"zero_terms_query\":\"NONE\",\"auto_generate_synonyms_phrase_query\":true,\"boost\":1.0}}},{\"bool\":{\"filter\":[{\"term\":{\"street\":{\"value\":\"123 Main St\",\"boost\":1.0}}},{\"bool\":{\"should\":[{\"bool\":{\"filter\":[{\"term\":{\"city\":{\"value\":\"Beverly Hills\",\"boost\":1.0}}},{\"term\":{\"state\":{\"value\":\"CA\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},{\"term\":{\"zip\":{\"value\":\"90210\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}";
         String actual = XContentUtil.serializeAsJSON(resolversQuery);
         assertEquals(expected, actual);
     }
 
+    /**
+     * Keep a clause per value of a "term" matcher with named filters, so that "_explanation" can tell which values
+     * matched. Without named filters the values are combined into a single "terms" query.
+     */
+    @Test
+    public void testMakeResolversClauseTermsNamedFilters() throws Exception {
+        String attributes = "\"attributes\":{\"name\":{}}";
+        String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"name\"]}}";
+        String matchers = "\"matchers\":{\"x\":{\"clause\":{\"term\":{\"{{field}}.keyword\":{\"value\":\"{{value}}\"}}}}}";
+        String indices = "\"indices\":{\"index\":{\"fields\":{\"name\":{\"attribute\":\"name\",\"matcher\":\"x\"}}}}";
+        Model model = new Model("{" + attributes + "," + resolvers + "," + matchers + "," + indices + "}");
+        Input input = new Input("{\"attributes\":{\"name\":[\"Alice\",\"Allie\"]}}", model);
+        FilterTree resolversFilterTree = Job.makeResolversFilterTree(Collections.singletonList(Collections.singletonList("name")));
+
+        QueryBuilder termsQuery = Job.buildResolversQuery(
+            model, "index", resolversFilterTree, input.attributes(), false, new AtomicInteger()
+        );
+        assertEquals("{\"terms\":{\"name.keyword\":[\"Alice\",\"Allie\"],\"boost\":1.0}}", XContentUtil.serializeAsJSON(termsQuery));
+
+        QueryBuilder namedQuery = Job.buildResolversQuery(
+            model, "index", resolversFilterTree, input.attributes(), true, new AtomicInteger()
+        );
+        String named = XContentUtil.serializeAsJSON(namedQuery);
+        assertFalse(named.contains("\"terms\""));
+        assertTrue(named.contains("{\"term\":{\"name.keyword\":{\"value\":\"Alice\",\"boost\":1.0}}}"));
+        assertTrue(named.contains("{\"term\":{\"name.keyword\":{\"value\":\"Allie\",\"boost\":1.0}}}"));
+    }
+
+    /**
+     * Query only the resolvers that use an attribute with new values, using only the new values of that attribute.
+     */
+    @Test
+    public void testMakeDeltaResolversClause() throws Exception {
+        String attributes = "\"attributes\":{\"name\":{},\"phone\":{},\"email\":{}}";
+        String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"name\",\"phone\"]},\"b\":{\"attributes\":[\"email\"]}}";
+        String matchers = "\"matchers\":{\"x\":{\"clause\":{\"term\":{\"{{field}}\":\"{{value}}\"}}}}";
+        String indices = "\"indices\":{\"index\":{\"fields\":{\"name\":{\"attribute\":\"name\",\"matcher\":\"x\"},\"phone\":{\"attribute\":\"phone\",\"matcher\":\"x\"},\"email\":{\"attribute\":\"email\",\"matcher\":\"x\"}}}}";
+        Model model = new Model("{" + attributes + "," + resolvers + "," + matchers + "," + indices + "}");
+        Input input = new Input("{\"attributes\":{\"name\":[\"Alice\",\"Allie\"],\"phone\":[\"555-1234\"],\"email\":[\"alice@example.net\"]}}", model);
+        Input delta = new Input("{\"attributes\":{\"name\":[\"Allie\"]}}", model);
+        List<String> resolversList = Arrays.asList("a", "b");
+        ModelPlan plan = new ModelPlan(model);
+
+        QueryBuilder deltaQuery = Job.buildDeltaResolversQuery(
+            plan, "index", resolversList, input.attributes(), delta.attributes(), false, new AtomicInteger()
+        );
+        String expected = "{\"bool\":{\"filter\":[{\"term\":{\"name\":{\"value\":\"Allie\",\"boost\":1.0}}},{\"term\":{\"phone\":{\"value\":\"555-1234\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}";
+        assertEquals(expected, XContentUtil.serializeAsJSON(deltaQuery));
+
+        // Each attribute with new values adds a clause.
+        Input deltaMany = new Input("{\"attributes\":{\"name\":[\"Allie\"],\"phone\":[\"555-1234\"]}}", model);
+        QueryBuilder deltaManyQuery = Job.buildDeltaResolversQuery(
+            plan, "index", resolversList, input.attributes(), deltaMany.attributes(), false, new AtomicInteger()
+        );
+        String expectedMany = "{\"bool\":{\"should\":[" +
+            "{\"bool\":{\"filter\":[{\"term\":{\"name\":{\"value\":\"Allie\",\"boost\":1.0}}},{\"term\":{\"phone\":{\"value\":\"555-1234\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}," +
+            "{\"bool\":{\"filter\":[{\"terms\":{\"name\":[\"Alice\",\"Allie\"],\"boost\":1.0}},{\"term\":{\"phone\":{\"value\":\"555-1234\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}" +
+            "],\"adjust_pure_negative\":true,\"boost\":1.0}}";
+        assertEquals(expectedMany, XContentUtil.serializeAsJSON(deltaManyQuery));
+
+        // No resolver uses an attribute with new values.
+        Input deltaNone = new Input("{\"attributes\":{\"email\":[\"allie@example.net\"]}}", model);
+        assertNull(Job.buildDeltaResolversQuery(
+            plan, "index", Collections.singletonList("a"), input.attributes(), deltaNone.attributes(), false, new AtomicInteger()
+        ));
+    }
+
     /**
      * Populate the clause of a matcher by substituting the {{ field }} and {{ value }} variables.
      */
@@ -602,11 +672,11 @@ public class JobTest {
     }
 
     /**
-     * Make the "script_fields" clause for a "date" type attribute where the "format" param is specified only in the
+     * Make the "docvalue_fields" clause for a "date" type attribute where the "format" param is specified only in the
      * input attribute.
      */
     @Test
-    public void testMakeScriptFieldsClauseTypeDateFormatInputAttributeOnly() throws Exception {
+    public void testMakeDocValueFieldsClauseTypeDateFormatInputAttributeOnly() throws Exception {
         String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\"}}";
         String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
         String matchers = "\"matchers\":{\n" +
@@ -658,6 +728,72 @@ public class JobTest {
             "}";
         Input input = new Input(json, model);
 
+        assertTrue(Job.buildScriptFields("index", input).isEmpty());
+
+        Map<String, String> formatMap = Job.buildDateDocValueFields("index", input);
+        assertTrue(formatMap.containsKey("field_timestamp"));
+        assertEquals("yyyy-MM-dd", formatMap.get("field_timestamp"));
+    }
+
+    /**
+     * Make the "script_fields" clause for a "date" type attribute whose "format" param cannot be given to the
+     * "docvalue_fields" clause.
+     */
+    @Test
+    public void testMakeScriptFieldsClauseTypeDateFormatFallback() throws Exception {
+        String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\"}}";
+        String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
+        String matchers = "\"matchers\":{\n" +
+            "  \"matcher_ip\": {\n" +
+            "    \"clause\": {\n" +
+            "      \"term\": {\n" +
+            "        \"{{ field }}\": \"{{ value }}\"\n" +
+            "      }\n" +
+            "    }\n" +
+            "  },\n" +
+            "  \"matcher_timestamp\": {\n" +
+            "    \"clause\": {\n" +
+            "      \"range\": {\n" +
+            "        \"{{ field }}\": {\n" +
+            "          \"gte\": \"{{ value }}||-{{ params.window }}\",\n" +
+            "          \"lte\": \"{{ value }}||+{{ params.window }}\",\n" +
+            "          \"format\": \"{{ params.format }}\"\n" +
+            "        }\n" +
+            "      }\n" +
+            "    }\n" +
+            "  }\n" +
+            "}";
+        String indices = "\"indices\": {\n" +
+            "  \"index\": {\n" +
+            "    \"fields\": {\n" +
+            "      \"field_ip\": {\n" +
+            "        \"attribute\": \"attribute_ip\", \"matcher\":\"matcher_ip\"\n" +
+            "      },\n" +
+            "      \"field_timestamp\": {\n" +
+            "        \"attribute\": \"attribute_timestamp\", \"matcher\": \"matcher_timestamp\"\n" +
+            "      }\n" +
+            "    }\n" +
+            "  }\n" +
+            "}";
+        Model model = new Model("{" + attributes + "," + resolvers + "," + matchers + "," + indices + "}");
+        String json = "{\n" +
+            "  \"attributes\": {\n" +
+            "    \"attribute_ip\": {\n" +
+            "      \"values\": [\"192.168.0.1\"]\n" +
+            "    },\n" +
+            "    \"attribute_timestamp\": {\n" +
+            "      \"values\": [ \"123 Main St\" ],\n" +
+            "      \"params\": {\n" +
+            "        \"format\": \"EEE, d MMM yyyy\",\n" +
+            "        \"window\": \"15m\"\n" +
+            "      }\n" +
+            "    }\n" +
+            "  }\n" +
+            "}";
+        Input input = new Input(json, model);
+
+        assertTrue(Job.buildDateDocValueFields("index", input).isEmpty());
+
         Map<String, Script> scriptMap = Job.buildScriptFields("index", input);
         assertTrue(scriptMap.containsKey("field_timestamp"));
 
@@ -670,18 +806,36 @@ public class JobTest {
         Map<String, Object> params = script.getParams();
 
         assertTrue(params.containsKey("format"));
-        assertEquals("yyyy-MM-dd", params.get("format"));
+        assertEquals("EEE, d MMM yyyy", params.get("format"));
 
         assertTrue(params.containsKey("field"));
         assertEquals("field_timestamp", params.get("field"));
     }
 
     /**
-     * Make the "script_fields" clause for a "date" type attribute where the "format" param is specified only in the
+     * Convert only the date formats that print the same way as a SimpleDateFormat and as an Elasticsearch date format.
+     */
+    @Test
+    public void testBuildDocValueFormat() {
+        assertEquals("yyyy-MM-dd", Job.buildDocValueFormat("yyyy-MM-dd"));
+        assertEquals("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Job.buildDocValueFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX"));
+        assertEquals("dd/MM/yy 'at' hh:mm", Job.buildDocValueFormat("dd/MM/yy 'at' hh:mm"));
+        assertEquals("yyyyMMdd'['HH']'", Job.buildDocValueFormat("yyyyMMdd'['HH']'"));
+        assertNull(Job.buildDocValueFormat("EEE, d MMM yyyy"));
+        assertNull(Job.buildDocValueFormat("yyyy-MM-dd hh:mm a"));
+        assertNull(Job.buildDocValueFormat("yyyy-MM-dd HH:mm:ss.S"));
+        assertNull(Job.buildDocValueFormat("yyyy-MM-dd [HH]"));
+        assertNull(Job.buildDocValueFormat("yyyy-MM-dd||epoch_millis"));
+        assertNull(Job.buildDocValueFormat("yyyy-MM-dd 'T"));
+        assertNull(Job.buildDocValueFormat("YYYY-ww"));
+    }
+
+    /**
+     * Make the "docvalue_fields" clause for a "date" type attribute where the "format" param is specified only in the
      * matcher.
      */
     @Test
-    public void testMakeScriptFieldsClauseTypeDateFormatMatcherOnly() throws Exception {
+    public void testMakeDocValueFieldsClauseTypeDateFormatMatcherOnly() throws Exception {
         String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\"}}";
         String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
         String matchers = "\"matchers\":{\n" +
@@ -736,30 +890,19 @@ public class JobTest {
             "}";
         Input input = new Input(json, model);
 
-        Map<String, Script> scriptMap = Job.buildScriptFields("index", input);
-        assertTrue(scriptMap.containsKey("field_timestamp"));
-
-        Script script = scriptMap.get("field_timestamp");
-        assertEquals("painless", script.getLang());
-
-        String expectedSource = "DateFormat df = new SimpleDateFormat(params.format); df.setTimeZone(TimeZone.getTimeZone('UTC')); return df.format(doc[params.field].value.toInstant().toEpochMilli())";
-        assertEquals(expectedSource, script.getIdOrCode());
-
-        Map<String, Object> params = script.getParams();
+        assertTrue(Job.buildScriptFields("index", input).isEmpty());
 
-        assertTrue(params.containsKey("format"));
-        assertEquals("yyyy-MM-dd", params.get("format"));
-
-        assertTrue(params.containsKey("field"));
-        assertEquals("field_timestamp", params.get("field"));
+        Map<String, String> formatMap = Job.buildDateDocValueFields("index", input);
+        assertTrue(formatMap.containsKey("field_timestamp"));
+        assertEquals("yyyy-MM-dd", formatMap.get("field_timestamp"));
     }
 
     /**
-     * Make the "script_fields" clause for a "date" type attribute where the "format" param is specified only in the
+     * Make the "docvalue_fields" clause for a "date" type attribute where the "format" param is specified only in the
      * model attribute.
      */
     @Test
-    public void testMakeScriptFieldsClauseTypeDateFormatModelAttributeOnly() throws Exception {
+    public void testMakeDocValueFieldsClauseTypeDateFormatModelAttributeOnly() throws Exception {
         String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\",\"params\":{\"format\":\"yyyy-MM-dd\"}}}";
         String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
         String matchers = "\"matchers\":{\n" +
@@ -810,30 +953,19 @@ public class JobTest {
             "}";
         Input input = new Input(json, model);
 
-        Map<String, Script> scriptMap = Job.buildScriptFields("index", input);
-        assertTrue(scriptMap.containsKey("field_timestamp"));
-
-        Script script = scriptMap.get("field_timestamp");
-        assertEquals("painless", script.getLang());
+        assertTrue(Job.buildScriptFields("index", input).isEmpty());
 
-        String expectedSource = "DateFormat df = new SimpleDateFormat(params.format); df.setTimeZone(TimeZone.getTimeZone('UTC')); return df.format(doc[params.field].value.toInstant().toEpochMilli())";
-        assertEquals(expectedSource, script.getIdOrCode());
-
-        Map<String, Object> params = script.getParams();
-
-        assertTrue(params.containsKey("format"));
-        assertEquals("yyyy-MM-dd", params.get("format"));
-
-        assertTrue(params.containsKey("field"));
-        assertEquals("field_timestamp", params.get("field"));
+        Map<String, String> formatMap = Job.buildDateDocValueFields("index", input);
+        assertTrue(formatMap.containsKey("field_timestamp"));
+        assertEquals("yyyy-MM-dd", formatMap.get("field_timestamp"));
     }
 
     /**
-     * Make the "script_fields" clause for a "date" type attribute where the "format" param is specified both in the
+     * Make the "docvalue_fields" clause for a "date" type attribute where the "format" param is specified both in the
      * model attribute and the matcher. The param of the model attribute should override the param of the matcher.
      */
     @Test
-    public void testMakeScriptFieldsClauseTypeDateFormatModelAttributeOverridesMatcher() throws Exception {
+    public void testMakeDocValueFieldsClauseTypeDateFormatModelAttributeOverridesMatcher() throws Exception {
         String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\",\"params\":{\"format\":\"yyyy-MM-dd'T'HH:mm:ss\"}}}";
         String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
         String matchers = "\"matchers\":{\n" +
@@ -887,31 +1019,20 @@ public class JobTest {
             "}";
         Input input = new Input(json, model);
 
-        Map<String, Script> scriptMap = Job.buildScriptFields("index", input);
-        assertTrue(scriptMap.containsKey("field_timestamp"));
-
-        Script script = scriptMap.get("field_timestamp");
-        assertEquals("painless", script.getLang());
-
-        String expectedSource = "DateFormat df = new SimpleDateFormat(params.format); df.setTimeZone(TimeZone.getTimeZone('UTC')); return df.format(doc[params.field].value.toInstant().toEpochMilli())";
-        assertEquals(expectedSource, script.getIdOrCode());
-
-        Map<String, Object> params = script.getParams();
-
-        assertTrue(params.containsKey("format"));
-        assertEquals("yyyy-MM-dd'T'HH:mm:ss", params.get("format"));
+        assertTrue(Job.buildScriptFields("index", input).isEmpty());
 
-        assertTrue(params.containsKey("field"));
-        assertEquals("field_timestamp", params.get("field"));
+        Map<String, String> formatMap = Job.buildDateDocValueFields("index", input);
+        assertTrue(formatMap.containsKey("field_timestamp"));
+        assertEquals("yyyy-MM-dd'T'HH:mm:ss", formatMap.get("field_timestamp"));
     }
 
     /**
-     * Make the "script_fields" clause for a "date" type attribute where the "format" param is specified both in the
+     * Make the "docvalue_fields" clause for a "date" type attribute where the "format" param is specified both in the
      * input attribute and the model attribute. The param of the input attribute should override the param of the
      * model attribute.
      */
     @Test
-    public void testMakeScriptFieldsClauseTypeDateFormatInputAttributeOverridesModelAttribute() throws Exception {
+    public void testMakeDocValueFieldsClauseTypeDateFormatInputAttributeOverridesModelAttribute() throws Exception {
         String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\",\"params\":{\"format\":\"yyyy-MM-dd'T'HH:mm:ss\"}}}";
         String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
         String matchers = "\"matchers\":{\n" +
@@ -966,31 +1087,20 @@ public class JobTest {
             "}";
         Input input = new Input(json, model);
 
-        Map<String, Script> scriptMap = Job.buildScriptFields("index", input);
-        assertTrue(scriptMap.containsKey("field_timestamp"));
+        assertTrue(Job.buildScriptFields("index", input).isEmpty());
 
-        Script script = scriptMap.get("field_timestamp");
-        assertEquals("painless", script.getLang());
-
-        String expectedSource = "DateFormat df = new SimpleDateFormat(params.format); df.setTimeZone(TimeZone.getTimeZone('UTC')); return df.format(doc[params.field].value.toInstant().toEpochMilli())";
-        assertEquals(expectedSource, script.getIdOrCode());
-
-        Map<String, Object> params = script.getParams();
-
-        assertTrue(params.containsKey("format"));
-        assertEquals("yyyy-MM-dd'T'HH:mm:ss.SSS", params.get("format"));
-
-        assertTrue(params.containsKey("field"));
-        assertEquals("field_timestamp", params.get("field"));
+        Map<String, String> formatMap = Job.buildDateDocValueFields("index", input);
+        assertTrue(formatMap.containsKey("field_timestamp"));
+        assertEquals("yyyy-MM-dd'T'HH:mm:ss.SSS", formatMap.get("field_timestamp"));
     }
 
     /**
-     * Make the "script_fields" clause for a "date" type attribute where the "format" param is specified both in the
+     * Make the "docvalue_fields" clause for a "date" type attribute where the "format" param is specified both in the
      * input attribute and the model attribute, but the value of the input attribute param is null. The param of the
      * input attribute should not override the non-null param of the model attribute.
      */
     @Test
-    public void testMakeScriptFieldsClauseTypeDateFormatNullNotOverrides() throws Exception {
+    public void testMakeDocValueFieldsClauseTypeDateFormatNullNotOverrides() throws Exception {
         String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\",\"params\":{\"format\":\"yyyy-MM-dd'T'HH:mm:ss\"}}}";
         String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
         String matchers = "\"matchers\":{\n" +
@@ -1045,30 +1155,19 @@ public class JobTest {
             "}";
         Input input = new Input(json, model);
 
-        Map<String, Script> scriptMap = Job.buildScriptFields("index", input);
-        assertTrue(scriptMap.containsKey("field_timestamp"));
-
-        Script script = scriptMap.get("field_timestamp");
-        assertEquals("painless", script.getLang());
+        assertTrue(Job.buildScriptFields("index", input).isEmpty());
 
-        String expectedSource = "DateFormat df = new SimpleDateFormat(params.format); df.setTimeZone(TimeZone.getTimeZone('UTC')); return df.format(doc[params.field].value.toInstant().toEpochMilli())";
-        assertEquals(expectedSource, script.getIdOrCode());
-
-        Map<String, Object> params = script.getParams();
-
-        assertTrue(params.containsKey("format"));
-        assertEquals("yyyy-MM-dd'T'HH:mm:ss", params.get("format"));
-
-        assertTrue(params.containsKey("field"));
-        assertEquals("field_timestamp", params.get("field"));
+        Map<String, String> formatMap = Job.buildDateDocValueFields("index", input);
+        assertTrue(formatMap.containsKey("field_timestamp"));
+        assertEquals("yyyy-MM-dd'T'HH:mm:ss", formatMap.get("field_timestamp"));
     }
 
     /**
-     * The "script_fields" clause for a "date" type attribute must throw an exception if the "format" param is missing
+     * The "docvalue_fields" clause for a "date" type attribute must throw an exception if the "format" param is missing
      * from the matcher, the model attribute, and the input attribute.
      */
     @Test(expected = ValidationException.class)
-    public void testMakeScriptFieldsClauseTypeDateFormatMissing() throws Exception {
+    public void testMakeDocValueFieldsClauseTypeDateFormatMissing() throws Exception {
         String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\"}}";
         String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
         String matchers = "\"matchers\":{\n" +
@@ -1119,14 +1218,14 @@ public class JobTest {
             "}";
         Input input = new Input(json, model);
         // should throw
-        Job.buildScriptFields("index", input).get("field_timestamp");
+        Job.buildDateDocValueFields("index", input).get("field_timestamp");
     }
 
     /**
-     * The "script_fields" clause for a "date" type attribute must throw an exception if the only "format" param is null.
+     * The "docvalue_fields" clause for a "date" type attribute must throw an exception if the only "format" param is null.
      */
     @Test(expected = ValidationException.class)
-    public void testMakeScriptFieldsClauseTypeDateFormatNull() throws Exception {
+    public void testMakeDocValueFieldsClauseTypeDateFormatNull() throws Exception {
         String attributes = "\"attributes\":{\"attribute_ip\":{},\"attribute_timestamp\":{\"type\":\"date\"}}";
         String resolvers = "\"resolvers\":{\"a\":{\"attributes\":[\"attribute_ip\",\"attribute_timestamp\"]}}";
         String matchers = "\"matchers\":{\n" +
@@ -1178,7 +1277,56 @@ public class JobTest {
             "}";
         Input input = new Input(json, model);
         // should throw
-        Job.buildScriptFields("index", input).get("field_timestamp");
+        Job.buildDateDocValueFields("index", input).get("field_timestamp");
+    }
+
+    /**
+     * Read only the fields whose doc values hold the same values as the "_source".
+     */
+    @Test
+    public void testCanReadDocValues() {
+        assertTrue(Job.canReadDocValues(Map.of("type", "keyword")));
+        assertFalse(Job.canReadDocValues(Map.of("type", "text")));
+        assertFalse(Job.canReadDocValues(Map.of("type", "date")));
+        assertFalse(Job.canReadDocValues(Map.of("type", "keyword", "doc_values", false)));
+        assertFalse(Job.canReadDocValues(Map.of("type", "keyword", "normalizer", "lowercase")));
+        assertFalse(Job.canReadDocValues(Map.of("type", "keyword", "ignore_above", 256)));
+        assertFalse(Job.canReadDocValues(null));
+
+        // Booleans read the string "true" in the "_source" as true.
+        assertFalse(Job.canReadDocValues(Map.of("type", "boolean", "doc_values", true)));
+
+        // Integers must neither coerce nor ignore malformed values, which both default to the index settings.
+        assertFalse(Job.canReadDocValues(Map.of("type", "long")));
+        assertFalse(Job.canReadDocValues(Map.of("type", "long", "coerce", false)));
+        assertFalse(Job.canReadDocValues(Map.of("type", "long", "ignore_malformed", false)));
+        assertFalse(Job.canReadDocValues(Map.of("type", "long", "coerce", false, "ignore_malformed", true)));
+        assertTrue(Job.canReadDocValues(Map.of("type", "long", "coerce", false, "ignore_malformed", false)));
+        assertTrue(Job.canReadDocValues(Map.of("type", "integer", "coerce", "false", "ignore_malformed", "false")));
+        assertFalse(Job.canReadDocValues(Map.of("type", "integer", "coerce", false, "ignore_malformed", false, "null_value", 0)));
+        assertFalse(Job.canReadDocValues(Map.of("type", "double", "coerce", false, "ignore_malformed", false)));
+    }
+
+    /**
+     * Fetch only the index fields (and the objects of their multi-fields) that are not read from the doc values.
+     */
+    @Test
+    public void testBuildSourceIncludes() throws Exception {
+        String attributes = "\"attributes\":{\"attribute_name\":{},\"attribute_phone\":{}}";
+        String resolvers = "\"resolvers\":{\"resolver_name\":{\"attributes\":[\"attribute_name\"]}}";
+        String matchers = "\"matchers\":{\"matcher_exact\":{\"clause\":{\"term\":{\"{{ field }}\":\"{{ value }}\"}}}}";
+        String indices = "\"indices\":{\"index\":{\"fields\":{" +
+            "\"name.keyword\":{\"attribute\":\"attribute_name\",\"matcher\":\"matcher_exact\"}," +
+            "\"person.phone\":{\"attribute\":\"attribute_phone\",\"matcher\":\"matcher_exact\"}," +
+            "\"id\":{\"attribute\":\"attribute_phone\"}" +
+            "}}}";
+        Model model = new Model("{" + attributes + "," + resolvers + "," + matchers + "," + indices + "}");
+        String[] includes = Job.buildSourceIncludes(model.indices().get("index"), Collections.emptySet());
+        assertEquals(Arrays.asList("id", "name", "name.keyword", "person", "person.phone"), Arrays.asList(includes));
+        includes = Job.buildSourceIncludes(model.indices().get("index"), Set.of("name.keyword", "id"));
+        assertEquals(Arrays.asList("person", "person.phone"), Arrays.asList(includes));
+        includes = Job.buildSourceIncludes(model.indices().get("index"), Set.of("name.keyword", "id", "person.phone"));
+        assertEquals(0, includes.length);
     }
 
     /**
@@ -0,0 +1,79 @@
+package io.zentity.resolution;
+
+import io.zentity.common.Json;
+import io.zentity.model.Model;
+import io.zentity.resolution.input.Input;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ModelPlanTest {
+
+    private static final String MODEL = "{" +
+        "\"attributes\":{\"name\":{},\"phone\":{},\"email\":{},\"id\":{}}," +
+        "\"resolvers\":{" +
+        "\"a\":{\"attributes\":[\"name\",\"phone\"]}," +
+        "\"b\":{\"attributes\":[\"name\",\"email\"]}," +
+        "\"c\":{\"attributes\":[\"id\"],\"weight\":1}," +
+        "\"d\":{\"attributes\":[\"email\"]}}," +
+        "\"matchers\":{\"x\":{\"clause\":{\"term\":{\"{{field}}\":\"{{value}}\"}}}}," +
+        "\"indices\":{" +
+        "\"index_a\":{\"fields\":{\"name\":{\"attribute\":\"name\",\"matcher\":\"x\"},\"phone\":{\"attribute\":\"phone\",\"matcher\":\"x\"},\"email\":{\"attribute\":\"email\"},\"id\":{\"attribute\":\"id\",\"matcher\":\"x\"}}}," +
+        "\"index_b\":{\"fields\":{\"email\":{\"attribute\":\"email\",\"matcher\":\"x\"}}}}" +
+        "}";
+
+    @Test
+    public void testCanQueryResolver() throws Exception {
+        Model model = new Model(MODEL);
+        ModelPlan plan = new ModelPlan(model);
+        Input input = new Input("{\"attributes\":{\"name\":[\"Alice\"],\"phone\":[\"555-1234\"],\"email\":[\"alice@example.net\"],\"id\":[]}}", model);
+        assertTrue(plan.canQueryResolver("index_a", "a", input.attributes()));
+        // The "email" field of "index_a" has no matcher.
+        assertFalse(plan.canQueryResolver("index_a", "b", input.attributes()));
+        assertFalse(plan.canQueryResolver("index_a", "d", input.attributes()));
+        // The "id" attribute has no values.
+        assertFalse(plan.canQueryResolver("index_a", "c", input.attributes()));
+        assertTrue(plan.canQueryResolver("index_b", "d", input.attributes()));
+        assertFalse(plan.canQueryResolver("index_b", "a", input.attributes()));
+    }
+
+    @Test
+    public void testTiers() throws Exception {
+        ModelPlan plan = new ModelPlan(new Model(MODEL));
+        List<ModelPlan.Tier> tiers = plan.tiers(Arrays.asList("a", "b", "c"));
+        assertEquals(2, tiers.size());
+        assertEquals(1, tiers.get(0).weight);
+        assertEquals(Collections.singletonList("c"), tiers.get(0).resolvers);
+        assertEquals(0, tiers.get(1).weight);
+        assertEquals(Arrays.asList("a", "b"), tiers.get(1).resolvers);
+        assertEquals("{\"name\":{\"email\":{},\"phone\":{}}}", Json.ORDERED_MAPPER.writeValueAsString(tiers.get(1).filterTree));
+
+        // The tiers of the same resolvers are built once.
+        assertSame(tiers, plan.tiers(Arrays.asList("a", "b", "c")));
+        assertSame(tiers.get(1).filterTree, plan.filterTree(Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void testSortedResolverAttributes() throws Exception {
+        ModelPlan plan = new ModelPlan(new Model(MODEL));
+        List<List<String>> sorted = plan.sortedResolverAttributes(Arrays.asList("b", "d"));
+        assertEquals(Arrays.asList(Arrays.asList("email", "name"), Collections.singletonList("email")), sorted);
+    }
+
+    @Test
+    public void testScopedInput() throws Exception {
+        ModelPlan plan = new ModelPlan(new Model(MODEL));
+        Input input = new Input("{\"attributes\":{\"name\":[\"Alice\"]},\"scope\":{\"include\":{\"resolvers\":[\"a\"],\"indices\":[\"index_a\"]}}}", plan);
+        assertSame(plan, input.plan());
+        assertEquals(Collections.singleton("a"), input.model().resolvers().keySet());
+        assertEquals(4, plan.model().resolvers().size());
+        assertEquals(2, plan.model().indices().size());
+    }
+}
@@ -0,0 +1,84 @@
+package io.zentity.resolution;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResolutionStatsTest {
+
+    @Test
+    public void testRecord() {
+        ResolutionStats stats = new ResolutionStats();
+        stats.onJobStarted();
+        stats.onJobStarted();
+        stats.onJobCompleted(TimeUnit.MILLISECONDS.toNanos(30), 2, 5, false);
+        stats.onJobCompleted(TimeUnit.MILLISECONDS.toNanos(700), 1, 0, true);
+        stats.onHop(TimeUnit.MILLISECONDS.toNanos(15));
+        stats.onSearch(TimeUnit.MILLISECONDS.toNanos(3));
+        stats.onQuery("a");
+        stats.onQuery("a");
+        stats.onQuery("b");
+        stats.onBulkRequest();
+        stats.onBulkItem(false);
+        stats.onBulkItem(true);
+
+        ResolutionStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(2, snapshot.jobsStarted());
+        assertEquals(2, snapshot.jobsCompleted());
+        assertEquals(1, snapshot.jobsFailed());
+        assertEquals(2, snapshot.jobMillis().count());
+        assertEquals(700, snapshot.jobMillis().max());
+        assertEquals(3, snapshot.hopsPerJob().sum());
+        assertEquals(5, snapshot.docsPerJob().sum());
+        assertEquals(15, snapshot.hopMillis().percentile(50));
+        assertEquals(3, snapshot.searchMillis().percentile(50));
+        assertEquals(Map.of("a", 2L, "b", 1L), snapshot.indexQueries());
+        assertEquals(1, snapshot.bulkRequests());
+        assertEquals(2, snapshot.bulkItems());
+        assertEquals(1, snapshot.bulkItemsFailed());
+    }
+
+    /**
+     * The queries of indices past the limit are counted together, so that the map of counters does not grow without
+     * bound.
+     */
+    @Test
+    public void testMaxIndices() {
+        ResolutionStats stats = new ResolutionStats();
+        for (int i = 0; i < ResolutionStats.MAX_INDICES + 10; i++) {
+            stats.onQuery("index_" + i);
+        }
+        stats.onQuery("index_0");
+        Map<String, Long> indexQueries = stats.snapshot().indexQueries();
+        assertEquals(ResolutionStats.MAX_INDICES + 1, indexQueries.size());
+        assertEquals(2L, (long) indexQueries.get("index_0"));
+        assertEquals(10L, (long) indexQueries.get(ResolutionStats.OTHER_INDICES));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        ResolutionStats stats = new ResolutionStats();
+        stats.onJobStarted();
+        stats.onJobCompleted(TimeUnit.MILLISECONDS.toNanos(12), 3, 4, false);
+        stats.onQuery("a");
+        stats.onBulkItem(true);
+        ResolutionStats.Snapshot snapshot = stats.snapshot();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        snapshot.writeTo(out);
+        ResolutionStats.Snapshot read = new ResolutionStats.Snapshot(out.bytes().streamInput());
+        assertEquals(1, read.jobsStarted());
+        assertEquals(1, read.jobsCompleted());
+        assertEquals(0, read.jobsFailed());
+        assertEquals(12, read.jobMillis().max());
+        assertEquals(3, read.hopsPerJob().max());
+        assertEquals(4, read.docsPerJob().max());
+        assertEquals(Map.of("a", 1L), read.indexQueries());
+        assertEquals(1, read.bulkItems());
+        assertEquals(1, read.bulkItemsFailed());
+    }
+}
@@ -0,0 +1,75 @@
+package io.zentity.resolution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.zentity.common.Json;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResolutionStreamTest {
+
+    static String[] readLines(ResolutionStream stream) {
+        String ndjson = stream.bytes().utf8ToString();
+        assertTrue(ndjson.endsWith("\n"));
+        return ndjson.split("\n");
+    }
+
+    @Test
+    public void testWriteRecords() throws Exception {
+        ResolutionStream stream = new ResolutionStream();
+        stream.writeQuery(ResolutionResponseTest.createLoggedQuery(0));
+        stream.writeHits(0, 0, "idx", List.of(
+            Json.ORDERED_MAPPER.readTree("{\"_id\":\"a\"}"),
+            Json.ORDERED_MAPPER.readTree("{\"_id\":\"b\"}")
+        ));
+        stream.writeHits(1, 1, "idx", Collections.singletonList(Json.ORDERED_MAPPER.readTree("{\"_id\":\"c\"}")));
+        stream.writeSummary(Duration.ofMillis(12), true, false, null, false);
+
+        String[] lines = readLines(stream);
+        assertEquals(4, lines.length);
+
+        JsonNode query = Json.ORDERED_MAPPER.readTree(lines[0]).get("query");
+        assertEquals(0, query.get("_query").asInt());
+
+        JsonNode hits = Json.ORDERED_MAPPER.readTree(lines[1]);
+        assertEquals(
+            Json.ORDERED_MAPPER.readTree("{\"hits\":{\"_hop\":0,\"_query\":0,\"_index\":\"idx\",\"hits\":[{\"_id\":\"a\"},{\"_id\":\"b\"}]}}"),
+            hits
+        );
+
+        JsonNode summary = Json.ORDERED_MAPPER.readTree(lines[3]);
+        assertEquals(
+            Json.ORDERED_MAPPER.readTree("{\"summary\":{\"took\":12,\"hits\":{\"total\":3}}}"),
+            summary
+        );
+    }
+
+    @Test
+    public void testWriteSummaryError() throws Exception {
+        ResolutionStream stream = new ResolutionStream();
+        stream.writeSummary(
+            Duration.ofMillis(1),
+            false,
+            true,
+            new ElasticsearchStatusException("This was not found", RestStatus.NOT_FOUND),
+            false
+        );
+
+        String[] lines = readLines(stream);
+        assertEquals(1, lines.length);
+        JsonNode summary = Json.ORDERED_MAPPER.readTree(lines[0]).get("summary");
+        assertFalse(summary.has("hits"));
+        assertTrue(summary.get("budget_exhausted").asBoolean());
+        assertEquals("elasticsearch", summary.get("error").get("by").asText());
+        assertEquals("This was not found", summary.get("error").get("reason").asText());
+        assertFalse(summary.get("error").has("stack_trace"));
+    }
+}
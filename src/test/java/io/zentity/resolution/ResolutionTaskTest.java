@@ -0,0 +1,269 @@
+package io.zentity.resolution;
+
+import io.zentity.model.Model;
+import io.zentity.resolution.input.Input;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.CompositeIndicesRequest;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.search.ClearScrollAction;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollAction;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.client.ParentTaskAssigningClient;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.plugin.zentity.ResolutionTaskAction;
+import org.elasticsearch.plugin.zentity.ResolutionTaskRequest;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResolutionTaskTest {
+
+    private static final String MODEL = "{" +
+        "\"attributes\":{\"name\":{}}," +
+        "\"resolvers\":{\"name\":{\"attributes\":[\"name\"]}}," +
+        "\"matchers\":{\"exact\":{\"clause\":{\"term\":{\"{{field}}\":\"{{value}}\"}}}}," +
+        "\"indices\":{" +
+        "\"index_a\":{\"fields\":{\"name\":{\"attribute\":\"name\",\"matcher\":\"exact\"}}}," +
+        "\"index_b\":{\"fields\":{\"name\":{\"attribute\":\"name\",\"matcher\":\"exact\"}}}" +
+        "}}";
+
+    /**
+     * A client that answers every search with an empty response, and runs a callback before answering. When paged,
+     * it answers every search and scroll with a page of one new hit instead.
+     */
+    static class SearchClient extends NodeClient {
+        final List<ActionRequest> requests = new CopyOnWriteArrayList<>();
+        Runnable onSearch = () -> { };
+        boolean paged = false;
+        int nextDocId = 0;
+
+        SearchClient(ThreadPool threadPool) {
+            super(Settings.EMPTY, threadPool);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <Request extends ActionRequest, Response extends ActionResponse> void doExecute(
+            ActionType<Response> action,
+            Request request,
+            ActionListener<Response> listener
+        ) {
+            if (action == ClearScrollAction.INSTANCE) {
+                listener.onResponse((Response) new ClearScrollResponse(true, 1));
+                return;
+            }
+            assertTrue(action == SearchAction.INSTANCE || action == SearchScrollAction.INSTANCE);
+            requests.add(request);
+            onSearch.run();
+            if (!paged) {
+                SearchResponse response = new SearchResponse(
+                    InternalSearchResponse.empty(), null, 1, 1, 0, 1, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY
+                );
+                listener.onResponse((Response) response);
+                return;
+            }
+            SearchHit hit = new SearchHit(nextDocId, Integer.toString(nextDocId++), new Text("_doc"), Map.of(), Map.of());
+            hit.sourceRef(new BytesArray("{\"name\":\"Alice\"}"));
+            hit.shard(new SearchShardTarget("node", new ShardId("index_a", "_na_", 0), null, OriginalIndices.NONE));
+            InternalSearchResponse sections = new InternalSearchResponse(
+                new SearchHits(new SearchHit[]{hit}, new TotalHits(100, TotalHits.Relation.EQUAL_TO), 1.0f),
+                null, null, null, false, null, 1
+            );
+            SearchResponse response = new SearchResponse(
+                sections, "scroll", 1, 1, 0, 1, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY
+            );
+            listener.onResponse((Response) response);
+        }
+    }
+
+    private ThreadPool threadPool;
+    private SearchClient client;
+    private TaskManager taskManager;
+    private ResolutionStats stats;
+
+    @Before
+    public void setUp() {
+        threadPool = new ThreadPool(Settings.builder().put("node.name", "resolution-task-test").build());
+        client = new SearchClient(threadPool);
+        taskManager = new TaskManager(Settings.EMPTY, threadPool, Collections.emptySet());
+        stats = new ResolutionStats();
+    }
+
+    @After
+    public void tearDown() {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    private ResolutionTask registerTask() {
+        ResolutionTaskRequest request = new ResolutionTaskRequest(new BytesArray("{}"), Map.of(), false);
+        return (ResolutionTask) taskManager.register("transport", ResolutionTaskAction.NAME, request);
+    }
+
+    private Job buildJob(ResolutionTask task) throws Exception {
+        return jobBuilder(task).build();
+    }
+
+    private Job.Builder jobBuilder(ResolutionTask task) throws Exception {
+        Model model = new Model(MODEL);
+        Input input = new Input("{\"attributes\":{\"name\":[\"Alice\"]}}", model);
+        return Job.newBuilder()
+            .client(new ParentTaskAssigningClient(client, new TaskId("node", task.getId())))
+            .task(task)
+            .stats(stats)
+            .input(input)
+            .docValueFields(false)
+            .maxConcurrentSearches(1);
+    }
+
+    @Test
+    public void testRunWithoutCancellation() throws Exception {
+        ResolutionTask task = registerTask();
+        ResolutionResponse response = buildJob(task).runAsync().get();
+
+        assertEquals(null, response.error);
+        assertEquals(2, client.requests.size());
+        for (ActionRequest request : client.requests) {
+            assertEquals(new TaskId("node", task.getId()), request.getParentTask());
+        }
+        assertEquals(new ResolutionTask.Status(0, 2, 0, 0), task.getStatus());
+
+        ResolutionStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(1, snapshot.jobsStarted());
+        assertEquals(1, snapshot.jobsCompleted());
+        assertEquals(0, snapshot.jobsFailed());
+        assertEquals(1, snapshot.hopsPerJob().max());
+        assertEquals(1, snapshot.hopMillis().count());
+        assertEquals(2, snapshot.searchMillis().count());
+        assertEquals(Map.of("index_a", 1L, "index_b", 1L), snapshot.indexQueries());
+    }
+
+    /**
+     * Cancelling the task during the search of the first index stops the job before it searches the second index.
+     */
+    @Test
+    public void testCancelMidHop() throws Exception {
+        ResolutionTask task = registerTask();
+        client.onSearch = () -> taskManager.cancel(task, "test", () -> { });
+        ResolutionResponse response = buildJob(task).runAsync().get();
+
+        assertTrue(task.isCancelled());
+        assertTrue(response.error instanceof TaskCancelledException);
+        assertEquals(1, client.requests.size());
+        assertEquals(new ResolutionTask.Status(0, 1, 0, 0), task.getStatus());
+        assertEquals(1, stats.snapshot().jobsFailed());
+    }
+
+    @Test
+    public void testCancelBeforeRun() throws Exception {
+        ResolutionTask task = registerTask();
+        taskManager.cancel(task, "test", () -> { });
+        ResolutionResponse response = buildJob(task).runAsync().get();
+
+        assertTrue(response.error instanceof TaskCancelledException);
+        assertTrue(client.requests.isEmpty());
+    }
+
+    /**
+     * Each page of a paged search counts against "max_queries", so paging stops once the job is out of queries.
+     */
+    @Test
+    public void testPagesCountAsQueries() throws Exception {
+        client.paged = true;
+        ResolutionTask task = registerTask();
+        ResolutionResponse response = jobBuilder(task)
+            .pageSize(1)
+            .maxDocsPerQuery(10)
+            .maxQueries(3)
+            .build()
+            .runAsync()
+            .get();
+
+        assertEquals(null, response.error);
+        assertTrue(response.budgetExhausted);
+        assertEquals(1, client.requests.stream().filter((request) -> request instanceof SearchRequest).count());
+        assertEquals(2, client.requests.stream().filter((request) -> request instanceof SearchScrollRequest).count());
+        assertEquals(3, task.getStatus().queries());
+        assertEquals(Map.of("index_a", 3L), stats.snapshot().indexQueries());
+        assertEquals(3, stats.snapshot().searchMillis().count());
+    }
+
+    /**
+     * Cancelling the task while a paged search fetches its first page stops the job before it fetches the next page.
+     */
+    @Test
+    public void testCancelWhilePaging() throws Exception {
+        client.paged = true;
+        ResolutionTask task = registerTask();
+        client.onSearch = () -> taskManager.cancel(task, "test", () -> { });
+        ResolutionResponse response = jobBuilder(task)
+            .pageSize(1)
+            .maxDocsPerQuery(10)
+            .build()
+            .runAsync()
+            .get();
+
+        assertTrue(response.error instanceof TaskCancelledException);
+        assertEquals(1, client.requests.size());
+    }
+
+    /**
+     * The action is authorized like "_msearch": by the "read" index privilege, and then search by search.
+     */
+    @Test
+    public void testAuthorizedAsIndexRead() {
+        assertTrue(ResolutionTaskAction.NAME.startsWith("indices:data/read/"));
+        assertTrue(new ResolutionTaskRequest(new BytesArray("{}"), Map.of(), false) instanceof CompositeIndicesRequest);
+    }
+
+    @Test
+    public void testStatus() throws Exception {
+        ResolutionTask task = registerTask();
+        assertFalse(task.isCancelled());
+        task.onHop(2);
+        task.onHop(1);
+        task.onQuery();
+        task.onDoc();
+        task.onDoc();
+        task.onJobCompleted();
+        ResolutionTask.Status status = task.getStatus();
+        assertEquals(new ResolutionTask.Status(2, 1, 2, 1), status);
+        assertEquals("{\"hop\":2,\"queries\":1,\"docs\":2,\"jobs_completed\":1}", Strings.toString(status));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        status.writeTo(out);
+        assertEquals(status, new ResolutionTask.Status(out.bytes().streamInput()));
+    }
+}
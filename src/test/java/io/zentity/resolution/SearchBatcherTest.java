@@ -0,0 +1,131 @@
+package io.zentity.resolution;
+
+import io.zentity.common.CompletableFutureUtil;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class SearchBatcherTest {
+
+    /**
+     * A client that answers every multi search with one mocked response per search, or a failure for
+     * searches on the "missing" index, and records the requests it received.
+     */
+    static class MultiSearchClient extends NodeClient {
+        final List<MultiSearchRequest> requests = new CopyOnWriteArrayList<>();
+
+        MultiSearchClient(ThreadPool threadPool) {
+            super(Settings.EMPTY, threadPool);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <Request extends ActionRequest, Response extends ActionResponse> void doExecute(
+            ActionType<Response> action,
+            Request request,
+            ActionListener<Response> listener
+        ) {
+            MultiSearchRequest multiSearchRequest = (MultiSearchRequest) request;
+            requests.add(multiSearchRequest);
+            MultiSearchResponse.Item[] items = multiSearchRequest.requests().stream()
+                .map((searchRequest) -> {
+                    if (searchRequest.indices()[0].equals("missing")) {
+                        return new MultiSearchResponse.Item(null, new IndexNotFoundException("missing"));
+                    }
+                    return new MultiSearchResponse.Item(mock(SearchResponse.class), null);
+                })
+                .toArray(MultiSearchResponse.Item[]::new);
+            listener.onResponse((Response) new MultiSearchResponse(items, 1));
+        }
+    }
+
+    private ThreadPool threadPool;
+    private MultiSearchClient client;
+
+    @Before
+    public void setUp() {
+        threadPool = new ThreadPool(Settings.builder().put("node.name", "search-batcher-test").build());
+        client = new MultiSearchClient(threadPool);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    private SearchRequestBuilder search(String index) {
+        return new SearchRequestBuilder(client, SearchAction.INSTANCE).setIndices(index);
+    }
+
+    @Test
+    public void testFlushOnBatchSize() throws Exception {
+        SearchBatcher batcher = new SearchBatcher(client, 3, TimeValue.timeValueHours(1));
+        CompletableFuture<SearchResponse> fut1 = batcher.submit(search("a"));
+        CompletableFuture<SearchResponse> fut2 = batcher.submit(search("b"));
+        assertEquals(0, client.requests.size());
+        CompletableFuture<SearchResponse> fut3 = batcher.submit(search("c"));
+
+        CompletableFuture.allOf(fut1, fut2, fut3).get(10, TimeUnit.SECONDS);
+        assertEquals(1, client.requests.size());
+        List<SearchRequest> sent = client.requests.get(0).requests();
+        assertEquals(3, sent.size());
+        assertEquals("a", sent.get(0).indices()[0]);
+        assertEquals("b", sent.get(1).indices()[0]);
+        assertEquals("c", sent.get(2).indices()[0]);
+    }
+
+    @Test
+    public void testFlushOnLinger() throws Exception {
+        SearchBatcher batcher = new SearchBatcher(client, 100, TimeValue.timeValueMillis(10));
+        CompletableFuture<SearchResponse> fut1 = batcher.submit(search("a"));
+        CompletableFuture<SearchResponse> fut2 = batcher.submit(search("b"));
+
+        CompletableFuture.allOf(fut1, fut2).get(10, TimeUnit.SECONDS);
+        assertEquals(1, client.requests.size());
+        assertEquals(2, client.requests.get(0).requests().size());
+    }
+
+    @Test
+    public void testRoutesItemFailures() throws Exception {
+        SearchBatcher batcher = new SearchBatcher(client, 2, TimeValue.timeValueHours(1));
+        CompletableFuture<SearchResponse> missingFut = batcher.submit(search("missing"));
+        CompletableFuture<SearchResponse> foundFut = batcher.submit(search("a"));
+
+        SearchResponse response = foundFut.get(10, TimeUnit.SECONDS);
+        assertNotNull(response);
+        try {
+            missingFut.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            Throwable cause = CompletableFutureUtil.getCause(ex);
+            assertSame(IndexNotFoundException.class, cause.getClass());
+            return;
+        }
+        throw new AssertionError("Expected the search on the missing index to fail");
+    }
+}
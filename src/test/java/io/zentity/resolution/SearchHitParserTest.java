@@ -0,0 +1,136 @@
+package io.zentity.resolution;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.zentity.common.Json;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchShardTarget;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SearchHitParserTest {
+
+    static final String SOURCE = "{" +
+        "\"name\":\"Alice\"," +
+        "\"skipped\":{\"deep\":[1,2,{\"deeper\":true}]}," +
+        "\"address\":{\"city\":\"Springfield\",\"zip\":\"12345\",\"geo\":{\"lat\":1.5,\"lon\":-2.25}}," +
+        "\"phones\":[{\"number\":\"555-1234\"},{\"number\":\"555-6789\"}]," +
+        "\"age\":42," +
+        "\"big\":12345678901234" +
+        "}";
+
+    static SearchHit buildHit() {
+        Map<String, DocumentField> documentFields = new HashMap<>();
+        documentFields.put("dob", new DocumentField("dob", List.of("1999-12-31")));
+        Map<String, DocumentField> metaFields = new HashMap<>();
+        metaFields.put("_routing", new DocumentField("_routing", List.of("r1")));
+        metaFields.put("_ignored", new DocumentField("_ignored", List.of("a", "b")));
+        SearchHit hit = new SearchHit(1, "doc-1", new Text("_doc"), documentFields, metaFields);
+        hit.shard(new SearchShardTarget("node", new ShardId("idx", "uuid", 0), null, OriginalIndices.NONE));
+        hit.version(3);
+        hit.setSeqNo(10);
+        hit.setPrimaryTerm(1);
+        hit.sourceRef(new BytesArray(SOURCE));
+        hit.matchedQueries(new String[]{"q1"});
+        return hit;
+    }
+
+    @Test
+    public void testParseFullSource() throws Exception {
+        JsonNode source = SearchHitParser.parseFullSource(new BytesArray(SOURCE));
+        assertEquals(Json.ORDERED_MAPPER.readTree(SOURCE), source);
+    }
+
+    @Test
+    public void testParseFullSourceNull() throws Exception {
+        assertNull(SearchHitParser.parseFullSource(null));
+    }
+
+    @Test
+    public void testParseSourceLimitedToPaths() throws Exception {
+        SearchHitParser parser = new SearchHitParser(Arrays.asList(
+            JsonPointer.compile("/name"),
+            JsonPointer.compile("/address/city"),
+            JsonPointer.compile("/address/geo/lat"),
+            JsonPointer.compile("/phones/number"),
+            JsonPointer.compile("/missing/field"),
+            null
+        ));
+        JsonNode source = parser.parseSource(new BytesArray(SOURCE));
+        JsonNode expected = Json.ORDERED_MAPPER.readTree("{" +
+            "\"name\":\"Alice\"," +
+            "\"address\":{\"city\":\"Springfield\",\"geo\":{\"lat\":1.5}}," +
+            "\"phones\":[{\"number\":\"555-1234\"},{\"number\":\"555-6789\"}]" +
+            "}");
+        assertEquals(expected, source);
+    }
+
+    @Test
+    public void testParseSourceMatchesFullSourceOnPaths() throws Exception {
+        List<JsonPointer> paths = Arrays.asList(
+            JsonPointer.compile("/address"),
+            JsonPointer.compile("/address/zip"),
+            JsonPointer.compile("/age"),
+            JsonPointer.compile("/big"),
+            JsonPointer.compile("/phones/0")
+        );
+        JsonNode full = Json.ORDERED_MAPPER.readTree(SOURCE);
+        JsonNode limited = new SearchHitParser(paths).parseSource(new BytesArray(SOURCE));
+        for (JsonPointer path : paths) {
+            assertEquals(full.at(path), limited.at(path));
+        }
+        assertTrue(limited.at("/skipped").isMissingNode());
+    }
+
+    @Test
+    public void testParseSourceNull() throws Exception {
+        SearchHitParser parser = new SearchHitParser(Collections.singletonList(JsonPointer.compile("/name")));
+        assertNull(parser.parseSource(null));
+    }
+
+    @Test
+    public void testValueNode() throws Exception {
+        // The nodes are the same as parsing the JSON rendering of the values.
+        List<Object> values = Arrays.asList("text", true, 1, 2L, 12345678901234L, 1.1f, 2.5d, null);
+        JsonNode expected = Json.ORDERED_MAPPER.readTree("[\"text\",true,1,2,12345678901234,1.1,2.5,null]");
+        assertEquals(expected, SearchHitParser.arrayNode(values));
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(expected.get(i).getClass(), SearchHitParser.valueNode(values.get(i)).getClass());
+        }
+    }
+
+    @Test
+    public void testBuildDocObjNode() throws Exception {
+        SearchHit hit = buildHit();
+        ObjectNode docObjNode = Job.buildDocObjNode(hit, Set.of("dob"));
+
+        // Same fields and order as the rendered hit, less the fields that the job replaces.
+        ObjectNode rendered = (ObjectNode) Json.ORDERED_MAPPER.readTree(Strings.toString(hit));
+        rendered.remove("_score");
+        rendered.remove("_source");
+        rendered.remove("fields");
+        rendered.remove("matched_queries");
+        assertEquals(rendered, docObjNode);
+        assertEquals(
+            Json.ORDERED_MAPPER.writeValueAsString(rendered),
+            Json.ORDERED_MAPPER.writeValueAsString(docObjNode)
+        );
+    }
+}
@@ -0,0 +1,88 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.plugin.zentity.exceptions.BadRequestException;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActionUtilTest {
+
+    static RestChannel mockChannel() throws Exception {
+        RestChannel channel = mock(RestChannel.class);
+        when(channel.request()).thenReturn(mock(RestRequest.class));
+        when(channel.newErrorBuilder()).thenAnswer((invocation) -> XContentFactory.jsonBuilder());
+        return channel;
+    }
+
+    static RestResponse sentResponse(RestChannel channel) {
+        ArgumentCaptor<RestResponse> response = ArgumentCaptor.forClass(RestResponse.class);
+        verify(channel).sendResponse(response.capture());
+        return response.getValue();
+    }
+
+    @Test
+    public void testAsyncResponse() throws Exception {
+        RestChannel channel = mockChannel();
+        CompletableFuture<RestResponse> responseFuture = new CompletableFuture<>();
+        CheckedConsumer<RestChannel, Exception> consumer = ActionUtil.asyncErrorHandlingConsumer((ch) -> responseFuture);
+
+        // The consumer returns before the response is ready.
+        consumer.accept(channel);
+        verify(channel, never()).sendResponse(any());
+
+        RestResponse response = new BytesRestResponse(RestStatus.OK, "application/json", "{}");
+        responseFuture.complete(response);
+        assertSame(response, sentResponse(channel));
+    }
+
+    @Test
+    public void testAsyncFailure() throws Exception {
+        RestChannel channel = mockChannel();
+        CompletableFuture<RestResponse> responseFuture = new CompletableFuture<>();
+        CheckedConsumer<RestChannel, Exception> consumer = ActionUtil.asyncErrorHandlingConsumer((ch) -> responseFuture);
+        consumer.accept(channel);
+
+        responseFuture.completeExceptionally(new CompletionException(new BadRequestException("Bad input.")));
+        assertEquals(RestStatus.BAD_REQUEST, sentResponse(channel).status());
+    }
+
+    @Test
+    public void testSyncFailure() throws Exception {
+        RestChannel channel = mockChannel();
+        CheckedConsumer<RestChannel, Exception> consumer = ActionUtil.asyncErrorHandlingConsumer((ch) -> {
+            throw new IllegalStateException("Failed to start.");
+        });
+        consumer.accept(channel);
+
+        assertEquals(RestStatus.INTERNAL_SERVER_ERROR, sentResponse(channel).status());
+    }
+
+    @Test
+    public void testRejectedFailure() throws Exception {
+        RestChannel channel = mockChannel();
+        CompletableFuture<RestResponse> responseFuture = new CompletableFuture<>();
+        CheckedConsumer<RestChannel, Exception> consumer = ActionUtil.asyncErrorHandlingConsumer((ch) -> responseFuture);
+        consumer.accept(channel);
+
+        responseFuture.completeExceptionally(new EsRejectedExecutionException("The queue is full."));
+        assertEquals(RestStatus.TOO_MANY_REQUESTS, sentResponse(channel).status());
+    }
+}
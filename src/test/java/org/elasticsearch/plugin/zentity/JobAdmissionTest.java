@@ -0,0 +1,54 @@
+package org.elasticsearch.plugin.zentity;
+
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class JobAdmissionTest {
+
+    @Test
+    public void testAcquireRelease() {
+        JobAdmission admission = new JobAdmission(2);
+        admission.acquire();
+        admission.acquire();
+        assertEquals(2, admission.inFlight());
+        try {
+            admission.acquire();
+            fail("expected the job to be rejected");
+        } catch (EsRejectedExecutionException ex) {
+            assertEquals(1, admission.rejected());
+        }
+        assertEquals(2, admission.inFlight());
+
+        // A slot is free again once a job completes.
+        admission.release();
+        admission.acquire();
+        assertEquals(2, admission.inFlight());
+        assertEquals(1, admission.rejected());
+    }
+
+    @Test
+    public void testConcurrentAcquire() throws Exception {
+        JobAdmission admission = new JobAdmission(10);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        admission.acquire();
+                    } catch (EsRejectedExecutionException ex) {
+                        // expected once the cap is reached
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(10, admission.inFlight());
+        assertEquals(30, admission.rejected());
+    }
+}
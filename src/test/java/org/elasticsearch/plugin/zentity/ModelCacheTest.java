@@ -0,0 +1,129 @@
+package org.elasticsearch.plugin.zentity;
+
+import io.zentity.model.Model;
+import io.zentity.model.ModelTest;
+import io.zentity.resolution.ModelPlan;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ModelCacheTest {
+
+    private static final TimeValue EXPIRE_AFTER_WRITE = TimeValue.timeValueMinutes(1);
+
+    private static ModelPlan model() throws Exception {
+        return new ModelPlan(new Model(ModelTest.VALID_OBJECT));
+    }
+
+    @Test
+    public void testGetPut() throws Exception {
+        ModelCache cache = new ModelCache(10, EXPIRE_AFTER_WRITE);
+        ModelPlan model = model();
+        assertNull(cache.get("a"));
+        cache.put("a", 1, 0, model);
+        assertSame(model, cache.get("a"));
+        assertSame(model, cache.get("a"));
+        assertEquals(1, cache.count());
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void testPutOlderVersion() throws Exception {
+        ModelCache cache = new ModelCache(10, EXPIRE_AFTER_WRITE);
+        ModelPlan newer = model();
+        cache.put("a", 1, 5, newer);
+        cache.put("a", 1, 4, model());
+        cache.put("a", 1, 5, model());
+        assertSame(newer, cache.get("a"));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ModelCache cache = new ModelCache(10, EXPIRE_AFTER_WRITE);
+        cache.put("a", 1, 5, model());
+        cache.put("b", 1, 2, model());
+        cache.invalidate("a", 1, 6);
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.count());
+    }
+
+    @Test
+    public void testInvalidateOlderVersion() throws Exception {
+        ModelCache cache = new ModelCache(10, EXPIRE_AFTER_WRITE);
+        ModelPlan model = model();
+        cache.put("a", 2, 0, model);
+        cache.invalidate("a", 1, 6);
+        assertSame(model, cache.get("a"));
+    }
+
+    @Test
+    public void testPutStaleAfterInvalidate() throws Exception {
+        ModelCache cache = new ModelCache(10, EXPIRE_AFTER_WRITE);
+        // A model was read before it was updated, and is put after the update invalidated it.
+        cache.invalidate("a", 1, 6);
+        cache.put("a", 1, 5, model());
+        assertNull(cache.get("a"));
+
+        // The model that the update wrote is cached.
+        ModelPlan model = model();
+        cache.put("a", 1, 6, model);
+        assertSame(model, cache.get("a"));
+
+        // So is a model that was written after the update.
+        ModelPlan newer = model();
+        cache.put("a", 1, 7, newer);
+        assertSame(newer, cache.get("a"));
+    }
+
+    @Test
+    public void testClearForgetsInvalidated() throws Exception {
+        ModelCache cache = new ModelCache(10, EXPIRE_AFTER_WRITE);
+        cache.invalidate("a", 2, 6);
+        cache.clear();
+        ModelPlan model = model();
+        cache.put("a", 1, 5, model);
+        assertSame(model, cache.get("a"));
+    }
+
+    /**
+     * A node that missed an invalidation fetches the model again once its cached copy expires.
+     */
+    @Test
+    public void testExpireAfterWrite() throws Exception {
+        ModelCache cache = new ModelCache(10, TimeValue.timeValueMillis(500));
+        cache.put("a", 1, 5, model());
+        cache.invalidate("b", 2, 6);
+        Thread.sleep(600);
+        assertNull(cache.get("a"));
+
+        // The invalidated version expires too, so a model whose version went backwards can be cached again.
+        ModelPlan model = model();
+        cache.put("b", 1, 5, model);
+        assertSame(model, cache.get("b"));
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        ModelCache cache = new ModelCache(2, EXPIRE_AFTER_WRITE);
+        cache.put("a", 1, 0, model());
+        cache.put("b", 1, 1, model());
+        cache.put("c", 1, 2, model());
+        assertEquals(2, cache.count());
+        assertEquals(1, cache.evictions());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        ModelCache cache = new ModelCache(10, EXPIRE_AFTER_WRITE);
+        cache.put("a", 1, 0, model());
+        cache.put("b", 1, 1, model());
+        cache.clear();
+        assertEquals(0, cache.count());
+        assertNull(cache.get("a"));
+    }
+}
@@ -2,8 +2,12 @@ package org.elasticsearch.plugin.zentity;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import io.zentity.common.Json;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.rest.RestStatus;
 import org.junit.Test;
 
@@ -11,6 +15,7 @@ import static io.zentity.devtools.JsonTestUtil.assertUnorderedEquals;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
 
 public class ModelsActionIT extends AbstractActionITCase {
     @Test
@@ -126,4 +131,90 @@ public class ModelsActionIT extends AbstractActionITCase {
             destroyTestResources(testResourceSet);
         }
     }
+
+    @Test
+    public void testModelCacheInvalidatedOnDelete() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            client.performRequest(new Request("POST", "_zentity/_cache/_clear"));
+
+            // Resolve twice, so that the model is cached by the first request and read from the cache by the second.
+            for (int i = 0; i < 2; i++) {
+                Request postResolution = new Request("POST", "_zentity/resolution/zentity_test_entity_a");
+                postResolution.setEntity(new StringEntity("{\"attributes\":{\"attribute_a\":[\"a_00\"]}}", ContentType.APPLICATION_JSON));
+                Response response = client.performRequest(postResolution);
+                assertEquals(RestStatus.OK.getStatus(), response.getStatusLine().getStatusCode());
+            }
+
+            JsonNode stats = Json.ORDERED_MAPPER.readTree(client.performRequest(new Request("GET", "_zentity/_cache")).getEntity().getContent());
+            assertTrue("nodes field present", stats.has("nodes"));
+            long count = 0;
+            long hits = 0;
+            for (JsonNode node : stats.get("nodes")) {
+                count += node.get("models").get("count").asLong();
+                hits += node.get("models").get("hits").asLong();
+            }
+            assertEquals(1, count);
+            assertTrue("model read from the cache", hits >= 1);
+
+            client.performRequest(new Request("DELETE", "_zentity/models/zentity_test_entity_a"));
+
+            stats = Json.ORDERED_MAPPER.readTree(client.performRequest(new Request("GET", "_zentity/_cache")).getEntity().getContent());
+            for (JsonNode node : stats.get("nodes")) {
+                assertEquals(0, node.get("models").get("count").asInt());
+            }
+
+            Request postResolution = new Request("POST", "_zentity/resolution/zentity_test_entity_a");
+            postResolution.setEntity(new StringEntity("{\"attributes\":{\"attribute_a\":[\"a_00\"]}}", ContentType.APPLICATION_JSON));
+            try {
+                client.performRequest(postResolution);
+                fail("expected the deleted model to be not found");
+            } catch (ResponseException ex) {
+                assertEquals(RestStatus.NOT_FOUND.getStatus(), ex.getResponse().getStatusLine().getStatusCode());
+            }
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
+    private static long[] sumModelCacheStats(JsonNode stats) {
+        long count = 0;
+        long hits = 0;
+        for (JsonNode node : stats.get("nodes")) {
+            count += node.get("models").get("count").asLong();
+            hits += node.get("models").get("hits").asLong();
+        }
+        return new long[]{count, hits};
+    }
+
+    /**
+     * The model written by an update is cached, even though the update invalidated the models up to its version.
+     */
+    @Test
+    public void testModelCachedAfterUpdate() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            Request putModel = new Request("PUT", "_zentity/models/zentity_test_entity_a");
+            putModel.setEntity(new ByteArrayEntity(getTestEntityModelAJson(), ContentType.APPLICATION_JSON));
+            client.performRequest(putModel);
+
+            long[] before = sumModelCacheStats(Json.ORDERED_MAPPER.readTree(client.performRequest(new Request("GET", "_zentity/_cache")).getEntity().getContent()));
+
+            // Resolve twice, so that the model is cached by the first request and read from the cache by the second.
+            for (int i = 0; i < 2; i++) {
+                Request postResolution = new Request("POST", "_zentity/resolution/zentity_test_entity_a");
+                postResolution.setEntity(new StringEntity("{\"attributes\":{\"attribute_a\":[\"a_00\"]}}", ContentType.APPLICATION_JSON));
+                Response response = client.performRequest(postResolution);
+                assertEquals(RestStatus.OK.getStatus(), response.getStatusLine().getStatusCode());
+            }
+
+            long[] after = sumModelCacheStats(Json.ORDERED_MAPPER.readTree(client.performRequest(new Request("GET", "_zentity/_cache")).getEntity().getContent()));
+            assertTrue("model cached", after[0] >= 1);
+            assertTrue("second request read the model from the cache", after[1] > before[1]);
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
 }
@@ -7,13 +7,16 @@ import joptsimple.internal.Strings;
 import org.apache.http.Consts;
 import org.apache.http.entity.ContentType;
 import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ResolutionActionBulkIT extends AbstractActionITCase {
 
@@ -116,4 +119,75 @@ public class ResolutionActionBulkIT extends AbstractActionITCase {
             destroyTestResources(testResourceSet);
         }
     }
+
+    @Test
+    public void testBulkResolutionStream() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a/_bulk";
+            String[] reqBodyLines = new String[]{
+                "{\"_source\": false}", // override source
+                TEST_PAYLOAD_JOB_TERMS_JSON,
+                "{\"_explanation\": true}", // override explanation
+                TEST_PAYLOAD_JOB_EXPLANATION_JSON
+            };
+            String reqBody = Strings.join(reqBodyLines, "\n");
+
+            Request req = new Request("POST", endpoint);
+            req.setEntity(new NStringEntity(reqBody, NDJSON_TYPE));
+            Response response = client.performRequest(req);
+            JsonNode json = Json.ORDERED_MAPPER.readTree(response.getEntity().getContent());
+
+            Request reqStream = new Request("POST", endpoint);
+            reqStream.setEntity(new NStringEntity(reqBody, NDJSON_TYPE));
+            reqStream.addParameter("stream", "true");
+            Response responseStream = client.performRequest(reqStream);
+            assertEquals(200, responseStream.getStatusLine().getStatusCode());
+            assertEquals("application/x-ndjson", responseStream.getEntity().getContentType().getValue());
+            String[] lines = EntityUtils.toString(responseStream.getEntity()).split("\\n");
+            assertEquals(3, lines.length);
+
+            // Rebuild the order of the request from the position of each item, and end with the "summary" record.
+            JsonNode[] items = new JsonNode[2];
+            for (int i = 0; i < lines.length - 1; i++) {
+                JsonNode item = Json.ORDERED_MAPPER.readTree(lines[i]).get("item");
+                items[item.get("_position").asInt()] = item.get("response");
+            }
+            for (int i = 0; i < items.length; i++) {
+                JsonNode expected = json.get("items").get(i);
+                assertEquals(expected.get("hits").get("total").asInt(), items[i].get("hits").get("total").asInt());
+                assertEquals(expected.get("hits").get("hits"), items[i].get("hits").get("hits"));
+            }
+            JsonNode summary = Json.ORDERED_MAPPER.readTree(lines[lines.length - 1]).get("summary");
+            assertFalse(summary.get("errors").booleanValue());
+            assertTrue(summary.get("took").isNumber());
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
+    @Test
+    public void testBulkResolutionWithoutBody() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a/_bulk";
+            String[] reqBodyLines = new String[]{
+                "{}",
+                TEST_PAYLOAD_JOB_TERMS_JSON,
+                "{}"
+            };
+            Request req = new Request("POST", endpoint);
+            req.setEntity(new NStringEntity(Strings.join(reqBodyLines, "\n"), NDJSON_TYPE));
+            try {
+                client.performRequest(req);
+                fail("expected failure");
+            } catch (ResponseException e) {
+                assertEquals(400, e.getResponse().getStatusLine().getStatusCode());
+            }
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
 }
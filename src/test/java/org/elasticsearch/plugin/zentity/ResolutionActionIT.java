@@ -2,10 +2,12 @@ package org.elasticsearch.plugin.zentity;
 
 import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import io.zentity.common.Json;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseException;
@@ -13,6 +15,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.charset.Charset;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
@@ -550,6 +553,209 @@ public class ResolutionActionIT extends AbstractActionITCase {
         }
     }
 
+    @Test
+    public void testJobDeltaHops() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a";
+            List<StringEntity> payloads = List.of(
+                TEST_PAYLOAD_JOB_NO_SCOPE,
+                TEST_PAYLOAD_JOB_ATTRIBUTES,
+                TEST_PAYLOAD_JOB_TERMS,
+                TEST_PAYLOAD_JOB_MAX_HOPS_AND_DOCS
+            );
+            for (StringEntity payload : payloads) {
+                Request postResolutionFull = new Request("POST", endpoint);
+                postResolutionFull.setEntity(payload);
+                Response responseFull = client.performRequest(postResolutionFull);
+                JsonNode jsonFull = Json.ORDERED_MAPPER.readTree(responseFull.getEntity().getContent());
+
+                Request postResolutionDelta = new Request("POST", endpoint);
+                postResolutionDelta.addParameter("delta_hops", "true");
+                postResolutionDelta.setEntity(payload);
+                Response responseDelta = client.performRequest(postResolutionDelta);
+                JsonNode jsonDelta = Json.ORDERED_MAPPER.readTree(responseDelta.getEntity().getContent());
+
+                // The same documents are found at the same hops as when querying with all the known values.
+                assertEquals(jsonFull.get("hits").get("total").asInt(), jsonDelta.get("hits").get("total").asInt());
+                assertEquals(getActualIdHits(jsonFull), getActualIdHits(jsonDelta));
+            }
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
+    @Test
+    public void testJobMaxExcludedIds() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a";
+            List<StringEntity> payloads = List.of(
+                TEST_PAYLOAD_JOB_ATTRIBUTES,
+                TEST_PAYLOAD_JOB_MAX_HOPS_AND_DOCS
+            );
+            for (StringEntity payload : payloads) {
+                Request postResolutionExcluded = new Request("POST", endpoint);
+                postResolutionExcluded.addParameter("max_hops", "2");
+                postResolutionExcluded.addParameter("max_docs_per_query", "2");
+                postResolutionExcluded.setEntity(payload);
+                Response responseExcluded = client.performRequest(postResolutionExcluded);
+                JsonNode jsonExcluded = Json.ORDERED_MAPPER.readTree(responseExcluded.getEntity().getContent());
+
+                // Never exclude the fetched docs in the query, and skip them when reading the response instead.
+                Request postResolutionSkipped = new Request("POST", endpoint);
+                postResolutionSkipped.addParameter("max_hops", "2");
+                postResolutionSkipped.addParameter("max_docs_per_query", "2");
+                postResolutionSkipped.addParameter("max_excluded_ids", "0");
+                postResolutionSkipped.setEntity(payload);
+                Response responseSkipped = client.performRequest(postResolutionSkipped);
+                JsonNode jsonSkipped = Json.ORDERED_MAPPER.readTree(responseSkipped.getEntity().getContent());
+
+                assertEquals(jsonExcluded.get("hits").get("total").asInt(), jsonSkipped.get("hits").get("total").asInt());
+                assertEquals(getActualIdHits(jsonExcluded), getActualIdHits(jsonSkipped));
+            }
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
+    @Test
+    public void testJobPageSize() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a";
+            List<StringEntity> payloads = List.of(
+                TEST_PAYLOAD_JOB_ATTRIBUTES,
+                TEST_PAYLOAD_JOB_TERMS
+            );
+            for (StringEntity payload : payloads) {
+                Request postResolution = new Request("POST", endpoint);
+                postResolution.setEntity(payload);
+                Response response = client.performRequest(postResolution);
+                JsonNode json = Json.ORDERED_MAPPER.readTree(response.getEntity().getContent());
+
+                // Fetch one hit per page.
+                Request postResolutionPaged = new Request("POST", endpoint);
+                postResolutionPaged.addParameter("page_size", "1");
+                postResolutionPaged.setEntity(payload);
+                Response responsePaged = client.performRequest(postResolutionPaged);
+                JsonNode jsonPaged = Json.ORDERED_MAPPER.readTree(responsePaged.getEntity().getContent());
+
+                assertEquals(json.get("hits").get("total").asInt(), jsonPaged.get("hits").get("total").asInt());
+                assertEquals(getActualIdHits(json), getActualIdHits(jsonPaged));
+            }
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
+    @Test
+    public void testJobDocValueFields() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a";
+            List<StringEntity> payloads = List.of(
+                TEST_PAYLOAD_JOB_ATTRIBUTES,
+                TEST_PAYLOAD_JOB_TERMS
+            );
+            for (StringEntity payload : payloads) {
+                Request postResolution = new Request("POST", endpoint);
+                postResolution.addParameter("_source", "false");
+                postResolution.setEntity(payload);
+                Response response = client.performRequest(postResolution);
+                JsonNode json = Json.ORDERED_MAPPER.readTree(response.getEntity().getContent());
+
+                // Read the attributes from the doc values where the mappings allow it.
+                Request postResolutionDocValues = new Request("POST", endpoint);
+                postResolutionDocValues.addParameter("_source", "false");
+                postResolutionDocValues.addParameter("docvalue_fields", "true");
+                postResolutionDocValues.setEntity(payload);
+                Response responseDocValues = client.performRequest(postResolutionDocValues);
+                JsonNode jsonDocValues = Json.ORDERED_MAPPER.readTree(responseDocValues.getEntity().getContent());
+
+                assertEquals(json.get("hits").get("total").asInt(), jsonDocValues.get("hits").get("total").asInt());
+                assertEquals(getActualIdHits(json), getActualIdHits(jsonDocValues));
+                for (JsonNode doc : jsonDocValues.get("hits").get("hits")) {
+                    assertFalse(doc.has("_source"));
+                }
+            }
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
+    @Test
+    public void testJobStream() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a";
+            Request postResolution = new Request("POST", endpoint);
+            postResolution.setEntity(TEST_PAYLOAD_JOB_ATTRIBUTES);
+            Response response = client.performRequest(postResolution);
+            JsonNode json = Json.ORDERED_MAPPER.readTree(response.getEntity().getContent());
+
+            Request postResolutionStream = new Request("POST", endpoint);
+            postResolutionStream.addParameter("stream", "true");
+            postResolutionStream.setEntity(TEST_PAYLOAD_JOB_ATTRIBUTES);
+            Response responseStream = client.performRequest(postResolutionStream);
+            assertEquals("application/x-ndjson", responseStream.getEntity().getContentType().getValue());
+            String[] lines = EntityUtils.toString(responseStream.getEntity()).split("\\n");
+
+            // Gather the hits of every "hits" record, and end with the "summary" record.
+            ArrayNode hitsStream = Json.ORDERED_MAPPER.createArrayNode();
+            for (int i = 0; i < lines.length - 1; i++) {
+                JsonNode record = Json.ORDERED_MAPPER.readTree(lines[i]);
+                hitsStream.addAll((ArrayNode) record.get("hits").get("hits"));
+            }
+            JsonNode summary = Json.ORDERED_MAPPER.readTree(lines[lines.length - 1]).get("summary");
+            assertEquals(json.get("hits").get("total").asInt(), summary.get("hits").get("total").asInt());
+            assertEquals(json.get("hits").get("hits"), hitsStream);
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
+    @Test
+    public void testJobBudget() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a";
+            Request postResolution = new Request("POST", endpoint);
+            postResolution.setEntity(TEST_PAYLOAD_JOB_ATTRIBUTES);
+            Response response = client.performRequest(postResolution);
+            JsonNode json = Json.ORDERED_MAPPER.readTree(response.getEntity().getContent());
+            assertFalse(json.has("budget_exhausted"));
+
+            // Stop after the first two docs.
+            Request postResolutionDocs = new Request("POST", endpoint);
+            postResolutionDocs.addParameter("max_docs", "2");
+            postResolutionDocs.setEntity(TEST_PAYLOAD_JOB_ATTRIBUTES);
+            Response responseDocs = client.performRequest(postResolutionDocs);
+            JsonNode jsonDocs = Json.ORDERED_MAPPER.readTree(responseDocs.getEntity().getContent());
+            assertTrue(jsonDocs.get("budget_exhausted").asBoolean());
+            assertEquals(2, jsonDocs.get("hits").get("total").asInt());
+            assertTrue(getActualIdHits(json).containsAll(getActualIdHits(jsonDocs)));
+
+            // Stop after the first query.
+            Request postResolutionQueries = new Request("POST", endpoint);
+            postResolutionQueries.addParameter("max_queries", "1");
+            postResolutionQueries.addParameter("queries", "true");
+            postResolutionQueries.setEntity(TEST_PAYLOAD_JOB_ATTRIBUTES);
+            Response responseQueries = client.performRequest(postResolutionQueries);
+            JsonNode jsonQueries = Json.ORDERED_MAPPER.readTree(responseQueries.getEntity().getContent());
+            assertTrue(jsonQueries.get("budget_exhausted").asBoolean());
+            assertEquals(1, jsonQueries.get("queries").size());
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
     @Test
     public void testJobTerms() throws Exception {
         int testResourceSet = TEST_RESOURCES_A;
@@ -823,6 +1029,67 @@ public class ResolutionActionIT extends AbstractActionITCase {
         }
     }
 
+    @Test
+    public void testJobMaxConcurrentSearches() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a";
+            Request postResolutionSerial = new Request("POST", endpoint);
+            postResolutionSerial.addParameter("max_hops", "2");
+            postResolutionSerial.addParameter("max_docs_per_query", "2");
+            postResolutionSerial.addParameter("_explanation", "true");
+            postResolutionSerial.setEntity(TEST_PAYLOAD_JOB_MAX_HOPS_AND_DOCS);
+            Response responseSerial = client.performRequest(postResolutionSerial);
+            JsonNode jsonSerial = Json.ORDERED_MAPPER.readTree(responseSerial.getEntity().getContent());
+
+            Request postResolutionConcurrent = new Request("POST", endpoint);
+            postResolutionConcurrent.addParameter("max_hops", "2");
+            postResolutionConcurrent.addParameter("max_docs_per_query", "2");
+            postResolutionConcurrent.addParameter("_explanation", "true");
+            postResolutionConcurrent.addParameter("max_concurrent_searches", "4");
+            postResolutionConcurrent.setEntity(TEST_PAYLOAD_JOB_MAX_HOPS_AND_DOCS);
+            Response responseConcurrent = client.performRequest(postResolutionConcurrent);
+            JsonNode jsonConcurrent = Json.ORDERED_MAPPER.readTree(responseConcurrent.getEntity().getContent());
+
+            // The hits, including their "_hop" and "_query" numbers, are the same as searching one index at a time.
+            assertEquals(20, jsonConcurrent.get("hits").get("total").asInt());
+            assertEquals(jsonSerial.get("hits"), jsonConcurrent.get("hits"));
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
+    @Test
+    public void testJobMultiSearch() throws Exception {
+        int testResourceSet = TEST_RESOURCES_A;
+        prepareTestResources(testResourceSet);
+        try {
+            String endpoint = "_zentity/resolution/zentity_test_entity_a";
+            Request postResolutionSearch = new Request("POST", endpoint);
+            postResolutionSearch.addParameter("max_hops", "2");
+            postResolutionSearch.addParameter("max_docs_per_query", "2");
+            postResolutionSearch.addParameter("_explanation", "true");
+            postResolutionSearch.setEntity(TEST_PAYLOAD_JOB_MAX_HOPS_AND_DOCS);
+            Response responseSearch = client.performRequest(postResolutionSearch);
+            JsonNode jsonSearch = Json.ORDERED_MAPPER.readTree(responseSearch.getEntity().getContent());
+
+            Request postResolutionMultiSearch = new Request("POST", endpoint);
+            postResolutionMultiSearch.addParameter("max_hops", "2");
+            postResolutionMultiSearch.addParameter("max_docs_per_query", "2");
+            postResolutionMultiSearch.addParameter("_explanation", "true");
+            postResolutionMultiSearch.addParameter("msearch", "true");
+            postResolutionMultiSearch.setEntity(TEST_PAYLOAD_JOB_MAX_HOPS_AND_DOCS);
+            Response responseMultiSearch = client.performRequest(postResolutionMultiSearch);
+            JsonNode jsonMultiSearch = Json.ORDERED_MAPPER.readTree(responseMultiSearch.getEntity().getContent());
+
+            assertEquals(20, jsonMultiSearch.get("hits").get("total").asInt());
+            assertEquals(jsonSearch.get("hits"), jsonMultiSearch.get("hits"));
+        } finally {
+            destroyTestResources(testResourceSet);
+        }
+    }
+
     @Test
     public void testJobDataTypes() throws Exception {
         int testResourceSet = TEST_RESOURCES_A;
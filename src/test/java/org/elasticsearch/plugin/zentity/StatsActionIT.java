@@ -0,0 +1,45 @@
+package org.elasticsearch.plugin.zentity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.zentity.common.Json;
+import io.zentity.devtools.AbstractITCase;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class StatsActionIT extends AbstractITCase {
+
+    @Test
+    public void testStats() throws Exception {
+        Response response = client.performRequest(new Request("GET", "_zentity/_stats"));
+        JsonNode json = Json.MAPPER.readTree(response.getEntity().getContent());
+        assertEquals(0, json.get("_nodes").get("failed").asInt());
+        Iterator<Map.Entry<String, JsonNode>> nodes = json.get("nodes").fields();
+        assertTrue(nodes.hasNext());
+        while (nodes.hasNext()) {
+            JsonNode node = nodes.next().getValue();
+            JsonNode jobs = node.get("resolution").get("jobs");
+            assertTrue(jobs.get("started").asLong() >= jobs.get("completed").asLong());
+            assertTrue(jobs.get("took_in_millis").has("percentiles"));
+            assertTrue(node.get("resolution").get("searches").has("queries_by_index"));
+            assertTrue(node.get("resolution").has("bulk"));
+            assertTrue(node.get("resolution").get("admission").get("max").asInt() > 0);
+            assertTrue(node.get("thread_pool").has("queue"));
+            assertTrue(node.get("models").has("hit_rate"));
+        }
+    }
+
+    @Test
+    public void testNodeStats() throws Exception {
+        Response response = client.performRequest(new Request("GET", "_zentity/_stats/_local"));
+        JsonNode json = Json.MAPPER.readTree(response.getEntity().getContent());
+        assertEquals(1, json.get("_nodes").get("total").asInt());
+        assertEquals(1, json.get("nodes").size());
+    }
+}
@@ -33,4 +33,18 @@ public class ZentityPluginIT extends AbstractITCase {
             assertTrue("Plugin was not found", pluginFound);
         }
     }
+
+    @Test
+    public void testResolutionThreadPoolIsRegistered() throws Exception {
+        Request request = new Request("GET", "_nodes/thread_pool");
+        Response response = client.performRequest(request);
+        JsonNode json = Json.MAPPER.readTree(response.getEntity().getContent());
+        Iterator<Map.Entry<String, JsonNode>> nodes = json.get("nodes").fields();
+        while (nodes.hasNext()) {
+            JsonNode threadPool = nodes.next().getValue().get("thread_pool").get(ZentityPlugin.RESOLUTION_THREAD_POOL_NAME);
+            assertTrue("Thread pool was not found", threadPool != null);
+            assertTrue(threadPool.get("type").asText().equals("fixed"));
+            assertTrue(threadPool.get("queue_size").asInt() > 0);
+        }
+    }
 }